@@ -6,8 +6,14 @@ import java.lang.annotation.Target;
 import static java.lang.annotation.ElementType.CONSTRUCTOR;
 import static java.lang.annotation.ElementType.METHOD;
 import static java.lang.annotation.ElementType.TYPE;
-import static java.lang.annotation.RetentionPolicy.CLASS;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
 
-@Target({TYPE, METHOD, CONSTRUCTOR}) @Retention(CLASS)
+@Target({TYPE, METHOD, CONSTRUCTOR}) @Retention(RUNTIME)
 public @interface DebugLog {
+    /**
+     * Only log calls that took longer than this many milliseconds, 0 logs
+     * every call. By default the threshold of the annotated class applies,
+     * then the 'debuglog.threshold' of the configuration.
+     */
+    long threshold() default -1;
 }
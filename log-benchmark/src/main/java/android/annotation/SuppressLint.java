@@ -0,0 +1,9 @@
+package android.annotation;
+
+/**
+ * Plain JVM stand-in for the lint annotation.
+ */
+public @interface SuppressLint
+{
+    String[] value();
+}
@@ -0,0 +1,17 @@
+package android.os;
+
+/**
+ * Plain JVM stand-in, reports an sdk without trace support.
+ */
+public class Build
+{
+    public static class VERSION
+    {
+        public static final int SDK_INT = 1;
+    }
+
+    public static class VERSION_CODES
+    {
+        public static final int JELLY_BEAN_MR2 = 18;
+    }
+}
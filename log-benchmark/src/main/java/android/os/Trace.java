@@ -0,0 +1,20 @@
+package android.os;
+
+/**
+ * Plain JVM stand-in, does nothing.
+ */
+public final class Trace
+{
+    private Trace()
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    public static void beginSection(String sectionName)
+    {
+    }
+
+    public static void endSection()
+    {
+    }
+}
@@ -0,0 +1,53 @@
+package android.util;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+/**
+ * Plain JVM stand-in for the android log, output is discarded.
+ */
+public final class Log
+{
+    public static final int VERBOSE = 2;
+    public static final int DEBUG   = 3;
+    public static final int INFO    = 4;
+    public static final int WARN    = 5;
+    public static final int ERROR   = 6;
+    public static final int ASSERT  = 7;
+
+    /**
+     * Compared with every printed length to keep the output alive for the JIT,
+     * it is only read so that contended benchmarks do not share a written field
+     */
+    private static volatile int discardedLength = -1;
+
+    private Log()
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    public static int println(int priority, String tag, String msg)
+    {
+        if(tag.length() + msg.length() == discardedLength)
+        {
+            throw new AssertionError();
+        }
+        return 0;
+    }
+
+    public static boolean isLoggable(String tag, int level)
+    {
+        return true;
+    }
+
+    public static String getStackTraceString(Throwable throwable)
+    {
+        if(throwable == null)
+        {
+            return "";
+        }
+        StringWriter writer = new StringWriter();
+        throwable.printStackTrace(new PrintWriter(writer));
+        return writer.toString();
+    }
+}
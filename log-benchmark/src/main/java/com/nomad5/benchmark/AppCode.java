@@ -0,0 +1,27 @@
+package com.nomad5.benchmark;
+
+import com.nomad5.log.Log;
+
+/**
+ * Log calls made by application code.
+ *
+ * It lives outside of the logging package, so the logger resolves it as the
+ * caller from the stack.
+ */
+public final class AppCode
+{
+    private AppCode()
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    public static void debug(Integer count)
+    {
+        Log.d(null, "processed %d items of %s", count, "queue");
+    }
+
+    public static void verbose(Integer count)
+    {
+        Log.v(null, "processed %d items of %s", count, "queue");
+    }
+}
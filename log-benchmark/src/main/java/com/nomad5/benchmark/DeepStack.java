@@ -0,0 +1,26 @@
+package com.nomad5.benchmark;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Runs a callable below a number of extra stack frames.
+ *
+ * It lives outside of the logging package, so its frames count as
+ * application frames when the logger looks for its caller.
+ */
+public final class DeepStack
+{
+    private DeepStack()
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    public static <T> T call(int depth, Callable<T> callable) throws Exception
+    {
+        if(depth <= 0)
+        {
+            return callable.call();
+        }
+        return call(depth - 1, callable);
+    }
+}
@@ -0,0 +1,36 @@
+package com.nomad5.benchmark;
+
+import com.nomad5.log.Annotation.DebugLog;
+
+/**
+ * The same method with and without {@link DebugLog}, and with a threshold
+ * it never reaches, and a method that does nothing to show the bare cost of
+ * the advice.
+ *
+ * It lives outside of the logging package, so the logger of the traced
+ * method is resolved for this class.
+ */
+public final class Traced
+{
+    @DebugLog
+    public int traced(int value, String name)
+    {
+        return value + name.length();
+    }
+
+    @DebugLog(threshold = 1000)
+    public int tracedIfSlow(int value, String name)
+    {
+        return value + name.length();
+    }
+
+    @DebugLog
+    public void noop()
+    {
+    }
+
+    public int plain(int value, String name)
+    {
+        return value + name.length();
+    }
+}
@@ -0,0 +1,98 @@
+package com.nomad5.log.Annotation;
+
+import com.nomad5.benchmark.Traced;
+import com.nomad5.log.LoggerManager;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Overhead of the {@link Hugo} around advice on a {@link DebugLog} method,
+ * with the method logger enabled and disabled and in every mode, compared to
+ * the same method without the annotation and to a method that is only logged
+ * when it is slow.
+ *
+ * The benchmark module is woven like an application, see its build script.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HugoBenchmark
+{
+    /**
+     * Level of the logger of the traced class
+     */
+    @Param({"VERBOSE", "ERROR"})
+    public String level;
+
+    /**
+     * Log every call, record it, see {@link MethodTracer}, or its duration, see {@link MethodMetrics}
+     */
+    @Param({"log", "trace", "metrics"})
+    public String mode;
+
+    private final Traced traced = new Traced();
+    private int value = 42;
+    private String name = "benchmark";
+
+    @Setup
+    public void setup()
+    {
+        Properties properties = new Properties();
+        properties.setProperty("root", "ERROR:Benchmark");
+        properties.setProperty("logger.com.nomad5.benchmark", this.level + ":Benchmark:%logger{-1}");
+        properties.setProperty("debuglog.mode", this.mode);
+        LoggerManager.configure(properties);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public int plain()
+    {
+        return this.traced.plain(this.value, this.name);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public int traced()
+    {
+        return this.traced.traced(this.value, this.name);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void tracedNoop()
+    {
+        this.traced.noop();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public int tracedIfSlow()
+    {
+        return this.traced.tracedIfSlow(this.value, this.name);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public int tracedContended()
+    {
+        return this.traced.traced(this.value, this.name);
+    }
+}
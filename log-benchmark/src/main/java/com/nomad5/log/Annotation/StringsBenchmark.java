@@ -0,0 +1,87 @@
+package com.nomad5.log.Annotation;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rendering of the arguments and results of {@link DebugLog} methods, of
+ * sizes below and far above the element limit of {@link Strings}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StringsBenchmark
+{
+    @Param({"16", "1024", "1048576"})
+    public int size;
+
+    private byte[] bytes;
+    private int[] ints;
+    private Object[] strings;
+    private Object[] nested;
+    private List<String> list;
+
+    @Setup
+    public void setup()
+    {
+        this.bytes = new byte[this.size];
+        this.ints = new int[this.size];
+        this.strings = new Object[this.size];
+        this.nested = new Object[this.size];
+        this.list = new ArrayList<>(this.size);
+        for(int i = 0; i < this.size; i++)
+        {
+            this.bytes[i] = (byte) i;
+            this.ints[i] = i;
+            this.strings[i] = "item\t" + i;
+            this.nested[i] = new Object[]{i, "item" + i};
+            this.list.add("item" + i);
+        }
+    }
+
+    @Benchmark
+    public String byteArray()
+    {
+        return Strings.toString(this.bytes);
+    }
+
+    @Benchmark
+    public String intArray()
+    {
+        return Strings.toString(this.ints);
+    }
+
+    @Benchmark
+    public String stringArray()
+    {
+        return Strings.toString(this.strings);
+    }
+
+    @Benchmark
+    public String nestedArray()
+    {
+        return Strings.toString(this.nested);
+    }
+
+    @Benchmark
+    public String list()
+    {
+        return Strings.toString(this.list);
+    }
+}
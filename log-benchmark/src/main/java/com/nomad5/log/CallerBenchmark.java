@@ -0,0 +1,74 @@
+package com.nomad5.log;
+
+import com.nomad5.benchmark.DeepStack;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caller resolution cost per call, depending on the stack depth below the caller.
+ *
+ * {@link #stackTrace()} inspects the whole stack trace, {@link #stackWalker()}
+ * walks lazily up to the caller.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CallerBenchmark
+{
+    @Param({"10", "100", "500"})
+    public int depth;
+
+    private Callable<StackTraceElement> stackTrace;
+    private Callable<StackTraceElement> stackWalker;
+
+    @Setup
+    public void setup() throws Exception
+    {
+        final StackInspector stackTraceInspector = new StackInspector.StackTraceInspector();
+        final StackInspector stackWalkerInspector = new StackInspector.StackWalkerInspector();
+        this.stackTrace = new Callable<StackTraceElement>()
+        {
+            @Override
+            public StackTraceElement call()
+            {
+                return stackTraceInspector.getCaller(true);
+            }
+        };
+        this.stackWalker = new Callable<StackTraceElement>()
+        {
+            @Override
+            public StackTraceElement call()
+            {
+                return stackWalkerInspector.getCaller(true);
+            }
+        };
+    }
+
+    @Benchmark
+    public StackTraceElement stackTrace() throws Exception
+    {
+        return DeepStack.call(this.depth, this.stackTrace);
+    }
+
+    @Benchmark
+    public StackTraceElement stackWalker() throws Exception
+    {
+        return DeepStack.call(this.depth, this.stackWalker);
+    }
+}
@@ -0,0 +1,53 @@
+package com.nomad5.log.Handler.Pattern;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Date rendering throughput with 4 threads.
+ *
+ * {@link #synchronizedSimpleDateFormat()} is the safe variant of the previous
+ * shared {@link SimpleDateFormat}, {@link #cachedDateFormat()} the
+ * {@link CachedDateFormat} used by {@link Pattern.DatePattern}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class DateFormatBenchmark
+{
+    private static final String PATTERN = "yyyy-MM-dd HH:mm:ss.SSS";
+
+    private final SimpleDateFormat simpleDateFormat = new SimpleDateFormat(PATTERN);
+    private final CachedDateFormat cachedDateFormat = new CachedDateFormat(PATTERN);
+
+    @Benchmark
+    public String synchronizedSimpleDateFormat()
+    {
+        synchronized(this.simpleDateFormat)
+        {
+            return this.simpleDateFormat.format(new Date());
+        }
+    }
+
+    @Benchmark
+    public String cachedDateFormat()
+    {
+        return this.cachedDateFormat.format(System.currentTimeMillis());
+    }
+}
@@ -0,0 +1,79 @@
+package com.nomad5.log.Handler.Pattern;
+
+import com.nomad5.log.Handler.LogEvent;
+import com.nomad5.log.Logger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compiling a pattern and rendering an event with each kind of {@link Pattern}.
+ *
+ * The event is reused, so the caller is resolved once from its caller object
+ * like it is once per event when logging.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PatternBenchmark
+{
+    /**
+     * One pattern per {@link Pattern} subclass
+     */
+    @Param({"plain text",
+            "%date",
+            "%level",
+            "%logger{-2}",
+            "%caller",
+            "%source",
+            "%-30(%level %logger)",
+            "%thread",
+            "%class{-2}"})
+    public String pattern;
+
+    private final LogEvent event = new LogEvent();
+    private Pattern compiled;
+
+    @Setup
+    public void setup()
+    {
+        this.compiled = new PatternCompiler().compile(this.pattern);
+        this.event.set("com.example.app.ui.MainActivity", Logger.Level.DEBUG, this, null, "processed %d items", new Object[]{42});
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Pattern compile()
+    {
+        return new PatternCompiler().compile(this.pattern);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String apply()
+    {
+        return this.compiled.apply(this.event);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String applyContended()
+    {
+        return this.compiled.apply(this.event);
+    }
+}
@@ -0,0 +1,75 @@
+package com.nomad5.log.Handler.Sink;
+
+import com.nomad5.log.Handler.PatternHandler;
+import com.nomad5.log.Logger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Events per second through a {@link PatternHandler} to a file sink that
+ * writes every record at once and to one that gathers them in a batch.
+ *
+ * The file is /dev/null, so a write costs the system call and nothing else,
+ * and a real file or the android log only widen the difference.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SinkBenchmark
+{
+    /**
+     * The batch size in bytes, 0 writes every record at once
+     */
+    @Param({"0", "8192", "65536"})
+    public int batchSize;
+
+    private FileSink sink;
+    private PatternHandler handler;
+    private int items = 42;
+
+    @Setup
+    public void setup() throws IOException
+    {
+        this.sink = new FileSink(new File("/dev/null"), this.batchSize, 1000);
+        this.handler = new PatternHandler(Logger.Level.DEBUG, "Benchmark", "%date{HH:mm:ss.SSS} [%thread] %-20logger{-2}", this.sink);
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        this.sink.close();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void print()
+    {
+        this.handler.print("com.example.app.ui.MainActivity", Logger.Level.DEBUG, null, null, "processed %d items", this.items);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void printContended()
+    {
+        this.handler.print("com.example.app.ui.MainActivity", Logger.Level.DEBUG, null, null, "processed %d items", this.items);
+    }
+}
@@ -0,0 +1,93 @@
+package com.nomad5.log;
+
+import com.nomad5.log.Handler.Handler;
+import com.nomad5.log.Handler.PatternHandler;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Handler resolution cost depending on the number of configured loggers.
+ *
+ * {@link #linearScan()} is the previous prefix scan over all configured keys,
+ * {@link #tree()} the {@link HandlerTree} lookup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HandlerTreeBenchmark
+{
+    @Param({"10", "100", "1000"})
+    public int configSize;
+
+    private Map<String, Handler> handlerMap;
+    private HandlerTree handlerTree;
+    private String[] names;
+    private int index;
+
+    @Setup
+    public void setup()
+    {
+        Handler handler = new PatternHandler(Logger.Level.DEBUG, "tag", "%thread");
+        this.handlerMap = new HashMap<>();
+        this.handlerMap.put(null, handler);
+        for(int i = 0; i < this.configSize; i++)
+        {
+            this.handlerMap.put("com.example.module" + (i % 32) + ".feature" + i, handler);
+        }
+        this.handlerTree = new HandlerTree(this.handlerMap);
+        this.names = new String[256];
+        for(int i = 0; i < this.names.length; i++)
+        {
+            this.names[i] = "com.example.module" + (i % 32) + ".feature" + (i * 7) + ".ui.SomeActivity$Inner";
+        }
+    }
+
+    @Benchmark
+    public Handler linearScan()
+    {
+        String name = this.nextName();
+        String currentKey = null;
+        for(String key : this.handlerMap.keySet())
+        {
+            if(key != null && name.startsWith(key))
+            {
+                if(key.length() >= name.length() || name.charAt(key.length()) == '.' || name.charAt(key.length()) == '$')
+                {
+                    if(currentKey == null || currentKey.length() < key.length())
+                    {
+                        currentKey = key;
+                    }
+                }
+            }
+        }
+        return this.handlerMap.get(currentKey);
+    }
+
+    @Benchmark
+    public Handler tree()
+    {
+        return this.handlerTree.find(this.nextName());
+    }
+
+    private String nextName()
+    {
+        return this.names[this.index++ & (this.names.length - 1)];
+    }
+}
@@ -0,0 +1,118 @@
+package com.nomad5.log;
+
+import com.nomad5.benchmark.AppCode;
+import com.nomad5.log.LoggerImpl.SimpleLogger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A log call end to end, from {@link Log#d(Object, String, Object...)} to
+ * the android log, alone and with four threads logging at once. The caller
+ * benchmarks log from application code without a caller object, so the
+ * logger and the caller are resolved from the woven call site.
+ * The primitive benchmarks log a single unboxed argument, to the android
+ * log, which takes strings, and to a file sink, which does not.
+ *
+ * Run with {@code -prof gc} for the allocation rate per call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LogBenchmark
+{
+    private Integer count = 42;
+    private int items = 42;
+    private SimpleLogger fileLogger;
+
+    @Setup
+    public void setup()
+    {
+        Properties properties = new Properties();
+        properties.setProperty("root", "ERROR:Benchmark");
+        properties.setProperty("logger.com.nomad5.log", "DEBUG:Benchmark:%date{HH:mm:ss.SSS} [%thread] %-20logger{-2}");
+        properties.setProperty("logger.com.nomad5.benchmark", "DEBUG:Benchmark:%date %level %caller");
+        properties.setProperty("sink.null", "file:/dev/null");
+        properties.setProperty("logger.benchmark.file", "DEBUG@null:Benchmark:%date{HH:mm:ss.SSS} [%thread] %-20logger{-2}");
+        LoggerManager.configure(properties);
+        this.fileLogger = (SimpleLogger) LoggerManager.getLogger("benchmark.file");
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void debugFormat()
+    {
+        Log.d(this, "processed %d items of %s", this.count, "queue");
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void debugFormatContended()
+    {
+        Log.d(this, "processed %d items of %s", this.count, "queue");
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void debugPrimitive()
+    {
+        Log.dValue(this, "processed %d items", this.items);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void debugPrimitiveFile()
+    {
+        this.fileLogger.dValue(null, "processed %d items", this.items);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void debugCaller()
+    {
+        AppCode.debug(this.count);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void debugCallerContended()
+    {
+        AppCode.debug(this.count);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void verboseDisabled()
+    {
+        Log.v(this, "processed %d items of %s", this.count, "queue");
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void verboseDisabledContended()
+    {
+        Log.v(this, "processed %d items of %s", this.count, "queue");
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void verboseDisabledCaller()
+    {
+        AppCode.verbose(this.count);
+    }
+}
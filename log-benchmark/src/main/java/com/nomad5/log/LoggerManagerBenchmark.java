@@ -0,0 +1,93 @@
+package com.nomad5.log;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Logger lookup, cached by name, class and caller object, alone and with
+ * four threads looking up at once.
+ *
+ * A miss creates and caches a logger for a name that was never seen, so the
+ * miss benchmarks measure single batches of calls instead of running for a
+ * fixed time and filling the cache without bound.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoggerManagerBenchmark
+{
+    private static final int MISS_BATCH = 10000;
+
+    private final AtomicLong missCounter = new AtomicLong();
+
+    @Benchmark
+    @Threads(1)
+    public Logger nameHit()
+    {
+        return LoggerManager.getLogger("com.example.app.ui.MainActivity");
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Logger nameHitContended()
+    {
+        return LoggerManager.getLogger("com.example.app.ui.MainActivity");
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Logger classHit()
+    {
+        return LoggerManager.getLogger(LoggerManagerBenchmark.class);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Logger classHitContended()
+    {
+        return LoggerManager.getLogger(LoggerManagerBenchmark.class);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Logger callerHit()
+    {
+        return LoggerManager.getLogger((Object) this);
+    }
+
+    @Benchmark
+    @Threads(1)
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 5, batchSize = MISS_BATCH)
+    @Measurement(iterations = 5, batchSize = MISS_BATCH)
+    public Logger nameMiss()
+    {
+        return LoggerManager.getLogger("com.example.app.Generated" + this.missCounter.incrementAndGet());
+    }
+
+    @Benchmark
+    @Threads(4)
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 5, batchSize = MISS_BATCH)
+    @Measurement(iterations = 5, batchSize = MISS_BATCH)
+    public Logger nameMissContended()
+    {
+        return LoggerManager.getLogger("com.example.app.Generated" + this.missCounter.incrementAndGet());
+    }
+}
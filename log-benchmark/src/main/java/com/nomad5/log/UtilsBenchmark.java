@@ -0,0 +1,86 @@
+package com.nomad5.log;
+
+import com.nomad5.benchmark.DeepStack;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The helpers of the patterns, caller resolution from a shallow application
+ * stack and class name shortening.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UtilsBenchmark
+{
+    private static final Callable<StackTraceElement> GET_CALLER = new Callable<StackTraceElement>()
+    {
+        @Override
+        public StackTraceElement call()
+        {
+            return Utils.getCaller(true);
+        }
+    };
+
+    /**
+     * Arguments of {@link Utils#shortenClassName(String, int, int)}
+     */
+    @State(Scope.Benchmark)
+    public static class Shortening
+    {
+        /**
+         * The count and the length argument
+         */
+        @Param({"0:0", "-2:0", "1:0", "0:20", "0:-20"})
+        public String countAndLength;
+
+        private String className = "com.example.app.feature.detail.DetailActivity$LoadTask";
+        private int count;
+        private int length;
+
+        @Setup
+        public void setup()
+        {
+            int separator = this.countAndLength.indexOf(':');
+            this.count = Integer.parseInt(this.countAndLength.substring(0, separator));
+            this.length = Integer.parseInt(this.countAndLength.substring(separator + 1));
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public StackTraceElement getCaller() throws Exception
+    {
+        return DeepStack.call(10, GET_CALLER);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public StackTraceElement getCallerContended() throws Exception
+    {
+        return DeepStack.call(10, GET_CALLER);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String shortenClassName(Shortening shortening)
+    {
+        return Utils.shortenClassName(shortening.className, shortening.count, shortening.length);
+    }
+}
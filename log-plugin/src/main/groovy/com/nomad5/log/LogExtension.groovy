@@ -0,0 +1,55 @@
+package com.nomad5.log
+
+import org.gradle.api.GradleException
+
+/**
+ * The 'log { }' configuration block of the plugin.
+ */
+class LogExtension {
+    /**
+     * Also weave non-debuggable build types, with the call site aspect only.
+     *
+     * The call site (class, method, file and line) of every call to
+     * com.nomad5.log.Log is then known at compile time, so %caller and
+     * %source need no stack inspection at runtime. Debuggable build types
+     * always get the call sites together with the @DebugLog aspect.
+     */
+    boolean releaseCallSites = false
+
+    /**
+     * The minimum level of all variants, e.g. 'INFO', or null to keep all calls.
+     *
+     * Calls to com.nomad5.log.Log and com.nomad5.log.Logger below it are
+     * removed from the bytecode together with the evaluation of their
+     * arguments, and Log.isLoggable() and the level constants of Log are
+     * false for these levels at runtime.
+     */
+    String minLevel = null
+
+    /**
+     * Minimum levels by variant, build type or flavor name, they take
+     * precedence over minLevel in this order.
+     */
+    Map<String, String> minLevels = [:]
+
+    void minLevel(String level) {
+        minLevel = level
+    }
+
+    void minLevel(String name, String level) {
+        minLevels[name] = level
+    }
+
+    /**
+     * Returns the minimum level of a variant, or null.
+     */
+    String minLevelOf(variant) {
+        List<String> names = [variant.name, variant.buildType.name] + variant.productFlavors*.name
+        String name = names.find { minLevels.containsKey(it) }
+        String level = name != null ? minLevels[name] : minLevel
+        if (level != null && !LogStripper.LEVELS.contains(level.toUpperCase())) {
+            throw new GradleException("Unknown log level '${level}', use one of ${LogStripper.LEVELS}.")
+        }
+        return level?.toUpperCase()
+    }
+}
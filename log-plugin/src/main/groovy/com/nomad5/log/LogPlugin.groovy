@@ -10,6 +10,10 @@ import org.gradle.api.Project
 import org.gradle.api.tasks.compile.JavaCompile
 
 class LogPlugin implements Plugin<Project> {
+    static final String CALL_SITES_ASPECT = 'com.nomad5.log.Annotation.CallSites'
+    // read by com.nomad5.log.Log from the class path
+    static final String LEVEL_PROPERTIES = 'log-level.properties'
+
     @Override
     void apply(Project project) {
         def hasApp = project.plugins.withType(AppPlugin)
@@ -19,6 +23,7 @@ class LogPlugin implements Plugin<Project> {
         }
 
         final def log = project.logger
+        final def extension = project.extensions.create('log', LogExtension)
         final def variants
         if (hasApp) {
             variants = project.android.applicationVariants
@@ -34,13 +39,38 @@ class LogPlugin implements Plugin<Project> {
         }
 
         variants.all { variant ->
-            if (!variant.buildType.isDebuggable()) {
-                log.debug("Skipping non-debuggable build type '${variant.buildType.name}'.")
-                return;
+            File levelDir = project.file("${project.buildDir}/intermediates/log/${variant.name}/resources")
+            def levelTask = project.task("generate${variant.name.capitalize()}LogLevel") {
+                inputs.property 'minLevel', { String.valueOf(extension.minLevelOf(variant)) }
+                outputs.dir levelDir
+                doLast {
+                    project.delete levelDir
+                    levelDir.mkdirs()
+                    String minLevel = extension.minLevelOf(variant)
+                    if (minLevel) {
+                        new File(levelDir, LEVEL_PROPERTIES).text = "minLevel=${minLevel}\n"
+                    }
+                }
             }
+            variant.processJavaResources.dependsOn levelTask
+            variant.processJavaResources.from levelDir
 
             JavaCompile javaCompile = variant.javaCompile
             javaCompile.doLast {
+                // the extension is read here, after the build script configured it
+                String minLevel = extension.minLevelOf(variant)
+                if (minLevel) {
+                    // before weaving, the advice would hide the calls from the stripper
+                    int removed = new LogStripper(minLevel).strip(javaCompile.destinationDir)
+                    log.info "Removed ${removed} log calls below ${minLevel} from '${variant.name}'."
+                }
+
+                boolean callSitesOnly = !variant.buildType.isDebuggable()
+                if (callSitesOnly && !extension.releaseCallSites) {
+                    log.debug("Skipping non-debuggable build type '${variant.buildType.name}'.")
+                    return;
+                }
+
                 String[] args = [
                         "-showWeaveInfo",
                         "-1.5",
@@ -50,6 +80,13 @@ class LogPlugin implements Plugin<Project> {
                         "-classpath", javaCompile.classpath.asPath,
                         "-bootclasspath", project.android.bootClasspath.join(File.pathSeparator)
                 ]
+                if (callSitesOnly) {
+                    // only the aspects listed in the xml file are woven
+                    File aspectConfig = project.file("${project.buildDir}/intermediates/log/${variant.name}/aop-ajc.xml")
+                    aspectConfig.parentFile.mkdirs()
+                    aspectConfig.text = "<aspectj>\n    <aspects>\n        <aspect name=\"${CALL_SITES_ASPECT}\"/>\n    </aspects>\n</aspectj>\n"
+                    args += ["-xmlConfigured", aspectConfig.absolutePath]
+                }
                 log.debug "ajc args: " + Arrays.toString(args)
 
                 MessageHandler handler = new MessageHandler(true);
@@ -0,0 +1,243 @@
+package com.nomad5.log
+
+import groovy.io.FileType
+import org.objectweb.asm.ClassReader
+import org.objectweb.asm.ClassWriter
+import org.objectweb.asm.Opcodes
+import org.objectweb.asm.Type
+import org.objectweb.asm.commons.AnalyzerAdapter
+import org.objectweb.asm.tree.AbstractInsnNode
+import org.objectweb.asm.tree.ClassNode
+import org.objectweb.asm.tree.FieldInsnNode
+import org.objectweb.asm.tree.IincInsnNode
+import org.objectweb.asm.tree.InsnNode
+import org.objectweb.asm.tree.JumpInsnNode
+import org.objectweb.asm.tree.LabelNode
+import org.objectweb.asm.tree.LookupSwitchInsnNode
+import org.objectweb.asm.tree.MethodInsnNode
+import org.objectweb.asm.tree.MethodNode
+import org.objectweb.asm.tree.TableSwitchInsnNode
+import org.objectweb.asm.tree.TryCatchBlockNode
+
+/**
+ * Removes log calls below a minimum level from compiled classes.
+ *
+ * A call to com.nomad5.log.Log or com.nomad5.log.Logger is removed together
+ * with the instructions that evaluate its arguments, like the body of an
+ * 'if (false)'. Side effects of the arguments are gone too. Enabled checks
+ * of these levels become false, and the level constants of Log become
+ * constants. A call is kept if its arguments can not be told apart from the
+ * surrounding code, e.g. when a jump leaves them, or if they assign a local
+ * variable that the code after the call may read.
+ */
+class LogStripper {
+    static final List<String> LEVELS = ['VERBOSE', 'DEBUG', 'INFO', 'WARN', 'ERROR', 'ASSERT']
+
+    private static final String LOG = 'com/nomad5/log/Log'
+    private static final String LOGGER = 'com/nomad5/log/Logger'
+    private static final Map<String, String> METHOD_LEVELS = [
+            v: 'VERBOSE', d: 'DEBUG', i: 'INFO', w: 'WARN', e: 'ERROR', a: 'ASSERT',
+            vValue: 'VERBOSE', dValue: 'DEBUG', iValue: 'INFO', wValue: 'WARN', eValue: 'ERROR', aValue: 'ASSERT',
+            isVerboseEnabled: 'VERBOSE', isDebugEnabled: 'DEBUG', isInfoEnabled: 'INFO',
+            isWarnEnabled: 'WARN', isErrorEnabled: 'ERROR', isAssertEnabled: 'ASSERT']
+
+    private final int minLevel
+
+    LogStripper(String minLevel) {
+        this.minLevel = LEVELS.indexOf(minLevel)
+        if (this.minLevel < 0) {
+            throw new IllegalArgumentException("Unknown log level '${minLevel}'")
+        }
+    }
+
+    /**
+     * Strip the class files below the directory in place, returns the count of removed calls.
+     */
+    int strip(File directory) {
+        int removed = 0
+        directory.eachFileRecurse(FileType.FILES) { File file ->
+            if (file.name.endsWith('.class')) {
+                ClassNode classNode = new ClassNode()
+                new ClassReader(file.bytes).accept(classNode, ClassReader.EXPAND_FRAMES)
+                int count = 0
+                boolean changed = false
+                for (MethodNode method : classNode.methods) {
+                    changed |= replaceConstants(method)
+                    count += stripCalls(classNode.name, method)
+                }
+                if (changed || count > 0) {
+                    // instructions are only removed, the max stack and the remaining frames stay valid
+                    ClassWriter writer = new ClassWriter(0)
+                    classNode.accept(writer)
+                    file.bytes = writer.toByteArray()
+                    removed += count
+                }
+            }
+        }
+        return removed
+    }
+
+    /**
+     * Replace the level constants of Log, returns true if there were any
+     */
+    private boolean replaceConstants(MethodNode method) {
+        boolean changed = false
+        for (AbstractInsnNode insn : method.instructions.toArray()) {
+            if (!(insn instanceof FieldInsnNode) || insn.opcode != Opcodes.GETSTATIC) {
+                continue
+            }
+            FieldInsnNode field = (FieldInsnNode) insn
+            if (field.owner == LOG && field.desc == 'Z' && LEVELS.contains(field.name)) {
+                int constant = LEVELS.indexOf(field.name) >= minLevel ? Opcodes.ICONST_1 : Opcodes.ICONST_0
+                method.instructions.set(insn, new InsnNode(constant))
+                changed = true
+            }
+        }
+        return changed
+    }
+
+    /**
+     * Remove the calls below the minimum level with their arguments, returns their count
+     */
+    private int stripCalls(String owner, MethodNode method) {
+        AbstractInsnNode[] insns = method.instructions.toArray()
+        if (!insns.any { isStripped(it) }) {
+            return 0
+        }
+
+        // the stack size before every instruction, in slots, -1 where it is unreachable
+        int[] heights = new int[insns.length]
+        AnalyzerAdapter analyzer = new AnalyzerAdapter(owner, method.access, method.name, method.desc, null)
+        for (int i = 0; i < insns.length; i++) {
+            heights[i] = analyzer.stack == null ? -1 : analyzer.stack.size()
+            insns[i].accept(analyzer)
+        }
+        Map<LabelNode, Integer> labels = [:]
+        for (int i = 0; i < insns.length; i++) {
+            if (insns[i] instanceof LabelNode) {
+                labels[(LabelNode) insns[i]] = i
+            }
+        }
+        Set<LabelNode> protectedLabels = [] as Set
+        for (TryCatchBlockNode block : method.tryCatchBlocks) {
+            protectedLabels.addAll([block.start, block.end, block.handler])
+        }
+        Map<LabelNode, List<Integer>> jumps = [:]
+        for (int i = 0; i < insns.length; i++) {
+            for (LabelNode target : targets(insns[i])) {
+                jumps.get(target, []).add(i)
+            }
+        }
+
+        // from the end, so an enclosing call is removed before the calls in its arguments
+        Set<AbstractInsnNode> removed = [] as Set
+        int count = 0
+        for (int call = insns.length - 1; call >= 0; call--) {
+            if (!isStripped(insns[call]) || removed.contains(insns[call]) || heights[call] < 0) {
+                continue
+            }
+            int start = argumentsStart(insns, heights, call)
+            if (start < 0 || !isSelfContained(insns, labels, protectedLabels, jumps, start, call)) {
+                continue
+            }
+            MethodInsnNode node = (MethodInsnNode) insns[call]
+            // a nop keeps the frames around the call at distinct offsets
+            boolean check = Type.getReturnType(node.desc) == Type.BOOLEAN_TYPE
+            method.instructions.insert(node, new InsnNode(check ? Opcodes.ICONST_0 : Opcodes.NOP))
+            for (int i = start; i <= call; i++) {
+                if (insns[i].opcode >= 0 || insns[i].type == AbstractInsnNode.FRAME) {
+                    method.instructions.remove(insns[i])
+                    removed.add(insns[i])
+                }
+            }
+            count++
+        }
+        return count
+    }
+
+    /**
+     * Is the instruction a call below the minimum level
+     */
+    private boolean isStripped(AbstractInsnNode insn) {
+        if (!(insn instanceof MethodInsnNode)) {
+            return false
+        }
+        MethodInsnNode call = (MethodInsnNode) insn
+        boolean logCall = (call.opcode == Opcodes.INVOKESTATIC && call.owner == LOG) ||
+                (call.opcode == Opcodes.INVOKEINTERFACE && call.owner == LOGGER)
+        String level = METHOD_LEVELS[call.name]
+        return logCall && level != null && LEVELS.indexOf(level) < minLevel
+    }
+
+    /**
+     * Returns the first instruction that evaluates the arguments of the call, or -1
+     */
+    private static int argumentsStart(AbstractInsnNode[] insns, int[] heights, int call) {
+        MethodInsnNode node = (MethodInsnNode) insns[call]
+        int size = node.opcode == Opcodes.INVOKESTATIC ? 0 : 1
+        for (Type argument : Type.getArgumentTypes(node.desc)) {
+            size += argument.size
+        }
+        int base = heights[call] - size
+        for (int i = call - 1; i >= 0; i--) {
+            if (insns[i].opcode < 0) {
+                continue
+            }
+            if (heights[i] < base) {
+                return -1
+            }
+            if (heights[i] == base) {
+                return i
+            }
+        }
+        return -1
+    }
+
+    /**
+     * Is control flow only entering the range at its start and not leaving it before its end,
+     * and is no local variable written in it
+     */
+    private static boolean isSelfContained(AbstractInsnNode[] insns, Map<LabelNode, Integer> labels,
+                                           Set<LabelNode> protectedLabels, Map<LabelNode, List<Integer>> jumps,
+                                           int start, int end) {
+        for (int i = start; i <= end; i++) {
+            AbstractInsnNode insn = insns[i]
+            if (insn instanceof LabelNode) {
+                if (protectedLabels.contains(insn) || jumps.get(insn, []).any { it < start || it > end }) {
+                    return false
+                }
+                continue
+            }
+            if (insn.opcode >= Opcodes.IRETURN && insn.opcode <= Opcodes.RETURN || insn.opcode == Opcodes.ATHROW) {
+                return false
+            }
+            // the frames after the call may expect the local to be set
+            if (insn.opcode >= Opcodes.ISTORE && insn.opcode <= Opcodes.ASTORE || insn instanceof IincInsnNode) {
+                return false
+            }
+            for (LabelNode target : targets(insn)) {
+                int index = labels[target]
+                if (index <= start || index > end) {
+                    return false
+                }
+            }
+        }
+        return true
+    }
+
+    /**
+     * Returns the jump targets of an instruction
+     */
+    private static List<LabelNode> targets(AbstractInsnNode insn) {
+        if (insn instanceof JumpInsnNode) {
+            return [((JumpInsnNode) insn).label]
+        }
+        if (insn instanceof TableSwitchInsnNode) {
+            return [((TableSwitchInsnNode) insn).dflt] + ((TableSwitchInsnNode) insn).labels
+        }
+        if (insn instanceof LookupSwitchInsnNode) {
+            return [((LookupSwitchInsnNode) insn).dflt] + ((LookupSwitchInsnNode) insn).labels
+        }
+        return []
+    }
+}
@@ -0,0 +1,127 @@
+package com.nomad5.log
+
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+
+import javax.tools.JavaCompiler
+import javax.tools.ToolProvider
+
+import static org.junit.Assert.assertEquals
+import static org.junit.Assert.assertFalse
+
+/**
+ * Strips compiled sample classes and loads them again, the test task runs
+ * with -Xverify:all so every stripped method is verified.
+ */
+class LogStripperTest {
+    // a stand-in for the runtime, the stripper only knows the names
+    private static final String LOG = '''
+        package com.nomad5.log;
+
+        import java.util.ArrayList;
+        import java.util.List;
+
+        public final class Log {
+            public static final boolean DEBUG = isLoggable();
+            public static final boolean INFO = isLoggable();
+            public static final List<String> CALLS = new ArrayList<String>();
+
+            private static boolean isLoggable() {
+                return true;
+            }
+            public static void d(Object caller, String format, Object... args) {
+                CALLS.add(format);
+            }
+            public static void i(Object caller, String format, Object... args) {
+                CALLS.add(format);
+            }
+            public static void dValue(Object caller, String format, long arg) {
+                CALLS.add(format);
+            }
+        }
+        '''
+    private static final String SAMPLE = '''
+        package sample;
+
+        import com.nomad5.log.Log;
+
+        public final class Sample {
+            private static int count;
+
+            private static int next() {
+                return ++count;
+            }
+            public static int argumentsAreRemoved() {
+                count = 0;
+                Log.d(null, "debug %d %s", next(), count > 0 ? "a" : "b");
+                Log.i(null, "info %d", next());
+                Log.dValue(null, "value %d", (long) next());
+                return count;
+            }
+            public static int assignedLocalIsKept() {
+                count = 0;
+                int y;
+                Log.d(null, "assigned %d", y = next());
+                return y;
+            }
+            public static int incrementedLocalIsKept() {
+                int i = 0;
+                Log.d(null, "incremented %d", i++);
+                return i;
+            }
+            public static boolean levelConstants() {
+                return Log.DEBUG || !Log.INFO;
+            }
+        }
+        '''
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder()
+
+    private File classes
+
+    @Before
+    void compile() {
+        File sources = temp.newFolder('src')
+        classes = temp.newFolder('classes')
+        File log = new File(sources, 'Log.java')
+        File sample = new File(sources, 'Sample.java')
+        log.text = LOG
+        sample.text = SAMPLE
+        JavaCompiler compiler = ToolProvider.systemJavaCompiler
+        int result = compiler.run(null, null, null,
+                '-source', '1.7', '-target', '1.7', '-nowarn', '-d', classes.path, log.path, sample.path)
+        assertEquals(0, result)
+    }
+
+    @Test
+    void callsBelowTheLevelAreRemovedWithTheirArguments() {
+        assertEquals(2, new LogStripper('INFO').strip(new File(classes, 'sample')))
+        ClassLoader loader = new URLClassLoader([classes.toURI().toURL()] as URL[], (ClassLoader) null)
+        Class<?> sample = Class.forName('sample.Sample', true, loader)
+        List<String> calls = (List<String>) Class.forName('com.nomad5.log.Log', true, loader).getField('CALLS').get(null)
+
+        assertEquals(1, sample.getMethod('argumentsAreRemoved').invoke(null))
+        assertEquals(['info %d'], calls)
+        assertFalse((Boolean) sample.getMethod('levelConstants').invoke(null))
+    }
+
+    @Test
+    void callsThatWriteLocalsAreKept() {
+        new LogStripper('INFO').strip(new File(classes, 'sample'))
+        ClassLoader loader = new URLClassLoader([classes.toURI().toURL()] as URL[], (ClassLoader) null)
+        Class<?> sample = Class.forName('sample.Sample', true, loader)
+        List<String> calls = (List<String>) Class.forName('com.nomad5.log.Log', true, loader).getField('CALLS').get(null)
+
+        assertEquals(1, sample.getMethod('assignedLocalIsKept').invoke(null))
+        assertEquals(1, sample.getMethod('incrementedLocalIsKept').invoke(null))
+        assertEquals(['assigned %d', 'incremented %d'], calls)
+    }
+
+    @Test
+    void nothingIsRemovedAtTheLowestLevel() {
+        assertEquals(0, new LogStripper('VERBOSE').strip(new File(classes, 'sample')))
+    }
+}
@@ -0,0 +1,143 @@
+package com.nomad5.log.Annotation;
+
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.annotation.After;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Before;
+import org.aspectj.lang.annotation.Pointcut;
+import org.aspectj.lang.reflect.SourceLocation;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Call site information woven in at compile time.
+ *
+ * The log plugin weaves this aspect around every call to
+ * {@link com.nomad5.log.Log} outside of this library in debuggable build
+ * types, and in all others with {@code log { releaseCallSites true }}. The
+ * static parts of those join points are constants created by the weaver, so
+ * the class, method, file and line of a log call are known without
+ * inspecting the stack at runtime.
+ */
+@Aspect
+public class CallSites
+{
+    /**
+     * The call sites of the running log calls of a thread, a log call can run
+     * inside another one, e.g. in the toString() of an argument
+     */
+    private static final class Current
+    {
+        private JoinPoint.StaticPart[] callSites = new JoinPoint.StaticPart[4];
+        private JoinPoint.StaticPart[] enclosings = new JoinPoint.StaticPart[4];
+        private int depth;
+
+        /**
+         * The call site of the innermost running log call, or {@code null}
+         */
+        private JoinPoint.StaticPart callSite()
+        {
+            return this.depth > 0 ? this.callSites[this.depth - 1] : null;
+        }
+    }
+
+    private static final ThreadLocal<Current> CURRENT = new ThreadLocal<Current>()
+    {
+        @Override
+        protected Current initialValue()
+        {
+            return new Current();
+        }
+    };
+
+    /**
+     * Stack trace element of a call site
+     */
+    private static final class Entry
+    {
+        private final JoinPoint.StaticPart callSite;
+        private final StackTraceElement element;
+
+        private Entry(JoinPoint.StaticPart callSite, StackTraceElement element)
+        {
+            this.callSite = callSite;
+            this.element = element;
+        }
+    }
+
+    /**
+     * Call site elements by identity of the join point, colliding sites replace each other
+     */
+    private static final int CACHE_SIZE = 256;
+    private static final AtomicReferenceArray<Entry> CACHE = new AtomicReferenceArray<>(CACHE_SIZE);
+
+    @Pointcut("call(public static * com.nomad5.log.Log.*(..)) && !within(com.nomad5.log..*)")
+    public void logCall()
+    {
+    }
+
+    @Before("logCall()")
+    public void enterLogCall(JoinPoint.StaticPart callSite, JoinPoint.EnclosingStaticPart enclosing)
+    {
+        Current current = CURRENT.get();
+        if(current.depth == current.callSites.length)
+        {
+            current.callSites = Arrays.copyOf(current.callSites, current.depth * 2);
+            current.enclosings = Arrays.copyOf(current.enclosings, current.depth * 2);
+        }
+        current.callSites[current.depth] = callSite;
+        current.enclosings[current.depth] = enclosing;
+        current.depth++;
+    }
+
+    @After("logCall()")
+    public void exitLogCall()
+    {
+        // the call site of an outer log call is current again
+        Current current = CURRENT.get();
+        if(current.depth > 0)
+        {
+            current.depth--;
+            current.callSites[current.depth] = null;
+            current.enclosings[current.depth] = null;
+        }
+    }
+
+    /**
+     * Returns the class that contains the running log call on this thread,
+     * or {@code null} if the call was not woven.
+     */
+    public static Class<?> currentClass()
+    {
+        JoinPoint.StaticPart callSite = CURRENT.get().callSite();
+        return callSite != null ? callSite.getSourceLocation().getWithinType() : null;
+    }
+
+    /**
+     * Returns the woven call site of the running log call on this thread, or
+     * {@code null} if the call was not woven.
+     */
+    public static StackTraceElement current()
+    {
+        Current current = CURRENT.get();
+        JoinPoint.StaticPart callSite = current.callSite();
+        if(callSite == null)
+        {
+            return null;
+        }
+        int index = System.identityHashCode(callSite) & (CACHE_SIZE - 1);
+        Entry entry = CACHE.get(index);
+        if(entry == null || entry.callSite != callSite)
+        {
+            SourceLocation location = callSite.getSourceLocation();
+            StackTraceElement element = new StackTraceElement(location.getWithinType().getName(),
+                                                              current.enclosings[current.depth - 1].getSignature().getName(),
+                                                              location.getFileName(),
+                                                              location.getLine());
+            entry = new Entry(callSite, element);
+            CACHE.set(index, entry);
+        }
+        return entry.element;
+    }
+}
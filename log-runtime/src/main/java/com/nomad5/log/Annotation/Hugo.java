@@ -4,20 +4,85 @@ import android.os.Build;
 import android.os.Trace;
 import org.aspectj.lang.JoinPoint;
 import org.aspectj.lang.ProceedingJoinPoint;
-import org.aspectj.lang.Signature;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Pointcut;
-import org.aspectj.lang.reflect.CodeSignature;
-import org.aspectj.lang.reflect.MethodSignature;
 
+import java.lang.reflect.AnnotatedElement;
+import java.util.Properties;
 import java.util.concurrent.TimeUnit;
 
 import com.nomad5.log.Log;
+import com.nomad5.log.Logger;
+import com.nomad5.log.LoggerManager;
 
 @Aspect
 public class Hugo
 {
+    public static final String CONF_PREFIX         = "debuglog.";
+    private static final String CONF_MODE          = "debuglog.mode";
+    private static final String CONF_SAMPLE        = "debuglog.sample";
+    private static final String CONF_SLOW          = "debuglog.slow";
+    private static final String CONF_DUMP          = "debuglog.dump";
+    private static final String CONF_THRESHOLD     = "debuglog.threshold";
+    private static final String CONF_ELEMENTS      = "debuglog.elements";
+    private static final String CONF_LENGTH        = "debuglog.length";
+    private static final String CONF_DEPTH         = "debuglog.depth";
+    private static final long DEFAULT_DUMP_MILLIS  = 60000;
+
+    private static volatile long thresholdMillis;
+
+    /**
+     * Apply the 'debuglog.' keys of a configuration in the format of
+     * 'log.properties', called by {@link com.nomad5.log.LoggerManager}:
+     *
+     * # 'log' logs every call, 'trace' records calls, see MethodTracer,
+     * # 'metrics' records durations, see MethodMetrics
+     * debuglog.mode=trace
+     * # in trace mode, render the arguments of every n-th call and of calls that took some milliseconds
+     * debuglog.sample=100
+     * debuglog.slow=16
+     * # in metrics mode, log the durations every some milliseconds, 0 for never
+     * debuglog.dump=60000
+     * # in log mode, only log calls that took longer than some milliseconds, unless their annotation has a threshold
+     * debuglog.threshold=0
+     * # render at most some elements of the arrays, collections and maps of a value,
+     * # some characters of a string and some levels of nesting
+     * debuglog.elements=100
+     * debuglog.length=1000
+     * debuglog.depth=4
+     *
+     * @throws IllegalArgumentException if a value can not be parsed.
+     */
+    public static void configure(Properties properties)
+    {
+        String mode = properties.getProperty(CONF_MODE, "log").trim();
+        int sampleRate = Integer.parseInt(properties.getProperty(CONF_SAMPLE, "0").trim());
+        long slowMillis = Long.parseLong(properties.getProperty(CONF_SLOW, "-1").trim());
+        long dumpMillis = Long.parseLong(properties.getProperty(CONF_DUMP, String.valueOf(DEFAULT_DUMP_MILLIS)).trim());
+        thresholdMillis = Math.max(0, Long.parseLong(properties.getProperty(CONF_THRESHOLD, "0").trim()));
+        Strings.setLimits(Integer.parseInt(properties.getProperty(CONF_ELEMENTS, String.valueOf(Strings.DEFAULT_ELEMENTS)).trim()),
+                          Integer.parseInt(properties.getProperty(CONF_LENGTH, String.valueOf(Strings.DEFAULT_LENGTH)).trim()),
+                          Integer.parseInt(properties.getProperty(CONF_DEPTH, String.valueOf(Strings.DEFAULT_DEPTH)).trim()));
+        switch(mode)
+        {
+            case "log":
+                MethodTracer.stop();
+                MethodMetrics.stop();
+                break;
+            case "trace":
+                MethodMetrics.stop();
+                MethodTracer.start(sampleRate, slowMillis);
+                break;
+            case "metrics":
+                MethodTracer.stop();
+                MethodMetrics.start(dumpMillis);
+                break;
+            default:
+                throw new IllegalArgumentException("unknown mode '" + mode + "'");
+        }
+    }
+
     @Pointcut("within(@DebugLog *)")
     public void withinAnnotatedClass()
     {
@@ -46,31 +111,75 @@ public class Hugo
     @Around("method() || constructor()")
     public Object logAndExecute(ProceedingJoinPoint joinPoint) throws Throwable
     {
-        enterMethod(joinPoint);
+        if(MethodTracer.isEnabled())
+        {
+            return MethodTracer.trace(joinPoint);
+        }
+        if(MethodMetrics.isEnabled())
+        {
+            return MethodMetrics.measure(joinPoint);
+        }
+        MethodInfo method = MethodInfo.get(joinPoint.getStaticPart());
+        long thresholdMillis = method.getThresholdMillis() >= 0 ? method.getThresholdMillis() : Hugo.thresholdMillis;
+        if(thresholdMillis > 0)
+        {
+            return logIfSlow(joinPoint, method, TimeUnit.MILLISECONDS.toNanos(thresholdMillis));
+        }
+
+        enterMethod(joinPoint, method);
 
         long startNanos = System.nanoTime();
         Object result = joinPoint.proceed();
         long stopNanos = System.nanoTime();
         long lengthMillis = TimeUnit.NANOSECONDS.toMillis(stopNanos - startNanos);
 
-        exitMethod(joinPoint, result, lengthMillis);
+        exitMethod(method, result, lengthMillis);
 
         return result;
     }
 
-    private static void enterMethod(JoinPoint joinPoint)
+    /**
+     * Only the start time is kept while the call runs, the enter and exit
+     * lines are built and logged after a slow call only. The arguments are
+     * rendered then, so they show their state after the call.
+     */
+    private static Object logIfSlow(ProceedingJoinPoint joinPoint, MethodInfo method, long thresholdNanos) throws Throwable
     {
-        CodeSignature codeSignature = (CodeSignature) joinPoint.getSignature();
+        long startNanos = System.nanoTime();
+        Object result = joinPoint.proceed();
+        long lengthNanos = System.nanoTime() - startNanos;
+        if(lengthNanos > thresholdNanos)
+        {
+            Logger logger = LoggerManager.getLogger(method.getDeclaringType());
+            if(Log.VERBOSE && logger.isVerboseEnabled())
+            {
+                logger.v(null, enterMessage(joinPoint, method));
+                logger.v(null, exitMessage(method, result, TimeUnit.NANOSECONDS.toMillis(lengthNanos)));
+            }
+        }
+        return result;
+    }
 
-        Class<?> cls = codeSignature.getDeclaringType();
-        String methodName = codeSignature.getName();
-        String[] parameterNames = codeSignature.getParameterNames();
+    private static void enterMethod(JoinPoint joinPoint, MethodInfo method)
+    {
+        Logger logger = LoggerManager.getLogger(method.getDeclaringType());
+        if(Log.VERBOSE && logger.isVerboseEnabled())
+        {
+            logger.v(null, enterMessage(joinPoint, method));
+        }
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2)
+        {
+            Trace.beginSection(method.getTag());
+        }
+    }
+
+    private static String enterMessage(JoinPoint joinPoint, MethodInfo method)
+    {
+        String[] parameterNames = method.getParameterNames();
         Object[] parameterValues = joinPoint.getArgs();
 
-        StringBuilder builder = new StringBuilder("\u21E2 ");
-        builder.append(asTag(cls));
-        builder.append("::");
-        builder.append(methodName).append('(');
+        StringBuilder builder = new StringBuilder(method.getEnterPrefix());
         for(int i = 0; i < parameterValues.length; i++)
         {
             if(i > 0)
@@ -78,7 +187,7 @@ public class Hugo
                 builder.append(", ");
             }
             builder.append(parameterNames[i]).append('=');
-            builder.append(Strings.toString(parameterValues[i]));
+            Strings.append(builder, parameterValues[i]);
         }
         builder.append(')');
 
@@ -88,47 +197,60 @@ public class Hugo
             builder.append(" [Thread:\"").append(Thread.currentThread().getName()).append("\"]");
         }*/
 
-        com.nomad5.log.Log.v(null, builder.toString());
-
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2)
-        {
-            final String section = builder.toString().substring(2);
-            Trace.beginSection(section);
-        }
+        return builder.toString();
     }
 
-    private static void exitMethod(JoinPoint joinPoint, Object result, long lengthMillis)
+    private static void exitMethod(MethodInfo method, Object result, long lengthMillis)
     {
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2)
         {
             Trace.endSection();
         }
 
-        Signature signature = joinPoint.getSignature();
-
-        Class<?> cls = signature.getDeclaringType();
-        String methodName = signature.getName();
-        boolean hasReturnType = signature instanceof MethodSignature
-                                        && ((MethodSignature) signature).getReturnType() != void.class;
+        Logger logger = LoggerManager.getLogger(method.getDeclaringType());
+        if(Log.VERBOSE && logger.isVerboseEnabled())
+        {
+            logger.v(null, exitMessage(method, result, lengthMillis));
+        }
+    }
 
-        StringBuilder builder = new StringBuilder("\u21E0 ")
-                                        .append(asTag(cls))
-                                        .append("::")
-                                        .append(methodName)
-                                        .append(" [")
+    private static String exitMessage(MethodInfo method, Object result, long lengthMillis)
+    {
+        StringBuilder builder = new StringBuilder(method.getExitPrefix())
                                         .append(lengthMillis)
                                         .append("ms]");
 
-        if(hasReturnType)
+        if(method.hasReturnType())
         {
             builder.append(" = ");
-            builder.append(Strings.toString(result));
+            Strings.append(builder, result);
         }
+        return builder.toString();
+    }
 
-        com.nomad5.log.Log.v(null, builder.toString());
+    /**
+     * Returns the threshold of the annotation of a member, or else of its
+     * class and the classes enclosing it, -1 if none has one
+     */
+    static long getAnnotatedThreshold(AnnotatedElement member, Class<?> cls)
+    {
+        DebugLog annotation = member != null ? member.getAnnotation(DebugLog.class) : null;
+        if(annotation != null && annotation.threshold() >= 0)
+        {
+            return annotation.threshold();
+        }
+        for(; cls != null; cls = cls.getEnclosingClass())
+        {
+            annotation = cls.getAnnotation(DebugLog.class);
+            if(annotation != null && annotation.threshold() >= 0)
+            {
+                return annotation.threshold();
+            }
+        }
+        return -1;
     }
 
-    private static String asTag(Class<?> cls)
+    static String asTag(Class<?> cls)
     {
         if(cls.isAnonymousClass())
         {
@@ -0,0 +1,163 @@
+package com.nomad5.log.Annotation;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A lock-free histogram of durations in nanos.
+ *
+ * Durations below 16 ns are counted exactly, every power of two above is
+ * split into 16 buckets, so a recorded duration is reported at most 6.25%
+ * too high. Durations are capped at 2^40 ns, about 18 minutes.
+ *
+ * Threads record into one of a few stripes by their id, so threads rarely
+ * share counters. Stripes are created on first use and merged by
+ * {@link #snapshot()}.
+ */
+public final class LatencyHistogram
+{
+    private static final int SUB_BITS       = 4;
+    private static final int SUB_COUNT      = 1 << SUB_BITS;
+    private static final long MAX_VALUE     = (1L << 40) - 1;
+    private static final int BUCKETS        = bucket(MAX_VALUE) + 1;
+    private static final int STRIPES        = 4;
+
+    /**
+     * The counts of some of the threads
+     */
+    private static final class Stripe
+    {
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+        private final AtomicLong max = new AtomicLong();
+    }
+
+    /**
+     * The merged counts of all stripes at one point in time.
+     */
+    public static final class Snapshot
+    {
+        private final long[] counts;
+        private final long count;
+        private final long max;
+
+        private Snapshot(long[] counts, long count, long max)
+        {
+            this.counts = counts;
+            this.count = count;
+            this.max = max;
+        }
+
+        /**
+         * Returns the number of recorded durations.
+         */
+        public long getCount()
+        {
+            return this.count;
+        }
+
+        /**
+         * Returns the longest recorded duration in nanos, exactly.
+         */
+        public long getMaxNanos()
+        {
+            return this.max;
+        }
+
+        /**
+         * Returns the duration in nanos that the percentage of the recorded
+         * durations did not exceed, e.g. 99.9, or 0 if there are none.
+         */
+        public long getPercentileNanos(double percentile)
+        {
+            long rank = (long) Math.ceil(Math.min(100, Math.max(0, percentile)) / 100 * this.count);
+            long seen = 0;
+            for(int i = 0; i < this.counts.length; i++)
+            {
+                seen += this.counts[i];
+                if(seen >= Math.max(1, rank))
+                {
+                    return Math.min(upperBound(i), this.max);
+                }
+            }
+            return 0;
+        }
+    }
+
+    private final AtomicReferenceArray<Stripe> stripes = new AtomicReferenceArray<>(STRIPES);
+
+    /**
+     * Records a duration.
+     */
+    public void record(long nanos)
+    {
+        long value = Math.min(Math.max(nanos, 0), MAX_VALUE);
+        int index = (int) Thread.currentThread().getId() & (STRIPES - 1);
+        Stripe stripe = this.stripes.get(index);
+        if(stripe == null)
+        {
+            this.stripes.compareAndSet(index, null, new Stripe());
+            stripe = this.stripes.get(index);
+        }
+        stripe.counts.incrementAndGet(bucket(value));
+        long max = stripe.max.get();
+        while(value > max && !stripe.max.compareAndSet(max, value))
+        {
+            max = stripe.max.get();
+        }
+    }
+
+    /**
+     * Returns the merged counts. Durations recorded concurrently may or may not be included.
+     */
+    public Snapshot snapshot()
+    {
+        long[] counts = new long[BUCKETS];
+        long count = 0;
+        long max = 0;
+        for(int s = 0; s < STRIPES; s++)
+        {
+            Stripe stripe = this.stripes.get(s);
+            if(stripe == null)
+            {
+                continue;
+            }
+            for(int i = 0; i < BUCKETS; i++)
+            {
+                long bucketCount = stripe.counts.get(i);
+                counts[i] += bucketCount;
+                count += bucketCount;
+            }
+            max = Math.max(max, stripe.max.get());
+        }
+        return new Snapshot(counts, count, max);
+    }
+
+    /**
+     * Returns the bucket of a value, exact below SUB_COUNT
+     */
+    private static int bucket(long value)
+    {
+        if(value < SUB_COUNT)
+        {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_COUNT - 1);
+        return ((exponent - SUB_BITS + 1) << SUB_BITS) + sub;
+    }
+
+    /**
+     * Returns the largest value of a bucket
+     */
+    private static long upperBound(int bucket)
+    {
+        if(bucket < SUB_COUNT)
+        {
+            return bucket;
+        }
+        int exponent = (bucket >> SUB_BITS) + SUB_BITS - 1;
+        long lower = (long) (SUB_COUNT + (bucket & (SUB_COUNT - 1))) << (exponent - SUB_BITS);
+        return lower + (1L << (exponent - SUB_BITS)) - 1;
+    }
+}
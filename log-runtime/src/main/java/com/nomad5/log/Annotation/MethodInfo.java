@@ -0,0 +1,123 @@
+package com.nomad5.log.Annotation;
+
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.Signature;
+import org.aspectj.lang.reflect.CodeSignature;
+import org.aspectj.lang.reflect.ConstructorSignature;
+import org.aspectj.lang.reflect.MethodSignature;
+
+import java.lang.reflect.AnnotatedElement;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * What the {@link Hugo} aspect needs to know about an advised method or
+ * constructor, taken from its signature once per join point, so a call only
+ * renders its arguments and result.
+ */
+final class MethodInfo
+{
+    private static final ConcurrentMap<JoinPoint.StaticPart, MethodInfo> INFOS = new ConcurrentHashMap<>();
+
+    private final Class<?> declaringType;
+    private final String tag;
+    private final String enterPrefix;
+    private final String exitPrefix;
+    private final String[] parameterNames;
+    private final boolean hasReturnType;
+    private final long thresholdMillis;
+
+    private MethodInfo(Signature signature)
+    {
+        AnnotatedElement member = null;
+        if(signature instanceof MethodSignature)
+        {
+            member = ((MethodSignature) signature).getMethod();
+        }
+        else if(signature instanceof ConstructorSignature)
+        {
+            member = ((ConstructorSignature) signature).getConstructor();
+        }
+        this.declaringType = signature.getDeclaringType();
+        this.tag = Hugo.asTag(this.declaringType) + "::" + signature.getName();
+        this.enterPrefix = "\u21E2 " + this.tag + '(';
+        this.exitPrefix = "\u21E0 " + this.tag + " [";
+        this.parameterNames = signature instanceof CodeSignature
+                              ? ((CodeSignature) signature).getParameterNames()
+                              : new String[0];
+        this.hasReturnType = signature instanceof MethodSignature
+                             && ((MethodSignature) signature).getReturnType() != void.class;
+        this.thresholdMillis = Hugo.getAnnotatedThreshold(member, this.declaringType);
+    }
+
+    /**
+     * Returns the info of the method of a join point, created on first use
+     */
+    static MethodInfo get(JoinPoint.StaticPart method)
+    {
+        MethodInfo info = INFOS.get(method);
+        if(info == null)
+        {
+            MethodInfo created = new MethodInfo(method.getSignature());
+            info = INFOS.putIfAbsent(method, created);
+            info = info != null ? info : created;
+        }
+        return info;
+    }
+
+    /**
+     * The class that declares the method, its logger logs the calls
+     */
+    Class<?> getDeclaringType()
+    {
+        return this.declaringType;
+    }
+
+    /**
+     * 'Class::method'
+     */
+    String getTag()
+    {
+        return this.tag;
+    }
+
+    /**
+     * The start of the enter line, up to the opening parenthesis
+     */
+    String getEnterPrefix()
+    {
+        return this.enterPrefix;
+    }
+
+    /**
+     * The start of the exit line, up to the opening bracket of the duration
+     */
+    String getExitPrefix()
+    {
+        return this.exitPrefix;
+    }
+
+    /**
+     * The names of the parameters, not to be modified
+     */
+    String[] getParameterNames()
+    {
+        return this.parameterNames;
+    }
+
+    /**
+     * Is there a result to log
+     */
+    boolean hasReturnType()
+    {
+        return this.hasReturnType;
+    }
+
+    /**
+     * The threshold of the annotations of the method, -1 if none of them has one
+     */
+    long getThresholdMillis()
+    {
+        return this.thresholdMillis;
+    }
+}
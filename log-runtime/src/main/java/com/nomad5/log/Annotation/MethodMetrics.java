@@ -0,0 +1,175 @@
+package com.nomad5.log.Annotation;
+
+import com.nomad5.log.Logger;
+import com.nomad5.log.LoggerManager;
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.ProceedingJoinPoint;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The metrics mode of the {@link Hugo} aspect.
+ *
+ * The duration of every call to a {@link DebugLog} method is recorded into
+ * a {@link LatencyHistogram} of the method instead of being logged. The
+ * histograms can be read with {@link #snapshot()}, and a daemon thread logs
+ * their counts, percentiles and maximum periodically as debug messages of
+ * the logger of each class.
+ */
+public final class MethodMetrics
+{
+    // how often a stopped dump thread checks for a new interval
+    private static final long IDLE_MILLIS = 1000;
+    private static final ConcurrentMap<JoinPoint.StaticPart, LatencyHistogram> HISTOGRAMS = new ConcurrentHashMap<>();
+
+    private static volatile boolean enabled;
+    private static volatile long dumpMillis;
+    private static Thread dumper;
+
+    private MethodMetrics()
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Start recording the durations of {@link DebugLog} methods instead of logging every call.
+     *
+     * @param dumpMillis the interval to log the histograms, or 0 to never log them.
+     */
+    public static synchronized void start(long dumpMillis)
+    {
+        MethodMetrics.dumpMillis = Math.max(0, dumpMillis);
+        MethodMetrics.enabled = true;
+        if(dumper == null && dumpMillis > 0)
+        {
+            dumper = new Thread("MethodMetrics")
+            {
+                @Override
+                public void run()
+                {
+                    while(true)
+                    {
+                        long interval = MethodMetrics.dumpMillis;
+                        try
+                        {
+                            Thread.sleep(interval > 0 ? interval : IDLE_MILLIS);
+                        }
+                        catch(InterruptedException e)
+                        {
+                            return;
+                        }
+                        if(interval > 0 && MethodMetrics.dumpMillis > 0)
+                        {
+                            dump();
+                        }
+                    }
+                }
+            };
+            dumper.setDaemon(true);
+            dumper.start();
+        }
+    }
+
+    /**
+     * Stop recording, the histograms are kept.
+     */
+    public static synchronized void stop()
+    {
+        MethodMetrics.enabled = false;
+        MethodMetrics.dumpMillis = 0;
+    }
+
+    /**
+     * Is the metrics mode on
+     */
+    public static boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    /**
+     * Drops all recorded durations.
+     */
+    public static void reset()
+    {
+        HISTOGRAMS.clear();
+    }
+
+    /**
+     * Returns the histograms of the methods that were called, by their signature.
+     */
+    public static Map<String, LatencyHistogram.Snapshot> snapshot()
+    {
+        Map<String, LatencyHistogram.Snapshot> snapshots = new TreeMap<>();
+        for(Map.Entry<JoinPoint.StaticPart, LatencyHistogram> entry : HISTOGRAMS.entrySet())
+        {
+            snapshots.put(entry.getKey().getSignature().toString(), entry.getValue().snapshot());
+        }
+        return snapshots;
+    }
+
+    /**
+     * Logs the histogram of every method that was called as a debug message
+     * of the logger of its class.
+     */
+    public static void dump()
+    {
+        for(Map.Entry<JoinPoint.StaticPart, LatencyHistogram> entry : HISTOGRAMS.entrySet())
+        {
+            MethodInfo info = MethodInfo.get(entry.getKey());
+            Logger logger = LoggerManager.getLogger(info.getDeclaringType());
+            if(logger.isDebugEnabled())
+            {
+                LatencyHistogram.Snapshot snapshot = entry.getValue().snapshot();
+                logger.d(null, "%s calls=%d p50=%s p99=%s p999=%s max=%s",
+                         info.getTag(), snapshot.getCount(),
+                         toString(snapshot.getPercentileNanos(50)), toString(snapshot.getPercentileNanos(99)),
+                         toString(snapshot.getPercentileNanos(99.9)), toString(snapshot.getMaxNanos()));
+            }
+        }
+    }
+
+    /**
+     * Measure a call of the advice
+     */
+    static Object measure(ProceedingJoinPoint joinPoint) throws Throwable
+    {
+        long start = System.nanoTime();
+        try
+        {
+            return joinPoint.proceed();
+        }
+        finally
+        {
+            long duration = System.nanoTime() - start;
+            JoinPoint.StaticPart method = joinPoint.getStaticPart();
+            LatencyHistogram histogram = HISTOGRAMS.get(method);
+            if(histogram == null)
+            {
+                LatencyHistogram created = new LatencyHistogram();
+                histogram = HISTOGRAMS.putIfAbsent(method, created);
+                histogram = histogram != null ? histogram : created;
+            }
+            histogram.record(duration);
+        }
+    }
+
+    /**
+     * Format nanos as ns, \u00b5s or ms with at most four digits
+     */
+    private static String toString(long nanos)
+    {
+        if(nanos < 10000L)
+        {
+            return nanos + "ns";
+        }
+        if(nanos < 10000000L)
+        {
+            return nanos / 1000 + "\u00b5s";
+        }
+        return nanos / 1000000 + "ms";
+    }
+}
@@ -0,0 +1,322 @@
+package com.nomad5.log.Annotation;
+
+import com.nomad5.log.Logger;
+import com.nomad5.log.LoggerManager;
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.ProceedingJoinPoint;
+
+import java.lang.ref.WeakReference;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The tracing mode of the {@link Hugo} aspect.
+ *
+ * A call to a {@link DebugLog} method records an enter and an exit event,
+ * each the join point, the nesting depth and the time or the duration in
+ * nanos, into preallocated arrays of the calling thread. A daemon thread
+ * drains the events of all threads and renders them as verbose messages of
+ * the logger of the traced class, so the traced call neither formats text
+ * nor logs.
+ *
+ * Arguments and the return value are rendered on the calling thread, but
+ * only for every n-th call and for calls that took at least a threshold. The
+ * arguments of every n-th call are rendered before the call, those of a slow
+ * call only after it, when it is known to be slow, so they show what the call
+ * left in them. Events that do not fit into the buffer of their thread are
+ * dropped and counted.
+ */
+public final class MethodTracer
+{
+    private static final int BUFFER_SIZE        = 4096;
+    private static final long DRAIN_MILLIS      = 100;
+    private static final int ENTER              = 0;
+    private static final int EXIT               = 1;
+
+    /**
+     * The events of one thread, written by that thread and read by the drain
+     */
+    private static final class Buffer
+    {
+        private final WeakReference<Thread> thread;
+        private final String threadName;
+        private final JoinPoint.StaticPart[] methods = new JoinPoint.StaticPart[BUFFER_SIZE];
+        // the kind in the lowest bit, the depth above
+        private final int[] kinds = new int[BUFFER_SIZE];
+        // the start time of an enter, the duration of an exit
+        private final long[] nanos = new long[BUFFER_SIZE];
+        private final String[] details = new String[BUFFER_SIZE];
+        // next event to write and next event to drain
+        private final AtomicLong head = new AtomicLong();
+        private final AtomicLong tail = new AtomicLong();
+        private final AtomicLong dropped = new AtomicLong();
+        // only used by the owning thread
+        private int depth;
+        private int calls;
+
+        private Buffer(Thread thread)
+        {
+            this.thread = new WeakReference<>(thread);
+            this.threadName = thread.getName();
+        }
+
+        /**
+         * Append an event, by the owning thread
+         */
+        private void record(JoinPoint.StaticPart method, int kind, long time, String detail)
+        {
+            long head = this.head.get();
+            if(head - this.tail.get() >= BUFFER_SIZE)
+            {
+                this.dropped.lazySet(this.dropped.get() + 1);
+                return;
+            }
+            int index = (int) (head & (BUFFER_SIZE - 1));
+            this.methods[index] = method;
+            this.kinds[index] = kind | (this.depth << 1);
+            this.nanos[index] = time;
+            this.details[index] = detail;
+            this.head.lazySet(head + 1);
+        }
+    }
+
+    private static final ThreadLocal<Buffer> BUFFER = new ThreadLocal<Buffer>()
+    {
+        @Override
+        protected Buffer initialValue()
+        {
+            Buffer buffer = new Buffer(Thread.currentThread());
+            BUFFERS.add(buffer);
+            return buffer;
+        }
+    };
+    private static final List<Buffer> BUFFERS = new CopyOnWriteArrayList<>();
+
+    private static volatile boolean enabled;
+    private static volatile int sampleRate;
+    private static volatile long slowNanos = Long.MAX_VALUE;
+    private static Thread drainer;
+
+    private MethodTracer()
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Start tracing {@link DebugLog} methods instead of logging every call.
+     *
+     * @param sampleRate render the arguments of every n-th call of a thread, or 0 for none.
+     * @param slowMillis render the arguments of calls that took at least this long, or -1 for none.
+     */
+    public static synchronized void start(int sampleRate, long slowMillis)
+    {
+        MethodTracer.sampleRate = Math.max(0, sampleRate);
+        MethodTracer.slowNanos = slowMillis < 0 ? Long.MAX_VALUE : TimeUnit.MILLISECONDS.toNanos(slowMillis);
+        MethodTracer.enabled = true;
+        if(drainer == null)
+        {
+            drainer = new Thread("MethodTracer")
+            {
+                @Override
+                public void run()
+                {
+                    while(true)
+                    {
+                        try
+                        {
+                            Thread.sleep(DRAIN_MILLIS);
+                        }
+                        catch(InterruptedException e)
+                        {
+                            return;
+                        }
+                        drain();
+                    }
+                }
+            };
+            drainer.setDaemon(true);
+            drainer.start();
+        }
+    }
+
+    /**
+     * Stop tracing, the recorded events are still drained.
+     */
+    public static synchronized void stop()
+    {
+        MethodTracer.enabled = false;
+    }
+
+    /**
+     * Is the tracing mode on
+     */
+    public static boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    /**
+     * Returns the number of events dropped because the buffer of their thread was full.
+     */
+    public static long getDroppedCount()
+    {
+        long count = 0;
+        for(Buffer buffer : BUFFERS)
+        {
+            count += buffer.dropped.get();
+        }
+        return count;
+    }
+
+    /**
+     * Trace a call of the advice
+     */
+    static Object trace(ProceedingJoinPoint joinPoint) throws Throwable
+    {
+        Buffer buffer = BUFFER.get();
+        JoinPoint.StaticPart method = joinPoint.getStaticPart();
+        int rate = sampleRate;
+        // a sampled call renders its arguments before they can change
+        String arguments = null;
+        if(rate > 0 && ++buffer.calls % rate == 0 && isVerboseEnabled(method))
+        {
+            arguments = renderArguments(joinPoint, MethodInfo.get(method));
+        }
+        long start = System.nanoTime();
+        buffer.record(method, ENTER, start, null);
+        buffer.depth++;
+        Object result = null;
+        boolean returned = false;
+        try
+        {
+            result = joinPoint.proceed();
+            returned = true;
+            return result;
+        }
+        finally
+        {
+            long stop = System.nanoTime();
+            buffer.depth--;
+            String detail = null;
+            if(arguments == null && stop - start >= slowNanos && isVerboseEnabled(method))
+            {
+                arguments = renderArguments(joinPoint, MethodInfo.get(method));
+            }
+            if(arguments != null)
+            {
+                detail = renderDetail(arguments, MethodInfo.get(method), result, returned);
+            }
+            buffer.record(method, EXIT, stop - start, detail);
+        }
+    }
+
+    /**
+     * Render the recorded events of all threads. The drain thread calls this
+     * periodically, {@link LoggerManager#flush()} calls it before the sinks
+     * are flushed.
+     */
+    public static synchronized void drain()
+    {
+        for(Buffer buffer : BUFFERS)
+        {
+            long tail = buffer.tail.get();
+            long head = buffer.head.get();
+            for(; tail < head; tail++)
+            {
+                int index = (int) (tail & (BUFFER_SIZE - 1));
+                JoinPoint.StaticPart method = buffer.methods[index];
+                int kind = buffer.kinds[index];
+                long time = buffer.nanos[index];
+                String detail = buffer.details[index];
+                buffer.methods[index] = null;
+                buffer.details[index] = null;
+                // the slot may be written again from here on
+                buffer.tail.lazySet(tail + 1);
+                print(buffer, method, kind, time, detail);
+            }
+            Thread thread = buffer.thread.get();
+            if((thread == null || !thread.isAlive()) && buffer.head.get() == tail)
+            {
+                BUFFERS.remove(buffer);
+            }
+        }
+    }
+
+    /**
+     * Render an event as a verbose message of the logger of its class
+     */
+    private static void print(Buffer buffer, JoinPoint.StaticPart method, int kind, long time, String detail)
+    {
+        MethodInfo info = MethodInfo.get(method);
+        Logger logger = LoggerManager.getLogger(info.getDeclaringType());
+        if(!logger.isVerboseEnabled())
+        {
+            return;
+        }
+        StringBuilder builder = new StringBuilder();
+        builder.append('[').append(buffer.threadName).append("] ");
+        for(int depth = kind >> 1; depth > 0; depth--)
+        {
+            builder.append("  ");
+        }
+        builder.append((kind & 1) == ENTER ? "\u21E2 " : "\u21E0 ");
+        builder.append(info.getTag());
+        if((kind & 1) == EXIT)
+        {
+            builder.append(" [").append(TimeUnit.NANOSECONDS.toMicros(time)).append("\u00b5s]");
+        }
+        if(detail != null)
+        {
+            builder.append(' ').append(detail);
+        }
+        logger.v(null, builder.toString());
+    }
+
+    /**
+     * Render the arguments of a sampled or slow call
+     */
+    private static String renderArguments(ProceedingJoinPoint joinPoint, MethodInfo info)
+    {
+        String[] parameterNames = info.getParameterNames();
+        Object[] parameterValues = joinPoint.getArgs();
+        StringBuilder builder = new StringBuilder("(");
+        for(int i = 0; i < parameterValues.length; i++)
+        {
+            if(i > 0)
+            {
+                builder.append(", ");
+            }
+            builder.append(parameterNames[i]).append('=');
+            Strings.append(builder, parameterValues[i]);
+        }
+        return builder.append(')').toString();
+    }
+
+    /**
+     * Render the arguments and the result of a sampled or slow call
+     */
+    private static String renderDetail(String arguments, MethodInfo info, Object result, boolean returned)
+    {
+        StringBuilder builder = new StringBuilder(arguments);
+        if(!returned)
+        {
+            builder.append(" threw");
+        }
+        else if(info.hasReturnType())
+        {
+            builder.append(" = ");
+            Strings.append(builder, result);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Is the logger of the traced class printing verbose messages
+     */
+    private static boolean isVerboseEnabled(JoinPoint.StaticPart method)
+    {
+        return LoggerManager.getLogger(MethodInfo.get(method).getDeclaringType()).isVerboseEnabled();
+    }
+}
@@ -1,35 +1,197 @@
 package com.nomad5.log.Annotation;
 
-import java.util.Arrays;
-import java.util.HashSet;
-import java.util.Locale;
-import java.util.Set;
+import java.lang.reflect.Array;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
 
+/**
+ * Renders arguments and results into a builder, within limits: at most a
+ * number of elements of all arrays, collections and maps of a value, at most
+ * a number of characters of a string or a toString() result, and at most a
+ * nesting depth. What is left out is elided with '...'.
+ */
 final class Strings {
+  static final int DEFAULT_ELEMENTS = 100;
+  static final int DEFAULT_LENGTH = 1000;
+  static final int DEFAULT_DEPTH = 4;
+
+  private static final String ELLIPSIS = "...";
+  private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+  /** The limits of one rendered value. */
+  private static final class Limits {
+    final int elements;
+    final int length;
+    final int depth;
+
+    Limits(int elements, int length, int depth) {
+      this.elements = Math.max(0, elements);
+      this.length = Math.max(0, length);
+      this.depth = Math.max(0, depth);
+    }
+  }
+
+  private static volatile Limits limits = new Limits(DEFAULT_ELEMENTS, DEFAULT_LENGTH, DEFAULT_DEPTH);
+
+  /**
+   * Sets the limits of rendered values.
+   *
+   * @param elements the number of elements of all arrays, collections and maps of a value.
+   * @param length   the number of characters of a string or a toString() result.
+   * @param depth    the number of arrays, collections and maps that are rendered inside each other.
+   */
+  static void setLimits(int elements, int length, int depth) {
+    limits = new Limits(elements, length, depth);
+  }
+
   static String toString(Object obj) {
+    StringBuilder builder = new StringBuilder();
+    append(builder, obj);
+    return builder.toString();
+  }
+
+  static void append(StringBuilder builder, Object obj) {
+    Limits limits = Strings.limits;
+    append(builder, obj, limits, null, 0, limits.elements);
+  }
+
+  /**
+   * Appends a value nested in a number of containers, whose path is in the
+   * array, returns the elements that may still be rendered.
+   */
+  private static int append(StringBuilder builder, Object obj, Limits limits, Object[] path, int depth,
+      int elements) {
     if (obj == null) {
-      return "null";
+      builder.append("null");
+      return elements;
     }
     if (obj instanceof CharSequence) {
-      return '"' + printableToString(obj.toString()) + '"';
+      builder.append('"');
+      appendPrintable(builder, (CharSequence) obj, limits.length);
+      builder.append('"');
+      return elements;
+    }
+    if (obj instanceof Byte) {
+      appendByte(builder, (Byte) obj);
+      return elements;
+    }
+
+    boolean map = obj instanceof Map;
+    if (!map && !(obj instanceof Collection) && !obj.getClass().isArray()) {
+      appendTruncated(builder, obj.toString(), limits.length);
+      return elements;
+    }
+    if (depth >= limits.depth || contains(path, depth, obj)) {
+      builder.append(map ? "{...}" : "[...]");
+      return elements;
+    }
+    if (path == null) {
+      path = new Object[limits.depth];
     }
+    path[depth] = obj;
+    if (map) {
+      return appendMap(builder, (Map<?, ?>) obj, limits, path, depth + 1, elements);
+    }
+    if (obj instanceof Collection) {
+      return appendCollection(builder, (Collection<?>) obj, limits, path, depth + 1, elements);
+    }
+    return appendArray(builder, obj, limits, path, depth + 1, elements);
+  }
 
-    Class<?> cls = obj.getClass();
-    if (Byte.class == cls) {
-      return byteToString((Byte) obj);
+  private static int appendArray(StringBuilder builder, Object array, Limits limits, Object[] path, int depth,
+      int elements) {
+    builder.append('[');
+    int length = Array.getLength(array);
+    for (int i = 0; i < length; i++) {
+      if (i > 0) {
+        builder.append(", ");
+      }
+      if (elements <= 0) {
+        builder.append(ELLIPSIS);
+        break;
+      }
+      elements--;
+      if (array instanceof Object[]) {
+        elements = append(builder, ((Object[]) array)[i], limits, path, depth, elements);
+      } else if (array instanceof byte[]) {
+        appendByte(builder, ((byte[]) array)[i]);
+      } else if (array instanceof int[]) {
+        builder.append(((int[]) array)[i]);
+      } else if (array instanceof long[]) {
+        builder.append(((long[]) array)[i]);
+      } else if (array instanceof char[]) {
+        builder.append(((char[]) array)[i]);
+      } else if (array instanceof short[]) {
+        builder.append(((short[]) array)[i]);
+      } else if (array instanceof float[]) {
+        builder.append(((float[]) array)[i]);
+      } else if (array instanceof double[]) {
+        builder.append(((double[]) array)[i]);
+      } else {
+        builder.append(((boolean[]) array)[i]);
+      }
     }
+    builder.append(']');
+    return elements;
+  }
 
-    if (cls.isArray()) {
-      return arrayToString(cls.getComponentType(), obj);
+  private static int appendCollection(StringBuilder builder, Collection<?> collection, Limits limits,
+      Object[] path, int depth, int elements) {
+    builder.append('[');
+    Iterator<?> iterator = collection.iterator();
+    for (int i = 0; iterator.hasNext(); i++) {
+      if (i > 0) {
+        builder.append(", ");
+      }
+      if (elements <= 0) {
+        builder.append(ELLIPSIS);
+        break;
+      }
+      elements = append(builder, iterator.next(), limits, path, depth, elements - 1);
     }
-    return obj.toString();
+    builder.append(']');
+    return elements;
   }
 
-  private static String printableToString(String string) {
-    int length = string.length();
-    StringBuilder builder = new StringBuilder(length);
+  private static int appendMap(StringBuilder builder, Map<?, ?> map, Limits limits, Object[] path, int depth,
+      int elements) {
+    builder.append('{');
+    Iterator<? extends Map.Entry<?, ?>> iterator = map.entrySet().iterator();
+    for (int i = 0; iterator.hasNext(); i++) {
+      if (i > 0) {
+        builder.append(", ");
+      }
+      if (elements <= 0) {
+        builder.append(ELLIPSIS);
+        break;
+      }
+      Map.Entry<?, ?> entry = iterator.next();
+      elements = append(builder, entry.getKey(), limits, path, depth, elements - 1);
+      builder.append('=');
+      elements = append(builder, entry.getValue(), limits, path, depth, elements);
+    }
+    builder.append('}');
+    return elements;
+  }
+
+  /** Is the container one of those it is nested in. */
+  private static boolean contains(Object[] path, int depth, Object obj) {
+    if (path != null) {
+      for (int i = 0; i < depth; i++) {
+        if (path[i] == obj) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /** Appends the characters, with the unprintable ones escaped, up to a length. */
+  private static void appendPrintable(StringBuilder builder, CharSequence string, int maxLength) {
+    int length = Math.min(string.length(), maxLength);
     for (int i = 0; i < length;) {
-      int codePoint = string.codePointAt(i);
+      int codePoint = Character.codePointAt(string, i);
       switch (Character.getType(codePoint)) {
         case Character.CONTROL:
         case Character.FORMAT:
@@ -53,104 +215,44 @@ final class Strings {
               builder.append("\\b");
               break;
             default:
-              builder.append("\\u").append(String.format("%04x", codePoint).toUpperCase(Locale.US));
+              builder.append("\\u");
+              appendHex(builder, codePoint, 4);
               break;
           }
           break;
         default:
-          builder.append(Character.toChars(codePoint));
+          builder.appendCodePoint(codePoint);
           break;
       }
       i += Character.charCount(codePoint);
     }
-    return builder.toString();
-  }
-
-  private static String arrayToString(Class<?> cls, Object obj) {
-    if (byte.class == cls) {
-      return byteArrayToString((byte[]) obj);
-    }
-    if (short.class == cls) {
-      return Arrays.toString((short[]) obj);
-    }
-    if (char.class == cls) {
-      return Arrays.toString((char[]) obj);
-    }
-    if (int.class == cls) {
-      return Arrays.toString((int[]) obj);
-    }
-    if (long.class == cls) {
-      return Arrays.toString((long[]) obj);
-    }
-    if (float.class == cls) {
-      return Arrays.toString((float[]) obj);
-    }
-    if (double.class == cls) {
-      return Arrays.toString((double[]) obj);
-    }
-    if (boolean.class == cls) {
-      return Arrays.toString((boolean[]) obj);
+    if (string.length() > maxLength) {
+      builder.append(ELLIPSIS);
     }
-    return arrayToString((Object[]) obj);
   }
 
-  /** A more human-friendly version of Arrays#toString(byte[]) that uses hex representation. */
-  private static String byteArrayToString(byte[] bytes) {
-    StringBuilder builder = new StringBuilder("[");
-    for (int i = 0; i < bytes.length; i++) {
-      if (i > 0) {
-        builder.append(", ");
-      }
-      builder.append(byteToString(bytes[i]));
-    }
-    return builder.append(']').toString();
-  }
-
-  private static String byteToString(Byte b) {
-    if (b == null) {
-      return "null";
+  private static void appendTruncated(StringBuilder builder, String string, int maxLength) {
+    if (string == null) {
+      builder.append("null");
+    } else if (string.length() > maxLength) {
+      builder.append(string, 0, maxLength).append(ELLIPSIS);
+    } else {
+      builder.append(string);
     }
-    return "0x" + String.format("%02x", b).toUpperCase(Locale.US);
   }
 
-  private static String arrayToString(Object[] array) {
-    StringBuilder buf = new StringBuilder();
-    arrayToString(array, buf, new HashSet<Object[]>());
-    return buf.toString();
+  /** A more human-friendly version of a byte that uses hex representation. */
+  private static void appendByte(StringBuilder builder, byte b) {
+    builder.append("0x");
+    appendHex(builder, b & 0xFF, 2);
   }
 
-  private static void arrayToString(Object[] array, StringBuilder builder, Set<Object[]> seen) {
-    if (array == null) {
-      builder.append("null");
-      return;
+  /** Appends the upper case hex digits of a value, at least a number of them. */
+  private static void appendHex(StringBuilder builder, int value, int minDigits) {
+    int digits = Math.max(minDigits, (32 - Integer.numberOfLeadingZeros(value) + 3) / 4);
+    for (int shift = (digits - 1) * 4; shift >= 0; shift -= 4) {
+      builder.append(HEX[(value >>> shift) & 0xF]);
     }
-
-    seen.add(array);
-    builder.append('[');
-    for (int i = 0; i < array.length; i++) {
-      if (i > 0) {
-        builder.append(", ");
-      }
-
-      Object element = array[i];
-      if (element == null) {
-        builder.append("null");
-      } else {
-        Class elementClass = element.getClass();
-        if (elementClass.isArray() && elementClass.getComponentType() == Object.class) {
-            Object[] arrayElement = (Object[]) element;
-            if (seen.contains(arrayElement)) {
-              builder.append("[...]");
-            } else {
-              arrayToString(arrayElement, builder, seen);
-            }
-        } else {
-          builder.append(toString(element));
-        }
-      }
-    }
-    builder.append(']');
-    seen.remove(array);
   }
 
   private Strings() {
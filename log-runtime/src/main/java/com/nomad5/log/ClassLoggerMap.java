@@ -0,0 +1,169 @@
+package com.nomad5.log;
+
+import com.nomad5.log.LoggerImpl.SimpleLogger;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Concurrent map from {@link Class} to {@link SimpleLogger}.
+ *
+ * Reads are lock-free: the table is published through a volatile field and
+ * every bucket is an immutable chain, so {@link #get(Class)} only loads
+ * references and compares classes by identity. The class name is never
+ * touched on the lookup path.
+ *
+ * Keys are held weakly so that loggers do not pin unloadable classes.
+ * Cleared entries are expunged on the (locked) write path.
+ */
+final class ClassLoggerMap
+{
+    private static final int INITIAL_CAPACITY = 64;
+
+    /**
+     * Immutable bucket entry, weakly referencing its class
+     */
+    private static final class Entry extends WeakReference<Class<?>>
+    {
+        private final int hash;
+        private final SimpleLogger logger;
+        private final Entry next;
+
+        private Entry(Class<?> aClass, int hash, SimpleLogger logger, Entry next, ReferenceQueue<Class<?>> queue)
+        {
+            super(aClass, queue);
+            this.hash = hash;
+            this.logger = logger;
+            this.next = next;
+        }
+    }
+
+    private final ReferenceQueue<Class<?>> queue = new ReferenceQueue<>();
+    private volatile AtomicReferenceArray<Entry> table = new AtomicReferenceArray<>(INITIAL_CAPACITY);
+    private int size;
+
+    /**
+     * Returns the logger cached for the class or {@code null}. Never blocks.
+     */
+    SimpleLogger get(Class<?> aClass)
+    {
+        AtomicReferenceArray<Entry> tab = this.table;
+        int hash = hash(aClass);
+        for(Entry entry = tab.get(hash & (tab.length() - 1)); entry != null; entry = entry.next)
+        {
+            if(entry.hash == hash && entry.get() == aClass)
+            {
+                return entry.logger;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Caches the logger for the class unless one is already present.
+     *
+     * @return the logger that is cached after the call.
+     */
+    synchronized SimpleLogger putIfAbsent(Class<?> aClass, SimpleLogger logger)
+    {
+        SimpleLogger existing = this.get(aClass);
+        if(existing != null)
+        {
+            return existing;
+        }
+        this.expungeStaleEntries();
+        AtomicReferenceArray<Entry> tab = this.table;
+        if(this.size >= tab.length() - (tab.length() >>> 2))
+        {
+            tab = this.resize(tab);
+        }
+        int hash = hash(aClass);
+        int index = hash & (tab.length() - 1);
+        tab.set(index, new Entry(aClass, hash, logger, tab.get(index), this.queue));
+        this.size++;
+        return logger;
+    }
+
+    /**
+     * Drops every cached logger
+     */
+    synchronized void clear()
+    {
+        while(this.queue.poll() != null)
+        {
+            // drain, the entries are discarded with the table
+        }
+        this.table = new AtomicReferenceArray<>(INITIAL_CAPACITY);
+        this.size = 0;
+    }
+
+    /**
+     * Remove entries whose classes have been collected
+     */
+    private void expungeStaleEntries()
+    {
+        Object stale;
+        while((stale = this.queue.poll()) != null)
+        {
+            Entry staleEntry = (Entry) stale;
+            AtomicReferenceArray<Entry> tab = this.table;
+            int index = staleEntry.hash & (tab.length() - 1);
+            // rebuild the chain without the stale entry, readers keep seeing the old chain
+            Entry head = null;
+            boolean found = false;
+            for(Entry entry = tab.get(index); entry != null; entry = entry.next)
+            {
+                if(entry == staleEntry)
+                {
+                    found = true;
+                }
+                else
+                {
+                    Class<?> aClass = entry.get();
+                    if(aClass != null)
+                    {
+                        head = new Entry(aClass, entry.hash, entry.logger, head, this.queue);
+                    }
+                }
+            }
+            if(found)
+            {
+                tab.set(index, head);
+                this.size--;
+            }
+        }
+    }
+
+    /**
+     * Double the table, live entries are copied into fresh chains
+     */
+    private AtomicReferenceArray<Entry> resize(AtomicReferenceArray<Entry> oldTable)
+    {
+        AtomicReferenceArray<Entry> newTable = new AtomicReferenceArray<>(oldTable.length() << 1);
+        int mask = newTable.length() - 1;
+        int count = 0;
+        for(int i = 0; i < oldTable.length(); i++)
+        {
+            for(Entry entry = oldTable.get(i); entry != null; entry = entry.next)
+            {
+                Class<?> aClass = entry.get();
+                if(aClass != null)
+                {
+                    int index = entry.hash & mask;
+                    newTable.set(index, new Entry(aClass, entry.hash, entry.logger, newTable.get(index), this.queue));
+                    count++;
+                }
+            }
+        }
+        this.size = count;
+        this.table = newTable;
+        return newTable;
+    }
+
+    private static int hash(Class<?> aClass)
+    {
+        int h = System.identityHashCode(aClass);
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,346 @@
+package com.nomad5.log.Handler;
+
+import com.nomad5.log.Annotation.CallSites;
+import com.nomad5.log.Logger;
+import com.nomad5.log.Utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A {@link Handler} that prints log messages on a background thread.
+ *
+ * The logging thread only captures the raw event (level, logger name,
+ * caller, throwable, message format and arguments) into a preallocated
+ * bounded ring buffer. Formatting and output are done by the wrapped
+ * handler on a single consumer thread, in the order the events were logged.
+ *
+ * Format arguments are kept by reference until the event is printed, so
+ * they should not be modified after the logging call.
+ *
+ * A wrapped handler that is not an {@link EventHandler} gets the message
+ * format and arguments on the consumer thread, it can only render the
+ * caller of calls with a caller object.
+ *
+ * If the ring buffer is full the {@link OverflowPolicy} decides whether the
+ * logging thread waits for space or the event is dropped. Dropped events are
+ * counted, see {@link #getDroppedCount()}.
+ */
+@SuppressWarnings("unused")
+public class AsyncHandler implements EventHandler
+{
+    /**
+     * What to do with an event when the ring buffer is full
+     */
+    public enum OverflowPolicy
+    {
+        /**
+         * Wait on the logging thread until there is space
+         */
+        BLOCK,
+        /**
+         * Drop the new event
+         */
+        DROP_NEWEST,
+        /**
+         * Drop the new event if its level is below the drop level, wait otherwise
+         */
+        DROP_BELOW_LEVEL
+    }
+
+    public static final int DEFAULT_CAPACITY        = 1024;
+    private static final long PARK_NANOS            = 100000L;
+    private static final long IDLE_PARK_NANOS       = 10000000L;
+    // set in the head sequence when the handler is shut down
+    private static final long CLOSED                = Long.MIN_VALUE;
+
+    private final Handler handler;
+    private final OverflowPolicy overflowPolicy;
+    private final Logger.Level dropLevel;
+
+    // the ring buffer, slot i holds the event with sequence published[i]
+    private final LogEvent[] events;
+    private final AtomicLongArray published;
+    private final int mask;
+
+    // next sequence to claim by producers, with CLOSED once nothing can be
+    // claimed anymore, and next sequence to print by the consumer
+    private final AtomicLong head = new AtomicLong();
+    private volatile long tail;
+
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final Thread consumer;
+    private volatile boolean consumerWaiting;
+
+    /**
+     * Creates new {@link AsyncHandler} that blocks when its default sized buffer is full.
+     */
+    public AsyncHandler(Handler handler)
+    {
+        this(handler, DEFAULT_CAPACITY, OverflowPolicy.BLOCK, null);
+    }
+
+    /**
+     * Creates new {@link AsyncHandler}.
+     *
+     * @param handler        the handler that prints the events.
+     * @param capacity       the ring buffer size, rounded up to a power of two.
+     * @param overflowPolicy what to do when the buffer is full.
+     * @param dropLevel      events below this level are dropped with {@link OverflowPolicy#DROP_BELOW_LEVEL}.
+     */
+    public AsyncHandler(Handler handler, int capacity, OverflowPolicy overflowPolicy, Logger.Level dropLevel)
+    {
+        if(handler == null || overflowPolicy == null)
+        {
+            throw new IllegalArgumentException("handler and overflow policy must be set");
+        }
+        if(overflowPolicy == OverflowPolicy.DROP_BELOW_LEVEL && dropLevel == null)
+        {
+            throw new IllegalArgumentException("drop level must be set for " + overflowPolicy);
+        }
+        int size = Integer.highestOneBit(Math.max(2, capacity) * 2 - 1);
+        this.handler = handler;
+        this.overflowPolicy = overflowPolicy;
+        this.dropLevel = dropLevel;
+        this.events = new LogEvent[size];
+        this.published = new AtomicLongArray(size);
+        this.mask = size - 1;
+        for(int i = 0; i < size; i++)
+        {
+            this.events[i] = new LogEvent();
+            this.published.set(i, -1);
+        }
+        this.consumer = new Thread(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                AsyncHandler.this.consume();
+            }
+        }, "AsyncHandler");
+        this.consumer.setDaemon(true);
+        this.consumer.start();
+    }
+
+    /**
+     * Returns the wrapped handler.
+     */
+    public Handler getHandler()
+    {
+        return this.handler;
+    }
+
+    /**
+     * Returns the number of events dropped because the buffer was full, the
+     * handler was shut down or the event could not be printed.
+     */
+    public long getDroppedCount()
+    {
+        return this.droppedCount.get();
+    }
+
+    /**
+     * Returns the number of events waiting to be printed.
+     */
+    public int getPendingCount()
+    {
+        return (int) ((this.head.get() & ~CLOSED) - this.tail);
+    }
+
+    /**
+     * Stops the consumer thread after all pending events have been printed.
+     * Events logged afterwards are dropped.
+     */
+    public void shutdown() throws InterruptedException
+    {
+        // closing the head is atomic with claiming, so the consumer knows the
+        // last event it has to print
+        long head;
+        do
+        {
+            head = this.head.get();
+        }
+        while(head >= 0 && !this.head.compareAndSet(head, head | CLOSED));
+        LockSupport.unpark(this.consumer);
+        this.consumer.join();
+    }
+
+    @Override
+    public boolean isEnabled(Logger.Level level)
+    {
+        return this.handler.isEnabled(level);
+    }
+
+    @Override
+    public boolean isCallerNeeded()
+    {
+        // other handlers resolve the caller themselves, it cannot be passed to them
+        return this.handler instanceof EventHandler && ((EventHandler) this.handler).isCallerNeeded();
+    }
+
+    @Override
+    public void print(String loggerName,
+                      Logger.Level level,
+                      Object callerObject,
+                      Throwable throwable,
+                      String message) throws IllegalArgumentException
+    {
+        if(this.isEnabled(level))
+        {
+            this.enqueue(loggerName, level, callerObject, throwable, message, null);
+        }
+    }
+
+    @Override
+    public void print(String loggerName,
+                      Logger.Level level,
+                      Object callerObject,
+                      Throwable throwable,
+                      String messageFormat,
+                      Object... args) throws IllegalArgumentException
+    {
+        if(this.isEnabled(level))
+        {
+            if(messageFormat == null && args != null && args.length > 0)
+            {
+                throw new IllegalArgumentException("message format is not set but arguments are presented");
+            }
+            this.enqueue(loggerName, level, callerObject, throwable, messageFormat, LogEvent.formatArgs(args));
+        }
+    }
+
+    @Override
+    public void print(LogEvent event)
+    {
+        if(this.isEnabled(event.getLevel()))
+        {
+            // the event belongs to the caller and is reused, a copy is queued
+            if(event.getCallerObject() == null && this.isCallerNeeded())
+            {
+                event.getCaller();
+            }
+            long sequence = this.claim(event.getLevel());
+            if(sequence >= 0)
+            {
+                int index = (int) (sequence & this.mask);
+                this.events[index].copy(event);
+                this.publish(index, sequence);
+            }
+        }
+    }
+
+    /**
+     * Claim a slot, fill it and publish it to the consumer
+     */
+    private void enqueue(String loggerName, Logger.Level level, Object callerObject, Throwable throwable, String message, Object[] args)
+    {
+        // the stack has to be inspected here, on the logging thread
+        StackTraceElement caller = null;
+        if(callerObject == null)
+        {
+            caller = CallSites.current();
+            if(caller == null && this.isCallerNeeded())
+            {
+                caller = Utils.getCaller(true);
+            }
+        }
+        long sequence = this.claim(level);
+        if(sequence < 0)
+        {
+            return;
+        }
+        int index = (int) (sequence & this.mask);
+        LogEvent event = this.events[index].set(loggerName, level, callerObject, throwable, message, args);
+        if(caller != null)
+        {
+            event.setCaller(caller);
+        }
+        this.publish(index, sequence);
+    }
+
+    /**
+     * Claim the sequence of a free slot, returns -1 if the event is dropped
+     */
+    private long claim(Logger.Level level)
+    {
+        long sequence;
+        while(true)
+        {
+            sequence = this.head.get();
+            if(sequence < 0)
+            {
+                // shut down
+                this.droppedCount.incrementAndGet();
+                return -1;
+            }
+            if(sequence - this.tail > this.mask)
+            {
+                if(this.overflowPolicy == OverflowPolicy.DROP_NEWEST
+                           || (this.overflowPolicy == OverflowPolicy.DROP_BELOW_LEVEL && !this.dropLevel.includes(level)))
+                {
+                    this.droppedCount.incrementAndGet();
+                    return -1;
+                }
+                LockSupport.unpark(this.consumer);
+                LockSupport.parkNanos(this, PARK_NANOS);
+                continue;
+            }
+            if(this.head.compareAndSet(sequence, sequence + 1))
+            {
+                return sequence;
+            }
+        }
+    }
+
+    /**
+     * Hand a filled slot to the consumer
+     */
+    private void publish(int index, long sequence)
+    {
+        this.published.set(index, sequence);
+        if(this.consumerWaiting)
+        {
+            LockSupport.unpark(this.consumer);
+        }
+    }
+
+    /**
+     * The consumer loop, prints events in sequence order until all events
+     * claimed before the shutdown are printed
+     */
+    private void consume()
+    {
+        long sequence = this.tail;
+        while(true)
+        {
+            int index = (int) (sequence & this.mask);
+            if(this.published.get(index) != sequence)
+            {
+                if(this.head.get() == (sequence | CLOSED))
+                {
+                    return;
+                }
+                this.consumerWaiting = true;
+                if(this.published.get(index) != sequence)
+                {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+                this.consumerWaiting = false;
+                continue;
+            }
+            LogEvent event = this.events[index];
+            try
+            {
+                event.printTo(this.handler);
+            }
+            catch(RuntimeException e)
+            {
+                // a broken message must not stop the consumer
+                this.droppedCount.incrementAndGet();
+            }
+            event.clear();
+            this.tail = ++sequence;
+        }
+    }
+}
@@ -0,0 +1,387 @@
+package com.nomad5.log.Handler;
+
+import java.math.BigInteger;
+import java.text.DecimalFormatSymbols;
+import java.util.ArrayList;
+import java.util.Formattable;
+import java.util.Formatter;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A message format string that was parsed once.
+ *
+ * Formats that only use plain text and the {@code %s}, {@code %d}, {@code %b},
+ * {@code %%} and {@code %n} conversions without flags, width or precision are
+ * rendered by appending the literal parts and arguments directly. Everything
+ * else, and arguments the fast path can not render exactly like
+ * {@link Formatter} would, falls back to {@link String#format(String, Object...)}.
+ *
+ * Compiled formats are cached by the identity of the format string, so a log
+ * site with a constant format string parses it only once.
+ */
+public final class CompiledFormat
+{
+    private static final int CACHE_SIZE = 512;
+    private static final AtomicReferenceArray<CompiledFormat> CACHE = new AtomicReferenceArray<>(CACHE_SIZE);
+    private static final String LINE_SEPARATOR = System.getProperty("line.separator");
+
+    // the last format locale that was checked to print ascii digits
+    private static volatile Locale asciiDigitsLocale;
+    // Locale.Category exists on the JVM and from android 24 on
+    private static volatile boolean formatCategory = true;
+
+    private final String format;
+    // literals[i] precedes conversions[i], the last literal ends the message
+    private final String[] literals;
+    private final char[] conversions;
+
+    /**
+     * Returns the compiled format for the string, compiling it on a cache miss.
+     */
+    public static CompiledFormat get(String format)
+    {
+        int index = System.identityHashCode(format) & (CACHE_SIZE - 1);
+        CompiledFormat compiled = CACHE.get(index);
+        if(compiled == null || compiled.format != format)
+        {
+            compiled = new CompiledFormat(format);
+            CACHE.set(index, compiled);
+        }
+        return compiled;
+    }
+
+    private CompiledFormat(String format)
+    {
+        this.format = format;
+        List<String> literalList = new ArrayList<>();
+        StringBuilder conversionList = new StringBuilder();
+        StringBuilder literal = new StringBuilder();
+        boolean simple = true;
+        for(int i = 0; i < format.length() && simple; i++)
+        {
+            char c = format.charAt(i);
+            if(c != '%')
+            {
+                literal.append(c);
+                continue;
+            }
+            char conversion = ++i < format.length() ? format.charAt(i) : 0;
+            switch(conversion)
+            {
+                case '%':
+                    literal.append('%');
+                    break;
+                case 'n':
+                    literal.append(LINE_SEPARATOR);
+                    break;
+                case 's':
+                case 'd':
+                case 'b':
+                    literalList.add(literal.toString());
+                    literal.setLength(0);
+                    conversionList.append(conversion);
+                    break;
+                default:
+                    simple = false;
+                    break;
+            }
+        }
+        literalList.add(literal.toString());
+        this.literals = simple ? literalList.toArray(new String[literalList.size()]) : null;
+        this.conversions = simple ? conversionList.toString().toCharArray() : null;
+    }
+
+    /**
+     * Returns the format string.
+     */
+    public String getFormat()
+    {
+        return this.format;
+    }
+
+    /**
+     * Format the arguments, same result as {@link String#format(String, Object...)}.
+     */
+    public String format(Object... args)
+    {
+        if(this.conversions == null)
+        {
+            return String.format(this.format, args);
+        }
+        StringBuilder builder = new StringBuilder(this.format.length() + 16 * this.conversions.length);
+        this.appendTo(builder, args);
+        return builder.toString();
+    }
+
+    /**
+     * Format the arguments into the builder, same result as {@link String#format(String, Object...)}.
+     */
+    public void appendTo(StringBuilder builder, Object... args)
+    {
+        int start = builder.length();
+        if(this.conversions == null || !this.appendSimple(builder, args))
+        {
+            builder.setLength(start);
+            builder.append(String.format(this.format, args));
+        }
+    }
+
+    /**
+     * Format a single argument into the builder without boxing it, unless the
+     * format needs a real formatter. Same result as {@link String#format(String, Object...)}.
+     */
+    public void appendTo(StringBuilder builder, int arg)
+    {
+        char conversion = this.singleConversion();
+        if(conversion == 's' || (conversion == 'd' && isAsciiDigitsLocale()))
+        {
+            builder.append(this.literals[0]).append(arg).append(this.literals[1]);
+        }
+        else if(conversion == 'b')
+        {
+            builder.append(this.literals[0]).append(true).append(this.literals[1]);
+        }
+        else
+        {
+            this.appendTo(builder, new Object[] {arg});
+        }
+    }
+
+    /**
+     * Format a single argument into the builder without boxing it, unless the
+     * format needs a real formatter. Same result as {@link String#format(String, Object...)}.
+     */
+    public void appendTo(StringBuilder builder, long arg)
+    {
+        char conversion = this.singleConversion();
+        if(conversion == 's' || (conversion == 'd' && isAsciiDigitsLocale()))
+        {
+            builder.append(this.literals[0]).append(arg).append(this.literals[1]);
+        }
+        else if(conversion == 'b')
+        {
+            builder.append(this.literals[0]).append(true).append(this.literals[1]);
+        }
+        else
+        {
+            this.appendTo(builder, new Object[] {arg});
+        }
+    }
+
+    /**
+     * Format a single argument into the builder without boxing it, unless the
+     * format needs a real formatter. Same result as {@link String#format(String, Object...)}.
+     */
+    public void appendTo(StringBuilder builder, double arg)
+    {
+        char conversion = this.singleConversion();
+        if(conversion == 's')
+        {
+            builder.append(this.literals[0]).append(arg).append(this.literals[1]);
+        }
+        else if(conversion == 'b')
+        {
+            builder.append(this.literals[0]).append(true).append(this.literals[1]);
+        }
+        else
+        {
+            this.appendTo(builder, new Object[] {arg});
+        }
+    }
+
+    /**
+     * Format a single argument into the builder without boxing it, unless the
+     * format needs a real formatter. Same result as {@link String#format(String, Object...)}.
+     */
+    public void appendTo(StringBuilder builder, boolean arg)
+    {
+        char conversion = this.singleConversion();
+        if(conversion == 's' || conversion == 'b')
+        {
+            builder.append(this.literals[0]).append(arg).append(this.literals[1]);
+        }
+        else
+        {
+            this.appendTo(builder, new Object[] {arg});
+        }
+    }
+
+    /**
+     * Format a single argument into the builder without boxing it, unless the
+     * format needs a real formatter. Same result as {@link String#format(String, Object...)}.
+     */
+    public void appendTo(StringBuilder builder, char arg)
+    {
+        char conversion = this.singleConversion();
+        if(conversion == 's')
+        {
+            builder.append(this.literals[0]).append(arg).append(this.literals[1]);
+        }
+        else if(conversion == 'b')
+        {
+            builder.append(this.literals[0]).append(true).append(this.literals[1]);
+        }
+        else
+        {
+            this.appendTo(builder, new Object[] {arg});
+        }
+    }
+
+    /**
+     * Format a single argument into the builder without boxing it, unless the
+     * format needs a real formatter. Same result as {@link String#format(String, Object...)}.
+     */
+    public void appendTo(StringBuilder builder, float arg)
+    {
+        char conversion = this.singleConversion();
+        if(conversion == 's')
+        {
+            builder.append(this.literals[0]).append(arg).append(this.literals[1]);
+        }
+        else if(conversion == 'b')
+        {
+            builder.append(this.literals[0]).append(true).append(this.literals[1]);
+        }
+        else
+        {
+            this.appendTo(builder, new Object[] {arg});
+        }
+    }
+
+    /**
+     * Format a single argument into the builder without boxing it, unless the
+     * format needs a real formatter. Same result as {@link String#format(String, Object...)}.
+     */
+    public void appendTo(StringBuilder builder, byte arg)
+    {
+        char conversion = this.singleConversion();
+        if(conversion == 's' || (conversion == 'd' && isAsciiDigitsLocale()))
+        {
+            builder.append(this.literals[0]).append(arg).append(this.literals[1]);
+        }
+        else if(conversion == 'b')
+        {
+            builder.append(this.literals[0]).append(true).append(this.literals[1]);
+        }
+        else
+        {
+            this.appendTo(builder, new Object[] {arg});
+        }
+    }
+
+    /**
+     * Format a single argument into the builder without boxing it, unless the
+     * format needs a real formatter. Same result as {@link String#format(String, Object...)}.
+     */
+    public void appendTo(StringBuilder builder, short arg)
+    {
+        char conversion = this.singleConversion();
+        if(conversion == 's' || (conversion == 'd' && isAsciiDigitsLocale()))
+        {
+            builder.append(this.literals[0]).append(arg).append(this.literals[1]);
+        }
+        else if(conversion == 'b')
+        {
+            builder.append(this.literals[0]).append(true).append(this.literals[1]);
+        }
+        else
+        {
+            this.appendTo(builder, new Object[] {arg});
+        }
+    }
+
+    /**
+     * Returns the conversion of a simple format with exactly one, or 0
+     */
+    private char singleConversion()
+    {
+        return this.conversions != null && this.conversions.length == 1 ? this.conversions[0] : 0;
+    }
+
+    /**
+     * The fast path, returns false if the arguments need a real formatter
+     */
+    private boolean appendSimple(StringBuilder builder, Object[] args)
+    {
+        int count = this.conversions.length;
+        if(count > 0 && (args == null || args.length < count))
+        {
+            return false;
+        }
+        for(int i = 0; i < count; i++)
+        {
+            builder.append(this.literals[i]);
+            Object arg = args[i];
+            switch(this.conversions[i])
+            {
+                case 's':
+                    if(arg instanceof Formattable)
+                    {
+                        return false;
+                    }
+                    builder.append(arg);
+                    break;
+                case 'd':
+                    if(arg == null)
+                    {
+                        builder.append("null");
+                    }
+                    else if(!(arg instanceof Integer || arg instanceof Long || arg instanceof Short
+                                      || arg instanceof Byte || arg instanceof BigInteger) || !isAsciiDigitsLocale())
+                    {
+                        return false;
+                    }
+                    else
+                    {
+                        builder.append(arg);
+                    }
+                    break;
+                case 'b':
+                    builder.append(arg == null ? "false" : arg instanceof Boolean ? arg.toString() : "true");
+                    break;
+            }
+        }
+        builder.append(this.literals[count]);
+        return true;
+    }
+
+    /**
+     * Does the locale of {@link Formatter} format numbers with ascii digits
+     */
+    private static boolean isAsciiDigitsLocale()
+    {
+        Locale locale = formatLocale();
+        if(locale == asciiDigitsLocale)
+        {
+            return true;
+        }
+        if(DecimalFormatSymbols.getInstance(locale).getZeroDigit() == '0')
+        {
+            asciiDigitsLocale = locale;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the default locale for formatting, the one {@link String#format(String, Object...)} uses
+     */
+    private static Locale formatLocale()
+    {
+        if(formatCategory)
+        {
+            try
+            {
+                return Locale.getDefault(Locale.Category.FORMAT);
+            }
+            catch(LinkageError e)
+            {
+                // older android versions format with the default locale
+                formatCategory = false;
+            }
+        }
+        return Locale.getDefault();
+    }
+}
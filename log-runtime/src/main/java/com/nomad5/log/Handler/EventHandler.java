@@ -0,0 +1,38 @@
+package com.nomad5.log.Handler;
+
+import com.nomad5.log.Logger;
+
+/**
+ * A {@link Handler} that prints captured log events.
+ *
+ * Loggers and wrapping handlers pass events to such a handler instead of
+ * calling the print methods of {@link Handler}, so the event can be printed
+ * later or on another thread, and a single primitive argument is not boxed.
+ * Other handlers get the message format and arguments of the event, see
+ * {@link LogEvent#printTo(Handler)}.
+ */
+public interface EventHandler extends Handler {
+
+    /**
+     * Checks if this handler renders the caller of log messages.
+     *
+     * Handlers that print events on another thread use this to decide whether
+     * the caller has to be captured on the logging thread.
+     *
+     * @return Does this handler need {@link LogEvent#getCaller()} or not.
+     */
+    public boolean isCallerNeeded();
+
+    /**
+     * Prints a captured log event.
+     *
+     * This method should automatically check using {@link #isEnabled(Logger.Level)} method
+     * if the event is allowed to be logged or not.
+     *
+     * The event is reused when this method returns, a handler that prints it
+     * later has to copy it.
+     *
+     * @param event the event, it may have been captured on another thread.
+     */
+    public void print(LogEvent event);
+}
@@ -0,0 +1,462 @@
+package com.nomad5.log.Handler;
+
+import com.nomad5.log.Annotation.CallSites;
+import com.nomad5.log.Logger;
+import com.nomad5.log.Utils;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A captured log event.
+ *
+ * Holds everything a {@link Handler} needs to render a log message later,
+ * possibly on another thread: the logger name, level, caller, the name of the
+ * logging thread, the timestamp and the unformatted message.
+ *
+ * Events are mutable so that they can be reused, see {@link #set}. A log
+ * call can borrow the event of its thread with {@link #obtain()}. A single
+ * primitive argument is kept unboxed and appended to the message without
+ * creating objects, it is only boxed if {@link #getArgs()} is called.
+ */
+public final class LogEvent
+{
+    private static final Object[] NO_ARGS = new Object[0];
+    private static final ThreadLocal<LogEvent> EVENT = new ThreadLocal<>();
+
+    // callers of caller objects by class, direct mapped like the compiled formats
+    private static final int CALLER_CACHE_SIZE = 256;
+    private static final AtomicReferenceArray<StackTraceElement> CALLERS = new AtomicReferenceArray<>(CALLER_CACHE_SIZE);
+
+    // types of the unboxed argument
+    private static final int ARG_NONE = 0;
+    private static final int ARG_INT = 1;
+    private static final int ARG_LONG = 2;
+    private static final int ARG_DOUBLE = 3;
+    private static final int ARG_BOOLEAN = 4;
+    private static final int ARG_CHAR = 5;
+    private static final int ARG_FLOAT = 6;
+    private static final int ARG_BYTE = 7;
+    private static final int ARG_SHORT = 8;
+
+    private String loggerName;
+    private Logger.Level level;
+    private Object callerObject;
+    private StackTraceElement caller;
+    private String threadName;
+    private long timeMillis;
+    private Throwable throwable;
+    private String message;
+    private Object[] args;
+    private int argType;
+    private long argBits;
+    private String formattedMessage;
+
+    /**
+     * Returns an event for a log call on this thread. Give it back with
+     * {@link #recycle(LogEvent)} when it was printed.
+     */
+    public static LogEvent obtain()
+    {
+        LogEvent event = EVENT.get();
+        if(event == null)
+        {
+            return new LogEvent();
+        }
+        // nested log calls while printing, e.g. from toString(), get their own event
+        EVENT.set(null);
+        return event;
+    }
+
+    /**
+     * Give an event back to this thread for reuse, it is cleared.
+     */
+    public static void recycle(LogEvent event)
+    {
+        event.clear();
+        EVENT.set(event);
+    }
+
+    /**
+     * Fill the event on the logging thread.
+     *
+     * @param args the format arguments, or {@code null} if message is not a format string.
+     */
+    public LogEvent set(String loggerName,
+                        Logger.Level level,
+                        Object callerObject,
+                        Throwable throwable,
+                        String message,
+                        Object[] args)
+    {
+        this.loggerName = loggerName;
+        this.level = level;
+        this.callerObject = callerObject;
+        // a caller object names the caller by its class, as it did before call sites were woven
+        this.caller = callerObject == null ? CallSites.current() : null;
+        this.threadName = Thread.currentThread().getName();
+        this.timeMillis = System.currentTimeMillis();
+        this.throwable = throwable;
+        this.message = message;
+        this.args = args;
+        this.argType = ARG_NONE;
+        this.formattedMessage = null;
+        return this;
+    }
+
+    /**
+     * Fill the event on the logging thread with a format and a single argument.
+     */
+    public LogEvent set(String loggerName, Logger.Level level, Object callerObject, Throwable throwable, String messageFormat, int arg)
+    {
+        return this.set(loggerName, level, callerObject, throwable, messageFormat, ARG_INT, arg);
+    }
+
+    /**
+     * Fill the event on the logging thread with a format and a single argument.
+     */
+    public LogEvent set(String loggerName, Logger.Level level, Object callerObject, Throwable throwable, String messageFormat, long arg)
+    {
+        return this.set(loggerName, level, callerObject, throwable, messageFormat, ARG_LONG, arg);
+    }
+
+    /**
+     * Fill the event on the logging thread with a format and a single argument.
+     */
+    public LogEvent set(String loggerName, Logger.Level level, Object callerObject, Throwable throwable, String messageFormat, double arg)
+    {
+        return this.set(loggerName, level, callerObject, throwable, messageFormat, ARG_DOUBLE, Double.doubleToRawLongBits(arg));
+    }
+
+    /**
+     * Fill the event on the logging thread with a format and a single argument.
+     */
+    public LogEvent set(String loggerName, Logger.Level level, Object callerObject, Throwable throwable, String messageFormat, boolean arg)
+    {
+        return this.set(loggerName, level, callerObject, throwable, messageFormat, ARG_BOOLEAN, arg ? 1 : 0);
+    }
+
+    /**
+     * Fill the event on the logging thread with a format and a single argument.
+     */
+    public LogEvent set(String loggerName, Logger.Level level, Object callerObject, Throwable throwable, String messageFormat, char arg)
+    {
+        return this.set(loggerName, level, callerObject, throwable, messageFormat, ARG_CHAR, arg);
+    }
+
+    /**
+     * Fill the event on the logging thread with a format and a single argument.
+     */
+    public LogEvent set(String loggerName, Logger.Level level, Object callerObject, Throwable throwable, String messageFormat, float arg)
+    {
+        return this.set(loggerName, level, callerObject, throwable, messageFormat, ARG_FLOAT, Float.floatToRawIntBits(arg));
+    }
+
+    /**
+     * Fill the event on the logging thread with a format and a single argument.
+     */
+    public LogEvent set(String loggerName, Logger.Level level, Object callerObject, Throwable throwable, String messageFormat, byte arg)
+    {
+        return this.set(loggerName, level, callerObject, throwable, messageFormat, ARG_BYTE, arg);
+    }
+
+    /**
+     * Fill the event on the logging thread with a format and a single argument.
+     */
+    public LogEvent set(String loggerName, Logger.Level level, Object callerObject, Throwable throwable, String messageFormat, short arg)
+    {
+        return this.set(loggerName, level, callerObject, throwable, messageFormat, ARG_SHORT, arg);
+    }
+
+    private LogEvent set(String loggerName, Logger.Level level, Object callerObject, Throwable throwable, String messageFormat, int argType, long argBits)
+    {
+        this.set(loggerName, level, callerObject, throwable, messageFormat, null);
+        this.argType = argType;
+        this.argBits = argBits;
+        return this;
+    }
+
+    /**
+     * Fill the event with values that were captured before, e.g. when reading
+     * it back from a log file.
+     *
+     * @param caller the caller, or {@code null} if it was not captured.
+     * @param args   the format arguments, or {@code null} if message is not a format string.
+     */
+    public LogEvent set(String loggerName,
+                        Logger.Level level,
+                        StackTraceElement caller,
+                        String threadName,
+                        long timeMillis,
+                        Throwable throwable,
+                        String message,
+                        Object[] args)
+    {
+        this.loggerName = loggerName;
+        this.level = level;
+        this.callerObject = null;
+        this.caller = caller;
+        this.threadName = threadName;
+        this.timeMillis = timeMillis;
+        this.throwable = throwable;
+        this.message = message;
+        this.args = args;
+        this.argType = ARG_NONE;
+        this.formattedMessage = null;
+        return this;
+    }
+
+    /**
+     * Fill the event with a copy of another one, the caller is copied as far
+     * as it was resolved.
+     */
+    void copy(LogEvent event)
+    {
+        this.loggerName = event.loggerName;
+        this.level = event.level;
+        this.callerObject = event.callerObject;
+        this.caller = event.caller;
+        this.threadName = event.threadName;
+        this.timeMillis = event.timeMillis;
+        this.throwable = event.throwable;
+        this.message = event.message;
+        this.args = event.args;
+        this.argType = event.argType;
+        this.argBits = event.argBits;
+        this.formattedMessage = event.formattedMessage;
+    }
+
+    /**
+     * Drop all references so that a pooled event does not keep them alive
+     */
+    public void clear()
+    {
+        this.loggerName = null;
+        this.level = null;
+        this.callerObject = null;
+        this.caller = null;
+        this.threadName = null;
+        this.throwable = null;
+        this.message = null;
+        this.args = null;
+        this.argType = ARG_NONE;
+        this.formattedMessage = null;
+    }
+
+    /**
+     * Set a caller that was resolved on the logging thread
+     */
+    void setCaller(StackTraceElement caller)
+    {
+        this.caller = caller;
+    }
+
+    public String getLoggerName()
+    {
+        return this.loggerName;
+    }
+
+    public Logger.Level getLevel()
+    {
+        return this.level;
+    }
+
+    public Object getCallerObject()
+    {
+        return this.callerObject;
+    }
+
+    /**
+     * Returns the caller. The caller of a call with a caller object is that
+     * object's class. Otherwise it is the woven call site if there is one, see
+     * {@link CallSites}, or it is resolved lazily from the current stack if it
+     * was not captured before.
+     */
+    public StackTraceElement getCaller()
+    {
+        if(this.caller == null)
+        {
+            if(this.callerObject != null)
+            {
+                this.caller = getCaller(this.callerObject);
+            }
+            else
+            {
+                this.caller = Utils.getCaller(true);
+            }
+        }
+        return this.caller;
+    }
+
+    public String getThreadName()
+    {
+        return this.threadName;
+    }
+
+    public long getTimeMillis()
+    {
+        return this.timeMillis;
+    }
+
+    public Throwable getThrowable()
+    {
+        return this.throwable;
+    }
+
+    /**
+     * Returns the message, formatting it on first access if it was logged
+     * with a format string and arguments.
+     */
+    public String getMessage()
+    {
+        if(this.message == null || (this.args == null && this.argType == ARG_NONE))
+        {
+            return this.message;
+        }
+        if(this.formattedMessage == null)
+        {
+            this.formattedMessage = CompiledFormat.get(this.message).format(this.getArgs());
+        }
+        return this.formattedMessage;
+    }
+
+    /**
+     * Append the message to the builder without creating the message string.
+     * Appends nothing if there is no message.
+     */
+    public void appendMessage(StringBuilder builder)
+    {
+        if(this.message == null)
+        {
+            return;
+        }
+        if(this.formattedMessage != null || (this.args == null && this.argType == ARG_NONE))
+        {
+            builder.append(this.getMessage());
+        }
+        else if(this.args != null)
+        {
+            CompiledFormat.get(this.message).appendTo(builder, this.args);
+        }
+        else
+        {
+            CompiledFormat format = CompiledFormat.get(this.message);
+            switch(this.argType)
+            {
+                case ARG_INT:
+                    format.appendTo(builder, (int) this.argBits);
+                    break;
+                case ARG_LONG:
+                    format.appendTo(builder, this.argBits);
+                    break;
+                case ARG_DOUBLE:
+                    format.appendTo(builder, Double.longBitsToDouble(this.argBits));
+                    break;
+                case ARG_BOOLEAN:
+                    format.appendTo(builder, this.argBits != 0);
+                    break;
+                case ARG_CHAR:
+                    format.appendTo(builder, (char) this.argBits);
+                    break;
+                case ARG_FLOAT:
+                    format.appendTo(builder, Float.intBitsToFloat((int) this.argBits));
+                    break;
+                case ARG_BYTE:
+                    format.appendTo(builder, (byte) this.argBits);
+                    break;
+                case ARG_SHORT:
+                    format.appendTo(builder, (short) this.argBits);
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Returns the message format, or the plain message if {@link #getArgs()} is {@code null}.
+     */
+    public String getMessageFormat()
+    {
+        return this.message;
+    }
+
+    /**
+     * Returns the format arguments, {@code null} if the message is not a format string.
+     */
+    public Object[] getArgs()
+    {
+        if(this.args == null && this.argType != ARG_NONE)
+        {
+            this.args = new Object[] {this.boxArg()};
+        }
+        return this.args;
+    }
+
+    /**
+     * Print the event with a handler. An {@link EventHandler} gets the event,
+     * other handlers get its message format and arguments.
+     */
+    public void printTo(Handler handler)
+    {
+        if(handler instanceof EventHandler)
+        {
+            ((EventHandler) handler).print(this);
+        }
+        else if(this.args == null && this.argType == ARG_NONE)
+        {
+            handler.print(this.loggerName, this.level, this.callerObject, this.throwable, this.message);
+        }
+        else
+        {
+            handler.print(this.loggerName, this.level, this.callerObject, this.throwable, this.message, this.getArgs());
+        }
+    }
+
+    /**
+     * Box the unboxed argument
+     */
+    private Object boxArg()
+    {
+        switch(this.argType)
+        {
+            case ARG_INT:
+                return (int) this.argBits;
+            case ARG_LONG:
+                return this.argBits;
+            case ARG_DOUBLE:
+                return Double.longBitsToDouble(this.argBits);
+            case ARG_CHAR:
+                return (char) this.argBits;
+            case ARG_FLOAT:
+                return Float.intBitsToFloat((int) this.argBits);
+            case ARG_BYTE:
+                return (byte) this.argBits;
+            case ARG_SHORT:
+                return (short) this.argBits;
+            default:
+                return this.argBits != 0;
+        }
+    }
+
+    /**
+     * Returns the caller of a caller object, only its class is known
+     */
+    private static StackTraceElement getCaller(Object callerObject)
+    {
+        String className = Utils.getClassName(callerObject);
+        int index = System.identityHashCode(callerObject.getClass()) & (CALLER_CACHE_SIZE - 1);
+        StackTraceElement caller = CALLERS.get(index);
+        if(caller == null || !caller.getClassName().equals(className))
+        {
+            caller = new StackTraceElement(className, "<no-method>", "<no-file>", -1);
+            CALLERS.set(index, caller);
+        }
+        return caller;
+    }
+
+    /**
+     * Normalize the arguments of a format call, {@code null} is an empty array
+     */
+    static Object[] formatArgs(Object[] args)
+    {
+        return args == null ? NO_ARGS : args;
+    }
+}
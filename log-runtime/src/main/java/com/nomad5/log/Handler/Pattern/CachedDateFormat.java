@@ -0,0 +1,190 @@
+package com.nomad5.log.Handler.Pattern;
+
+import android.annotation.SuppressLint;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+/**
+ * Thread-safe date formatting for {@link Pattern.DatePattern}.
+ *
+ * The date pattern is split at its millisecond field into a prefix and a
+ * suffix pattern. Both are formatted at most once per second and published
+ * as an immutable snapshot, so rendering a timestamp within the current
+ * second only appends the cached text and the milliseconds.
+ *
+ * Patterns with more than one millisecond field are formatted completely
+ * on every call with a per-thread {@link SimpleDateFormat}.
+ */
+final class CachedDateFormat
+{
+    /**
+     * The rendered text of one second
+     */
+    private static final class Snapshot
+    {
+        private final long second;
+        private final String prefix;
+        private final String suffix;
+
+        private Snapshot(long second, String prefix, String suffix)
+        {
+            this.second = second;
+            this.prefix = prefix;
+            this.suffix = suffix;
+        }
+    }
+
+    private final String pattern;
+    private final SimpleDateFormat prefixFormat;
+    private final SimpleDateFormat suffixFormat;
+    // minimal digits of the millisecond field, 0 if there is none
+    private final int millisDigits;
+    private final ThreadLocal<SimpleDateFormat> fullFormat;
+    private volatile Snapshot snapshot = new Snapshot(Long.MIN_VALUE, null, null);
+
+    /**
+     * Creates a format for a {@link SimpleDateFormat} pattern.
+     *
+     * @throws IllegalArgumentException if the pattern is invalid.
+     */
+    @SuppressLint("SimpleDateFormat")
+    CachedDateFormat(final String pattern)
+    {
+        this.pattern = pattern;
+        // validate the whole pattern once
+        new SimpleDateFormat(pattern);
+
+        int start = -1;
+        int end = -1;
+        boolean quoted = false;
+        boolean cacheable = true;
+        for(int i = 0; i < pattern.length(); i++)
+        {
+            char c = pattern.charAt(i);
+            if(c == '\'')
+            {
+                quoted = !quoted;
+            }
+            else if(c == 'S' && !quoted)
+            {
+                if(start == -1)
+                {
+                    start = i;
+                    end = i;
+                    while(end < pattern.length() && pattern.charAt(end) == 'S')
+                    {
+                        end++;
+                    }
+                    i = end - 1;
+                }
+                else
+                {
+                    cacheable = false;
+                }
+            }
+        }
+
+        if(!cacheable)
+        {
+            this.prefixFormat = null;
+            this.suffixFormat = null;
+            this.millisDigits = 0;
+            this.fullFormat = new ThreadLocal<SimpleDateFormat>()
+            {
+                @Override
+                protected SimpleDateFormat initialValue()
+                {
+                    return new SimpleDateFormat(pattern);
+                }
+            };
+        }
+        else if(start == -1)
+        {
+            this.prefixFormat = new SimpleDateFormat(pattern);
+            this.suffixFormat = null;
+            this.millisDigits = 0;
+            this.fullFormat = null;
+        }
+        else
+        {
+            this.prefixFormat = new SimpleDateFormat(pattern.substring(0, start));
+            this.suffixFormat = new SimpleDateFormat(pattern.substring(end));
+            this.millisDigits = end - start;
+            this.fullFormat = null;
+        }
+    }
+
+    /**
+     * Returns the date pattern.
+     */
+    String getPattern()
+    {
+        return this.pattern;
+    }
+
+    /**
+     * Format the timestamp.
+     */
+    String format(long timeMillis)
+    {
+        if(this.fullFormat != null)
+        {
+            return this.fullFormat.get().format(new Date(timeMillis));
+        }
+        StringBuilder builder = new StringBuilder(this.pattern.length() + 8);
+        this.appendTo(builder, timeMillis);
+        return builder.toString();
+    }
+
+    /**
+     * Format the timestamp into the builder.
+     */
+    void appendTo(StringBuilder builder, long timeMillis)
+    {
+        if(this.fullFormat != null)
+        {
+            builder.append(this.fullFormat.get().format(new Date(timeMillis)));
+            return;
+        }
+        long second = timeMillis / 1000;
+        int millis = (int) (timeMillis % 1000);
+        if(millis < 0)
+        {
+            second--;
+            millis += 1000;
+        }
+        Snapshot current = this.snapshot;
+        if(current.second != second)
+        {
+            current = this.render(second);
+        }
+        builder.append(current.prefix);
+        if(this.millisDigits > 0)
+        {
+            for(int digits = millis >= 100 ? 3 : millis >= 10 ? 2 : 1; digits < this.millisDigits; digits++)
+            {
+                builder.append('0');
+            }
+            builder.append(millis);
+            builder.append(current.suffix);
+        }
+    }
+
+    /**
+     * Render and publish a new second, formatters are only used under their lock
+     */
+    private Snapshot render(long second)
+    {
+        Date date = new Date(second * 1000);
+        Snapshot snapshot;
+        synchronized(this.prefixFormat)
+        {
+            String prefix = this.prefixFormat.format(date);
+            String suffix = this.suffixFormat == null ? null : this.suffixFormat.format(date);
+            snapshot = new Snapshot(second, prefix, suffix);
+        }
+        this.snapshot = snapshot;
+        return snapshot;
+    }
+}
@@ -1,14 +1,11 @@
 package com.nomad5.log.Handler.Pattern;
 
-import android.annotation.SuppressLint;
-
 import com.nomad5.log.Utils;
 
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Date;
 import java.util.List;
 
+import com.nomad5.log.Handler.LogEvent;
 import com.nomad5.log.Handler.PatternHandler;
 import com.nomad5.log.Logger;
 import com.nomad5.log.LoggerManager;
@@ -36,16 +33,27 @@ public abstract class Pattern
     /**
      * Apply pattern
      */
-    public final String apply(StackTraceElement caller, String loggerName, Logger.Level level)
+    public final String apply(LogEvent event)
+    {
+        StringBuilder builder = new StringBuilder();
+        this.render(builder, event);
+        return builder.toString();
+    }
+
+    /**
+     * Apply pattern by appending to the target, padding and truncation are done in place
+     */
+    public final void render(StringBuilder target, LogEvent event)
     {
-        String string = this.doApply(caller, loggerName, level);
-        return Utils.shorten(string, this.count, this.length);
+        int start = target.length();
+        this.doRender(target, event);
+        Utils.shorten(target, start, this.count, this.length);
     }
 
     /**
-     * Override this in pattern implementations
+     * Override this in pattern implementations, append the result to the target
      */
-    protected abstract String doApply(StackTraceElement caller, String loggerName, Logger.Level level);
+    protected abstract void doRender(StringBuilder target, LogEvent event);
 
     /**
      * Is caller needed for this pattern
@@ -86,9 +94,9 @@ public abstract class Pattern
         }
 
         @Override
-        protected String doApply(StackTraceElement caller, String loggerName, Logger.Level level)
+        protected void doRender(StringBuilder target, LogEvent event)
         {
-            return this.string;
+            target.append(this.string);
         }
     }
 
@@ -97,26 +105,25 @@ public abstract class Pattern
      */
     public static class DatePattern extends Pattern
     {
-        private final SimpleDateFormat dateFormat;
+        private final CachedDateFormat dateFormat;
 
-        @SuppressLint("SimpleDateFormat")
         public DatePattern(int count, int length, String dateFormat)
         {
             super(count, length);
             if(dateFormat != null)
             {
-                this.dateFormat = new SimpleDateFormat(dateFormat);
+                this.dateFormat = new CachedDateFormat(dateFormat);
             }
             else
             {
-                this.dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS");
+                this.dateFormat = new CachedDateFormat("yyyy-MM-dd HH:mm:ss.SSS");
             }
         }
 
         @Override
-        protected String doApply(StackTraceElement caller, String loggerName, Logger.Level level)
+        protected void doRender(StringBuilder target, LogEvent event)
         {
-            return this.dateFormat.format(new Date());
+            this.dateFormat.appendTo(target, event.getTimeMillis());
         }
     }
 
@@ -131,9 +138,9 @@ public abstract class Pattern
         }
 
         @Override
-        protected String doApply(StackTraceElement caller, String loggerName, Logger.Level level)
+        protected void doRender(StringBuilder target, LogEvent event)
         {
-            return level.toString();
+            target.append(event.getLevel().name());
         }
     }
 
@@ -142,20 +149,18 @@ public abstract class Pattern
      */
     public static class LoggerPattern extends Pattern
     {
-        private int loggerCount;
-        private int loggerLength;
+        private final ShortNameCache loggerNames;
 
         public LoggerPattern(int count, int length, int loggerCount, int loggerLength)
         {
             super(count, length);
-            this.loggerCount = loggerCount;
-            this.loggerLength = loggerLength;
+            this.loggerNames = new ShortNameCache(loggerCount, loggerLength);
         }
 
         @Override
-        protected String doApply(StackTraceElement caller, String loggerName, Logger.Level level)
+        protected void doRender(StringBuilder target, LogEvent event)
         {
-            return Utils.shortenClassName(loggerName, this.loggerCount, this.loggerLength);
+            target.append(this.loggerNames.get(event.getLoggerName()));
         }
     }
 
@@ -164,35 +169,36 @@ public abstract class Pattern
      */
     public static class CallerPattern extends Pattern
     {
-        private int callerCount;
-        private int callerLength;
+        private final ShortNameCache callerNames;
+        // without a length limit and package prefix only the class part of the caller is shortened
+        private final boolean shortenClassOnly;
 
         public CallerPattern(int count, int length, int callerCount, int callerLength)
         {
             super(count, length);
-            this.callerCount = callerCount;
-            this.callerLength = callerLength;
+            this.callerNames = new ShortNameCache(callerCount, callerLength);
+            this.shortenClassOnly = callerLength == 0 && callerCount <= 0;
         }
 
         @Override
-        protected String doApply(StackTraceElement caller, String loggerName, Logger.Level level)
+        protected void doRender(StringBuilder target, LogEvent event)
         {
+            StackTraceElement caller = event.getCaller();
             if(caller == null)
             {
                 throw new IllegalArgumentException("Caller not found");
             }
-            else
+            // method and line contain no '.', so they only matter when the length is limited
+            StringBuilder builder = this.shortenClassOnly ? target : new StringBuilder();
+            builder.append(this.shortenClassOnly ? this.callerNames.get(caller.getClassName()) : caller.getClassName());
+            builder.append('#').append(caller.getMethodName());
+            if(caller.getLineNumber() >= 0)
             {
-                String callerString;
-                if(caller.getLineNumber() < 0)
-                {
-                    callerString = String.format("%s#%s", caller.getClassName(), caller.getMethodName());
-                }
-                else
-                {
-                    callerString = String.format("%s#%s:%d", caller.getClassName(), caller.getMethodName(), caller.getLineNumber());
-                }
-                return Utils.shortenClassName(callerString, this.callerCount, this.callerLength);
+                builder.append(':').append(caller.getLineNumber());
+            }
+            if(builder != target)
+            {
+                target.append(this.callerNames.get(builder.toString()));
             }
         }
 
@@ -214,38 +220,28 @@ public abstract class Pattern
         }
 
         @Override
-        protected String doApply(StackTraceElement caller, String loggerName, Logger.Level level)
+        protected void doRender(StringBuilder target, LogEvent event)
         {
+            StackTraceElement caller = event.getCaller();
             if(caller == null)
             {
                 throw new IllegalArgumentException("Caller not found");
             }
+            else if(caller.isNativeMethod())
+            {
+                target.append("(native)");
+            }
+            else if(caller.getFileName() == null)
+            {
+                target.append("(unknown)");
+            }
             else
             {
-                StringBuilder builder = new StringBuilder();
-                if(caller.isNativeMethod())
+                target.append(caller.getFileName());
+                if(caller.getLineNumber() >= 0)
                 {
-                    builder.append("(native)");
+                    target.append(':').append(caller.getLineNumber());
                 }
-                else
-                {
-                    if(caller.getFileName() == null)
-                    {
-                        builder.append("(unknown)");
-                    }
-                    else
-                    {
-                        if(caller.getLineNumber() >= 0)
-                        {
-                            builder.append(String.format("%s:%d", caller.getFileName(), caller.getLineNumber()));
-                        }
-                        else
-                        {
-                            builder.append(String.format("%s", caller.getFileName()));
-                        }
-                    }
-                }
-                return builder.toString();
             }
         }
 
@@ -275,14 +271,12 @@ public abstract class Pattern
         }
 
         @Override
-        protected String doApply(StackTraceElement caller, String loggerName, Logger.Level level)
+        protected void doRender(StringBuilder target, LogEvent event)
         {
-            StringBuilder builder = new StringBuilder();
-            for(Pattern pattern : this.patternList)
+            for(int i = 0; i < this.patternList.size(); i++)
             {
-                builder.append(pattern.apply(caller, loggerName, level));
+                this.patternList.get(i).render(target, event);
             }
-            return builder.toString();
         }
 
         @Override
@@ -310,9 +304,9 @@ public abstract class Pattern
         }
 
         @Override
-        protected String doApply(StackTraceElement caller, String loggerName, Logger.Level level)
+        protected void doRender(StringBuilder target, LogEvent event)
         {
-            return Thread.currentThread().getName();
+            target.append(event.getThreadName());
         }
     }
 
@@ -321,27 +315,23 @@ public abstract class Pattern
      */
     public static class ClassPattern extends Pattern
     {
-        private int callerCount;
-        private int callerLength;
+        private final ShortNameCache classNames;
 
         public ClassPattern(int count, int length, int loggerCount, int loggerLength)
         {
             super(count, length);
-            this.callerCount = loggerCount;
-            this.callerLength = loggerLength;
+            this.classNames = new ShortNameCache(loggerCount, loggerLength);
         }
 
         @Override
-        protected String doApply(StackTraceElement caller, String loggerName, Logger.Level level)
+        protected void doRender(StringBuilder target, LogEvent event)
         {
+            StackTraceElement caller = event.getCaller();
             if(caller == null)
             {
                 throw new IllegalArgumentException("Caller not found");
             }
-            else
-            {
-                return Utils.shortenClassName(caller.getClassName(), this.callerCount, this.callerLength);
-            }
+            target.append(this.classNames.get(caller.getClassName()));
         }
 
         @Override
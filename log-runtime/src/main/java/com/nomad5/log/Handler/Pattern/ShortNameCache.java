@@ -0,0 +1,71 @@
+package com.nomad5.log.Handler.Pattern;
+
+import com.nomad5.log.Utils;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded cache of shortened class names for one pattern.
+ *
+ * Names are shortened with {@link Utils#shortenClassName(String, int, int)}
+ * using the count and length of the pattern. The cache is direct mapped by
+ * the string hash code, colliding names simply replace each other, so it
+ * never grows and lookups do not lock.
+ */
+final class ShortNameCache
+{
+    private static final int SIZE = 64;
+
+    /**
+     * Immutable cache entry
+     */
+    private static final class Entry
+    {
+        private final String name;
+        private final String shortName;
+
+        private Entry(String name, String shortName)
+        {
+            this.name = name;
+            this.shortName = shortName;
+        }
+    }
+
+    private final int count;
+    private final int length;
+    private final AtomicReferenceArray<Entry> entries = new AtomicReferenceArray<>(SIZE);
+
+    ShortNameCache(int count, int length)
+    {
+        this.count = count;
+        this.length = length;
+    }
+
+    /**
+     * Returns true if names are used as they are
+     */
+    boolean isIdentity()
+    {
+        return this.count == 0 && this.length == 0;
+    }
+
+    /**
+     * Returns the shortened name
+     */
+    String get(String name)
+    {
+        if(name == null || this.isIdentity())
+        {
+            return name;
+        }
+        int index = name.hashCode() & (SIZE - 1);
+        Entry entry = this.entries.get(index);
+        if(entry != null && (entry.name == name || entry.name.equals(name)))
+        {
+            return entry.shortName;
+        }
+        String shortName = Utils.shortenClassName(name, this.count, this.length);
+        this.entries.set(index, new Entry(name, shortName));
+        return shortName;
+    }
+}
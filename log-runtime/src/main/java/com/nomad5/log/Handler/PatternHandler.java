@@ -1,8 +1,9 @@
 package com.nomad5.log.Handler;
 
-import android.util.Log;
-
 import com.nomad5.log.Handler.Pattern.Pattern;
+import com.nomad5.log.Handler.Sink.EventSink;
+import com.nomad5.log.Handler.Sink.LogcatSink;
+import com.nomad5.log.Handler.Sink.Sink;
 import com.nomad5.log.Utils;
 
 import java.text.SimpleDateFormat;
@@ -14,14 +15,15 @@ import com.nomad5.log.Logger;
  * The basic implementation of {@link Handler} interface.
  * <p>
  * This log handler is configured with a logging level, a tag and
- * a message patterns.
+ * a message patterns. The rendered records are written to a {@link Sink},
+ * the android log by default. An {@link EventSink} gets the events unrendered.
  * <p>
  * The logging level parameter is the minimal level of log messages printed
  * by this handler instance. The logging level can be {@code null} which
  * means no messages should be printed using this logger.
  * <p>
  * Attention: Android may set its own requirement for logging level
- * using {@link Log#isLoggable(String, int)} method. This logger doesn't take
+ * using {@link android.util.Log#isLoggable(String, int)} method. This logger doesn't take
  * it into account in {@link #isEnabled(Logger.Level)} method.
  * <p>
  * The patterns are format strings written according to a special rules described
@@ -120,19 +122,31 @@ import com.nomad5.log.Logger;
  * %.-3(text)	'ext'
  */
 @SuppressWarnings("unused")
-public class PatternHandler implements Handler
+public class PatternHandler implements EventHandler
 {
     protected final Logger.Level level;
     protected final String tagPattern;
     protected final String messagePattern;
     protected final Pattern compiledTagPattern;
     protected final Pattern compiledMessagePattern;
+    protected final Sink sink;
+    // the last rendered tag, a handler renders the same few tags again and again
+    private volatile String lastTag;
 
     /**
-     * Creates new {@link PatternHandler}.
+     * Creates new {@link PatternHandler} that writes to the android log.
      */
     public PatternHandler(Logger.Level level, String tagPattern, String messagePattern)
     {
+        this(level, tagPattern, messagePattern, new LogcatSink());
+    }
+
+    /**
+     * Creates new {@link PatternHandler} that writes to the sink.
+     */
+    public PatternHandler(Logger.Level level, String tagPattern, String messagePattern, Sink sink)
+    {
+        this.sink = sink;
         this.level = level;
         this.tagPattern = tagPattern;
         this.compiledTagPattern = Pattern.compile(tagPattern);
@@ -164,12 +178,27 @@ public class PatternHandler implements Handler
         return this.messagePattern;
     }
 
+    /**
+     * Returns the sink.
+     */
+    public Sink getSink()
+    {
+        return this.sink;
+    }
+
     @Override
     public boolean isEnabled(Logger.Level level)
     {
         return this.level != null && level != null && this.level.includes(level);
     }
 
+    @Override
+    public boolean isCallerNeeded()
+    {
+        return (this.compiledTagPattern != null && this.compiledTagPattern.isCallerNeeded())
+                       || (this.compiledMessagePattern != null && this.compiledMessagePattern.isCallerNeeded());
+    }
+
     @Override
     public void print(String loggerName,
                       Logger.Level level,
@@ -179,54 +208,15 @@ public class PatternHandler implements Handler
     {
         if(this.isEnabled(level))
         {
-            String messageBody;
-
-            if(message == null)
+            LogEvent event = LogEvent.obtain();
+            try
             {
-                if(throwable == null)
-                {
-                    messageBody = "";
-                }
-                else
-                {
-                    messageBody = Log.getStackTraceString(throwable);
-                }
-            }
-            else
-            {
-                if(throwable == null)
-                {
-                    messageBody = message;
-                }
-                else
-                {
-                    messageBody = message + '\n' + Log.getStackTraceString(throwable);
-                }
-            }
-
-            StackTraceElement caller = null;
-            if((this.compiledTagPattern != null && this.compiledTagPattern.isCallerNeeded())
-                       || (this.compiledMessagePattern != null && this.compiledMessagePattern.isCallerNeeded()))
-            {
-                if(callerObject != null)
-                {
-                    String cal = Utils.getClassName(callerObject);
-                    caller = new StackTraceElement(cal, "<no-method>", "<no-file>", -1);
-                }
-                else
-                {
-                    caller = Utils.getCaller(true);
-                }
+                this.print(event.set(loggerName, level, callerObject, throwable, message, null));
             }
-
-            String tag = this.compiledTagPattern == null ? "" : this.compiledTagPattern.apply(caller, loggerName, level);
-            String messageHead = this.compiledMessagePattern == null ? "" : this.compiledMessagePattern.apply(caller, loggerName, level);
-
-            if(messageHead.length() > 0 && !Character.isWhitespace(messageHead.charAt(0)))
+            finally
             {
-                messageHead = messageHead + " ";
+                LogEvent.recycle(event);
             }
-            Log.println(level.intValue(), tag, messageHead + messageBody);
         }
     }
 
@@ -244,7 +234,71 @@ public class PatternHandler implements Handler
             {
                 throw new IllegalArgumentException("message format is not set but arguments are presented");
             }
-            this.print(loggerName, level, callerObject, throwable, messageFormat == null ? null : String.format(messageFormat, args));
+            LogEvent event = LogEvent.obtain();
+            try
+            {
+                this.print(event.set(loggerName, level, callerObject, throwable, messageFormat, LogEvent.formatArgs(args)));
+            }
+            finally
+            {
+                LogEvent.recycle(event);
+            }
+        }
+    }
+
+    @Override
+    public void print(LogEvent event)
+    {
+        Logger.Level level = event.getLevel();
+        if(this.isEnabled(level))
+        {
+            if(this.sink instanceof EventSink)
+            {
+                ((EventSink) this.sink).write(this, event);
+                return;
+            }
+            Throwable throwable = event.getThrowable();
+            StringBuilder builder = Utils.obtainBuilder();
+            try
+            {
+                // the tag and the message are rendered one after another into the same buffer
+                if(this.compiledTagPattern != null)
+                {
+                    this.compiledTagPattern.render(builder, event);
+                }
+                String tag = this.lastTag;
+                if(tag == null || !tag.contentEquals(builder))
+                {
+                    tag = builder.toString();
+                    this.lastTag = tag;
+                }
+                builder.setLength(0);
+                if(this.compiledMessagePattern != null)
+                {
+                    this.compiledMessagePattern.render(builder, event);
+                }
+                if(builder.length() > 0 && !Character.isWhitespace(builder.charAt(0)))
+                {
+                    builder.append(' ');
+                }
+                if(event.getMessageFormat() != null)
+                {
+                    event.appendMessage(builder);
+                    if(throwable != null)
+                    {
+                        builder.append('\n');
+                    }
+                }
+                if(throwable != null)
+                {
+                    Utils.appendStackTrace(builder, throwable);
+                }
+                this.sink.write(level, tag, builder);
+            }
+            finally
+            {
+                Utils.recycleBuilder(builder);
+            }
         }
     }
 }
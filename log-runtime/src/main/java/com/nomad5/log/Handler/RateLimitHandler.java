@@ -0,0 +1,249 @@
+package com.nomad5.log.Handler;
+
+import com.nomad5.log.Logger;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A {@link Handler} that limits the rate of log messages per log site.
+ *
+ * A log site is a logger name together with a message format. Every site
+ * may print a burst of messages at once and then one message per
+ * {@code period / burst}, messages over that budget are dropped and
+ * counted. The next message of the site that is printed again is preceded
+ * by a single summary with the number of messages that were suppressed.
+ *
+ * The budget is a token bucket kept as the time at which the bucket is full
+ * again, so an event costs one time read and one compare and set. Sites are
+ * kept in a fixed size table by hash, colliding sites replace each other and
+ * a replaced site reports its suppressed messages right away. The rest are
+ * reported by {@link #flush()}.
+ */
+@SuppressWarnings("unused")
+public class RateLimitHandler implements EventHandler
+{
+    public static final String SUPPRESSED_FORMAT    = "%d similar messages suppressed: %s";
+    private static final int TABLE_SIZE             = 256;
+
+    /**
+     * The budget of a log site
+     */
+    private static final class Site
+    {
+        private final String loggerName;
+        private final String format;
+        // the time in nanos at which the bucket is full again
+        private final AtomicLong fullTime;
+        private final AtomicInteger suppressed = new AtomicInteger();
+        private volatile Logger.Level suppressedLevel;
+
+        private Site(String loggerName, String format, long now)
+        {
+            this.loggerName = loggerName;
+            this.format = format;
+            this.fullTime = new AtomicLong(now);
+        }
+
+        private boolean matches(String loggerName, String format)
+        {
+            return (this.loggerName == loggerName || (this.loggerName != null && this.loggerName.equals(loggerName)))
+                    && (this.format == format || (this.format != null && this.format.equals(format)));
+        }
+    }
+
+    private final Handler handler;
+    private final int burst;
+    private final long periodMillis;
+    // the time one message takes from the bucket and the time the bucket may be ahead
+    private final long intervalNanos;
+    private final long toleranceNanos;
+    private final AtomicReferenceArray<Site> sites = new AtomicReferenceArray<>(TABLE_SIZE);
+    private final AtomicLong suppressedCount = new AtomicLong();
+
+    /**
+     * Creates new {@link RateLimitHandler}.
+     *
+     * @param handler      the handler that prints the messages within the budget.
+     * @param burst        the number of messages a site may print at once.
+     * @param periodMillis the time in which a site may print a burst of messages.
+     */
+    public RateLimitHandler(Handler handler, int burst, long periodMillis)
+    {
+        if(handler == null || burst < 1 || periodMillis < 1)
+        {
+            throw new IllegalArgumentException("handler must be set, burst and period must be positive");
+        }
+        this.handler = handler;
+        this.burst = burst;
+        this.periodMillis = periodMillis;
+        this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(periodMillis) / burst;
+        this.toleranceNanos = TimeUnit.MILLISECONDS.toNanos(periodMillis) - this.intervalNanos;
+    }
+
+    /**
+     * Returns the wrapped handler.
+     */
+    public Handler getHandler()
+    {
+        return this.handler;
+    }
+
+    /**
+     * Returns the number of messages a site may print at once.
+     */
+    public int getBurst()
+    {
+        return this.burst;
+    }
+
+    /**
+     * Returns the time in which a site may print a burst of messages.
+     */
+    public long getPeriodMillis()
+    {
+        return this.periodMillis;
+    }
+
+    /**
+     * Returns the number of messages dropped so far.
+     */
+    public long getSuppressedCount()
+    {
+        return this.suppressedCount.get();
+    }
+
+    /**
+     * Print the summaries of the sites that suppressed messages since their
+     * last one, e.g. before the process exits.
+     */
+    public void flush()
+    {
+        for(int i = 0; i < TABLE_SIZE; i++)
+        {
+            Site site = this.sites.get(i);
+            if(site != null && site.suppressed.get() > 0)
+            {
+                this.report(site);
+            }
+        }
+    }
+
+    @Override
+    public boolean isEnabled(Logger.Level level)
+    {
+        return this.handler.isEnabled(level);
+    }
+
+    @Override
+    public boolean isCallerNeeded()
+    {
+        // other handlers resolve the caller themselves, it cannot be passed to them
+        return this.handler instanceof EventHandler && ((EventHandler) this.handler).isCallerNeeded();
+    }
+
+    @Override
+    public void print(String loggerName,
+                      Logger.Level level,
+                      Object callerObject,
+                      Throwable throwable,
+                      String message) throws IllegalArgumentException
+    {
+        if(this.isEnabled(level) && this.acquire(loggerName, level, message))
+        {
+            this.handler.print(loggerName, level, callerObject, throwable, message);
+        }
+    }
+
+    @Override
+    public void print(String loggerName,
+                      Logger.Level level,
+                      Object callerObject,
+                      Throwable throwable,
+                      String messageFormat,
+                      Object... args) throws IllegalArgumentException
+    {
+        if(this.isEnabled(level) && this.acquire(loggerName, level, messageFormat))
+        {
+            this.handler.print(loggerName, level, callerObject, throwable, messageFormat, args);
+        }
+    }
+
+    @Override
+    public void print(LogEvent event)
+    {
+        if(this.isEnabled(event.getLevel()) && this.acquire(event.getLoggerName(), event.getLevel(), event.getMessageFormat()))
+        {
+            event.printTo(this.handler);
+        }
+    }
+
+    /**
+     * Take a message from the budget of the site, returns false if it is
+     * dropped. Reports the suppressed messages of the site before it prints
+     * again, and of a site it replaces.
+     */
+    private boolean acquire(String loggerName, Logger.Level level, String format)
+    {
+        long now = System.nanoTime();
+        int index = hash(loggerName, format) & (TABLE_SIZE - 1);
+        Site site = this.sites.get(index);
+        while(site == null || !site.matches(loggerName, format))
+        {
+            // a site another thread created meanwhile is used, not replaced
+            Site created = new Site(loggerName, format, now);
+            if(this.sites.compareAndSet(index, site, created))
+            {
+                if(site != null)
+                {
+                    this.report(site);
+                }
+                site = created;
+                break;
+            }
+            site = this.sites.get(index);
+        }
+        while(true)
+        {
+            long fullTime = site.fullTime.get();
+            long start = fullTime - now < 0 ? now : fullTime;
+            if(start - now > this.toleranceNanos)
+            {
+                site.suppressedLevel = level;
+                site.suppressed.incrementAndGet();
+                this.suppressedCount.incrementAndGet();
+                return false;
+            }
+            if(site.fullTime.compareAndSet(fullTime, start + this.intervalNanos))
+            {
+                break;
+            }
+        }
+        if(site.suppressed.get() > 0)
+        {
+            this.report(site);
+        }
+        return true;
+    }
+
+    /**
+     * Print the summary of the messages a site suppressed since its last one
+     */
+    private void report(Site site)
+    {
+        int count = site.suppressed.getAndSet(0);
+        if(count > 0)
+        {
+            Logger.Level level = site.suppressedLevel;
+            this.handler.print(site.loggerName, level, null, null, SUPPRESSED_FORMAT, count, site.format);
+        }
+    }
+
+    private static int hash(String loggerName, String format)
+    {
+        int h = (loggerName != null ? loggerName.hashCode() : 0) * 31 + (format != null ? format.hashCode() : 0);
+        return h ^ (h >>> 16);
+    }
+}
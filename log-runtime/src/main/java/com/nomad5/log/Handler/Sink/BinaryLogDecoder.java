@@ -0,0 +1,319 @@
+package com.nomad5.log.Handler.Sink;
+
+import com.nomad5.log.Handler.LogEvent;
+import com.nomad5.log.Handler.PatternHandler;
+import com.nomad5.log.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IllegalFormatException;
+import java.util.List;
+
+import static com.nomad5.log.Handler.Sink.BinaryLogFormat.*;
+
+/**
+ * Renders a file of {@link BinarySink} to text.
+ *
+ * Every event is rendered with the patterns of the handler that logged it
+ * and written to a sink, so the result is the text the handler would have
+ * written to that sink. Run it as a tool to print a file to standard out:
+ *
+ * java -cp log-runtime.jar com.nomad5.log.Handler.Sink.BinaryLogDecoder app.nlog
+ */
+public final class BinaryLogDecoder
+{
+    /**
+     * A throwable that prints a stack trace that was rendered when it was logged
+     */
+    private static final class RenderedThrowable extends Throwable
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final String stackTrace;
+
+        private RenderedThrowable(String stackTrace)
+        {
+            this.stackTrace = stackTrace;
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace()
+        {
+            return this;
+        }
+
+        @Override
+        public void printStackTrace(PrintWriter writer)
+        {
+            writer.print(this.stackTrace);
+        }
+    }
+
+    private static final Logger.Level[] LEVELS = Logger.Level.values();
+
+    private final DataInputStream input;
+    private final Sink sink;
+    private final LogEvent event = new LogEvent();
+    private final List<String> strings = new ArrayList<>();
+    private final List<StackTraceElement> callers = new ArrayList<>();
+    private final List<PatternHandler> handlers = new ArrayList<>();
+    private long timeMillis;
+
+    /**
+     * Creates a decoder that renders the records of the input to the sink.
+     */
+    public BinaryLogDecoder(InputStream input, Sink sink)
+    {
+        this.input = new DataInputStream(input);
+        this.sink = sink;
+    }
+
+    /**
+     * Print the files given as arguments to standard out.
+     */
+    public static void main(String[] args) throws IOException
+    {
+        if(args.length == 0)
+        {
+            System.err.println("usage: BinaryLogDecoder <file>...");
+            System.exit(1);
+        }
+        StreamSink sink = new StreamSink(System.out);
+        for(String file : args)
+        {
+            InputStream input = new BufferedInputStream(new FileInputStream(file));
+            try
+            {
+                new BinaryLogDecoder(input, sink).decode();
+            }
+            finally
+            {
+                input.close();
+            }
+        }
+        sink.flush();
+    }
+
+    /**
+     * Render all records. A record that was cut off at the end, e.g. when the
+     * process died while writing, is ignored.
+     *
+     * @throws IOException if the input can not be read or is not a binary log.
+     */
+    public void decode() throws IOException
+    {
+        while(true)
+        {
+            int type = this.input.read();
+            if(type == -1)
+            {
+                return;
+            }
+            try
+            {
+                this.decodeRecord(type);
+            }
+            catch(EOFException e)
+            {
+                return;
+            }
+        }
+    }
+
+    private void decodeRecord(int type) throws IOException
+    {
+        switch(type)
+        {
+            case RECORD_HEADER:
+                for(int i = 1; i < MAGIC.length; i++)
+                {
+                    if(this.input.readUnsignedByte() != MAGIC[i])
+                    {
+                        throw new IOException("not a binary log");
+                    }
+                }
+                int version = this.input.readUnsignedByte();
+                if(version != VERSION)
+                {
+                    throw new IOException("unsupported binary log version " + version);
+                }
+                // a new run starts with empty tables
+                this.strings.clear();
+                this.callers.clear();
+                this.handlers.clear();
+                this.timeMillis = 0;
+                break;
+            case RECORD_STRING:
+                this.define(this.strings, (int) this.readUnsigned(), this.readString());
+                break;
+            case RECORD_CALLER:
+                int callerId = (int) this.readUnsigned();
+                String className = this.string();
+                String methodName = this.string();
+                String fileName = this.string();
+                int line = (int) this.readSigned();
+                this.define(this.callers, callerId, new StackTraceElement(className, methodName, fileName, line));
+                break;
+            case RECORD_HANDLER:
+                int handlerId = (int) this.readUnsigned();
+                String tagPattern = this.string();
+                String messagePattern = this.string();
+                this.define(this.handlers, handlerId, new PatternHandler(Logger.Level.VERBOSE, tagPattern, messagePattern, this.sink));
+                break;
+            case RECORD_EVENT:
+                this.decodeEvent();
+                break;
+            case RECORD_TEXT:
+                Logger.Level level = LEVELS[this.input.readUnsignedByte()];
+                String tag = this.readString();
+                this.sink.write(level, tag, this.readString());
+                break;
+            default:
+                throw new IOException("unknown record type " + type);
+        }
+    }
+
+    private void decodeEvent() throws IOException
+    {
+        this.timeMillis += this.readSigned();
+        Logger.Level level = LEVELS[this.input.readUnsignedByte()];
+        PatternHandler handler = this.lookup(this.handlers, (int) this.readUnsigned());
+        String loggerName = this.string();
+        String threadName = this.string();
+        StackTraceElement caller = this.lookup(this.callers, (int) this.readUnsigned());
+        int flags = this.input.readUnsignedByte();
+        String message = null;
+        Object[] args = null;
+        if((flags & FLAG_FORMAT) != 0)
+        {
+            message = this.string();
+            args = new Object[(int) this.readUnsigned()];
+            for(int i = 0; i < args.length; i++)
+            {
+                args[i] = this.readArg();
+            }
+        }
+        else if((flags & FLAG_MESSAGE) != 0)
+        {
+            message = this.readString();
+        }
+        Throwable throwable = (flags & FLAG_THROWABLE) != 0 ? new RenderedThrowable(this.readString()) : null;
+
+        this.event.set(loggerName, level, caller, threadName, this.timeMillis, throwable, message, args);
+        try
+        {
+            handler.print(this.event);
+        }
+        catch(IllegalFormatException e)
+        {
+            // arguments without a raw form are read back as strings, print them as they are
+            this.event.set(loggerName, level, caller, threadName, this.timeMillis, throwable,
+                           message + " " + Arrays.toString(args), null);
+            handler.print(this.event);
+        }
+    }
+
+    private Object readArg() throws IOException
+    {
+        int type = this.input.readUnsignedByte();
+        switch(type)
+        {
+            case ARG_NULL:
+                return null;
+            case ARG_TRUE:
+                return Boolean.TRUE;
+            case ARG_FALSE:
+                return Boolean.FALSE;
+            case ARG_BYTE:
+                return (byte) this.readSigned();
+            case ARG_SHORT:
+                return (short) this.readSigned();
+            case ARG_INT:
+                return (int) this.readSigned();
+            case ARG_LONG:
+                return this.readSigned();
+            case ARG_FLOAT:
+                return this.input.readFloat();
+            case ARG_DOUBLE:
+                return this.input.readDouble();
+            case ARG_CHAR:
+                return (char) this.readUnsigned();
+            case ARG_STRING:
+            case ARG_OBJECT:
+                return this.readString();
+            case ARG_BIG_INTEGER:
+                return new BigInteger(this.readString());
+            case ARG_BIG_DECIMAL:
+                return new BigDecimal(this.readString());
+            default:
+                throw new IOException("unknown argument type " + type);
+        }
+    }
+
+    /**
+     * Read the id of an interned string
+     */
+    private String string() throws IOException
+    {
+        return this.lookup(this.strings, (int) this.readUnsigned());
+    }
+
+    private <T> T lookup(List<T> table, int id) throws IOException
+    {
+        if(id == 0)
+        {
+            return null;
+        }
+        if(id > table.size() || table.get(id - 1) == null)
+        {
+            throw new IOException("undefined id " + id);
+        }
+        return table.get(id - 1);
+    }
+
+    private <T> void define(List<T> table, int id, T value)
+    {
+        while(table.size() < id)
+        {
+            table.add(null);
+        }
+        table.set(id - 1, value);
+    }
+
+    private String readString() throws IOException
+    {
+        byte[] bytes = new byte[(int) this.readUnsigned()];
+        this.input.readFully(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    private long readUnsigned() throws IOException
+    {
+        long value = 0;
+        for(int shift = 0; shift < 64; shift += 7)
+        {
+            int b = this.input.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if((b & 0x80) == 0)
+            {
+                return value;
+            }
+        }
+        throw new IOException("malformed varint");
+    }
+
+    private long readSigned() throws IOException
+    {
+        long value = this.readUnsigned();
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,67 @@
+package com.nomad5.log.Handler.Sink;
+
+import java.nio.charset.Charset;
+
+/**
+ * Constants of the binary log format of {@link BinarySink}.
+ *
+ * A file is a sequence of records, each starts with its type byte. Numbers
+ * are unsigned LEB128 varints, signed ones zigzag encoded first. Strings are
+ * a varint byte length and UTF-8. Ids start at 1, 0 means {@code null}.
+ *
+ * <pre>
+ * HEADER   'N' 'L' 'O' 'G' version      starts the file, and every run appended to it
+ * STRING   id string                     interned string, defined before its first use
+ * CALLER   id class method file zigzag(line)     ids of interned strings
+ * HANDLER  id tagPattern messagePattern  ids of interned strings
+ * EVENT    zigzag(time delta) level handler logger thread caller flags
+ *          [format argCount arg*] [string] [string]
+ *          the time is relative to the previous event, the message format and
+ *          its arguments, a plain message and the stack trace follow depending
+ *          on the flags
+ * TEXT     level string string           an already rendered tag and message
+ * </pre>
+ *
+ * Arguments are written raw with a type byte, objects without a raw form as
+ * their {@link Object#toString()}.
+ */
+final class BinaryLogFormat
+{
+    static final Charset UTF_8 = Charset.forName("UTF-8");
+    static final byte[] MAGIC = {'N', 'L', 'O', 'G'};
+    static final int VERSION = 1;
+
+    // record types, the header starts with the first magic byte
+    static final int RECORD_HEADER = 'N';
+    static final int RECORD_STRING = 1;
+    static final int RECORD_CALLER = 2;
+    static final int RECORD_HANDLER = 3;
+    static final int RECORD_EVENT = 4;
+    static final int RECORD_TEXT = 5;
+
+    // event flags
+    static final int FLAG_FORMAT = 1;
+    static final int FLAG_MESSAGE = 2;
+    static final int FLAG_THROWABLE = 4;
+
+    // argument types
+    static final int ARG_NULL = 0;
+    static final int ARG_TRUE = 1;
+    static final int ARG_FALSE = 2;
+    static final int ARG_BYTE = 3;
+    static final int ARG_SHORT = 4;
+    static final int ARG_INT = 5;
+    static final int ARG_LONG = 6;
+    static final int ARG_FLOAT = 7;
+    static final int ARG_DOUBLE = 8;
+    static final int ARG_CHAR = 9;
+    static final int ARG_STRING = 10;
+    static final int ARG_BIG_INTEGER = 11;
+    static final int ARG_BIG_DECIMAL = 12;
+    static final int ARG_OBJECT = 13;
+
+    private BinaryLogFormat()
+    {
+        throw new UnsupportedOperationException();
+    }
+}
@@ -0,0 +1,387 @@
+package com.nomad5.log.Handler.Sink;
+
+import com.nomad5.log.Handler.LogEvent;
+import com.nomad5.log.Handler.PatternHandler;
+import com.nomad5.log.Logger;
+import com.nomad5.log.Utils;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import static com.nomad5.log.Handler.Sink.BinaryLogFormat.*;
+
+/**
+ * Writes events in a compact binary format instead of rendering them.
+ *
+ * Logger names, thread names, message formats, callers and the patterns of
+ * the handlers are interned, they are written once per file and referenced
+ * by a small id afterwards. Format arguments are written raw, so an event of
+ * a known log site costs a few bytes and no string formatting. The format is
+ * described in {@link BinaryLogFormat}, {@link BinaryLogDecoder} renders a
+ * file to the text the handlers would have produced.
+ *
+ * Records are buffered and written to the channel in blocks, call
+ * {@link #flush()} to write out the buffer. Errors do not reach the logging
+ * code, the sink stops writing after the first one, see {@link #getLastError()}.
+ */
+public class BinarySink implements EventSink
+{
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int WRITE_THRESHOLD = 4 * 1024;
+
+    private final WritableByteChannel channel;
+    private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final Map<String, Integer> strings = new HashMap<>();
+    private final Map<StackTraceElement, Integer> callers = new HashMap<>();
+    private final Map<PatternHandler, Integer> handlers = new IdentityHashMap<>();
+    private long lastTimeMillis;
+    private boolean closed;
+    private volatile IOException lastError;
+
+    /**
+     * Creates a sink that appends to the file, creating it if needed.
+     *
+     * @throws IOException if the file can not be opened.
+     */
+    public BinarySink(File file) throws IOException
+    {
+        this(new FileOutputStream(file, true).getChannel());
+    }
+
+    /**
+     * Creates a sink that writes to the channel.
+     */
+    public BinarySink(WritableByteChannel channel)
+    {
+        this.channel = channel;
+        // the interning tables start empty for every run appended to a file
+        this.buffer.put((byte) RECORD_HEADER).put(MAGIC, 1, MAGIC.length - 1).put((byte) VERSION);
+    }
+
+    /**
+     * Returns the last error of the channel, or {@code null}.
+     */
+    public IOException getLastError()
+    {
+        return this.lastError;
+    }
+
+    @Override
+    public void write(PatternHandler handler, LogEvent event)
+    {
+        // everything that runs code of the application happens before the lock,
+        // a toString() may log itself
+        StackTraceElement caller = handler.isCallerNeeded() ? event.getCaller() : null;
+        String stackTrace = null;
+        if(event.getThrowable() != null)
+        {
+            StringBuilder builder = new StringBuilder();
+            Utils.appendStackTrace(builder, event.getThrowable());
+            stackTrace = builder.toString();
+        }
+        Object[] args = event.getArgs();
+        String[] argStrings = null;
+        if(args != null)
+        {
+            for(int i = 0; i < args.length; i++)
+            {
+                if(argType(args[i]) >= ARG_STRING)
+                {
+                    if(argStrings == null)
+                    {
+                        argStrings = new String[args.length];
+                    }
+                    argStrings[i] = String.valueOf(args[i]);
+                }
+            }
+        }
+
+        synchronized(this)
+        {
+            if(this.closed)
+            {
+                return;
+            }
+            int handlerId = this.handlerId(handler);
+            int loggerId = this.stringId(event.getLoggerName());
+            int threadId = this.stringId(event.getThreadName());
+            int callerId = this.callerId(caller);
+            String message = event.getMessageFormat();
+            int formatId = args != null ? this.stringId(message) : 0;
+            int flags = (args != null ? FLAG_FORMAT : message != null ? FLAG_MESSAGE : 0)
+                                | (stackTrace != null ? FLAG_THROWABLE : 0);
+
+            this.ensure(1 + 10 + 1 + 5 * 5 + 1);
+            this.buffer.put((byte) RECORD_EVENT);
+            this.putSigned(event.getTimeMillis() - this.lastTimeMillis);
+            this.lastTimeMillis = event.getTimeMillis();
+            this.buffer.put((byte) event.getLevel().ordinal());
+            this.putUnsigned(handlerId);
+            this.putUnsigned(loggerId);
+            this.putUnsigned(threadId);
+            this.putUnsigned(callerId);
+            this.buffer.put((byte) flags);
+            if(args != null)
+            {
+                this.ensure(10);
+                this.putUnsigned(formatId);
+                this.putUnsigned(args.length);
+                for(int i = 0; i < args.length; i++)
+                {
+                    this.putArg(args[i], argStrings == null ? null : argStrings[i]);
+                }
+            }
+            else if(message != null)
+            {
+                this.putString(message);
+            }
+            if(stackTrace != null)
+            {
+                this.putString(stackTrace);
+            }
+            this.writeIfFull();
+        }
+    }
+
+    /**
+     * Writes an already rendered record.
+     */
+    @Override
+    public synchronized void write(Logger.Level level, String tag, CharSequence message)
+    {
+        if(this.closed)
+        {
+            return;
+        }
+        this.ensure(2);
+        this.buffer.put((byte) RECORD_TEXT);
+        this.buffer.put((byte) level.ordinal());
+        this.putString(tag);
+        this.putString(message.toString());
+        this.writeIfFull();
+    }
+
+    @Override
+    public synchronized void flush()
+    {
+        if(!this.closed)
+        {
+            this.writeBuffer();
+        }
+    }
+
+    @Override
+    public synchronized void close()
+    {
+        if(!this.closed)
+        {
+            this.writeBuffer();
+            this.closed = true;
+            try
+            {
+                this.channel.close();
+            }
+            catch(IOException e)
+            {
+                this.lastError = e;
+            }
+        }
+    }
+
+    /**
+     * Returns the type of an argument, the types from ARG_STRING on are written as strings
+     */
+    private static int argType(Object arg)
+    {
+        if(arg == null)                     return ARG_NULL;
+        if(arg instanceof Boolean)          return (Boolean) arg ? ARG_TRUE : ARG_FALSE;
+        if(arg instanceof Byte)             return ARG_BYTE;
+        if(arg instanceof Short)            return ARG_SHORT;
+        if(arg instanceof Integer)          return ARG_INT;
+        if(arg instanceof Long)             return ARG_LONG;
+        if(arg instanceof Float)            return ARG_FLOAT;
+        if(arg instanceof Double)           return ARG_DOUBLE;
+        if(arg instanceof Character)        return ARG_CHAR;
+        if(arg instanceof String)           return ARG_STRING;
+        if(arg instanceof BigInteger)       return ARG_BIG_INTEGER;
+        if(arg instanceof BigDecimal)       return ARG_BIG_DECIMAL;
+        return ARG_OBJECT;
+    }
+
+    private void putArg(Object arg, String string)
+    {
+        int type = argType(arg);
+        this.ensure(11);
+        this.buffer.put((byte) type);
+        switch(type)
+        {
+            case ARG_BYTE:
+            case ARG_SHORT:
+            case ARG_INT:
+            case ARG_LONG:
+                this.putSigned(((Number) arg).longValue());
+                break;
+            case ARG_FLOAT:
+                this.buffer.putFloat((Float) arg);
+                break;
+            case ARG_DOUBLE:
+                this.buffer.putDouble((Double) arg);
+                break;
+            case ARG_CHAR:
+                this.putUnsigned((Character) arg);
+                break;
+            case ARG_STRING:
+            case ARG_BIG_INTEGER:
+            case ARG_BIG_DECIMAL:
+            case ARG_OBJECT:
+                this.putString(string);
+                break;
+        }
+    }
+
+    /**
+     * Returns the id of an interned string, defining it first if needed
+     */
+    private int stringId(String string)
+    {
+        if(string == null)
+        {
+            return 0;
+        }
+        Integer id = this.strings.get(string);
+        if(id == null)
+        {
+            id = this.strings.size() + 1;
+            this.strings.put(string, id);
+            this.ensure(6);
+            this.buffer.put((byte) RECORD_STRING);
+            this.putUnsigned(id);
+            this.putString(string);
+        }
+        return id;
+    }
+
+    private int callerId(StackTraceElement caller)
+    {
+        if(caller == null)
+        {
+            return 0;
+        }
+        Integer id = this.callers.get(caller);
+        if(id == null)
+        {
+            int classId = this.stringId(caller.getClassName());
+            int methodId = this.stringId(caller.getMethodName());
+            int fileId = this.stringId(caller.getFileName());
+            id = this.callers.size() + 1;
+            this.callers.put(caller, id);
+            this.ensure(1 + 5 * 5);
+            this.buffer.put((byte) RECORD_CALLER);
+            this.putUnsigned(id);
+            this.putUnsigned(classId);
+            this.putUnsigned(methodId);
+            this.putUnsigned(fileId);
+            this.putSigned(caller.getLineNumber());
+        }
+        return id;
+    }
+
+    private int handlerId(PatternHandler handler)
+    {
+        Integer id = this.handlers.get(handler);
+        if(id == null)
+        {
+            int tagId = this.stringId(handler.getTagPattern());
+            int messageId = this.stringId(handler.getMessagePattern());
+            id = this.handlers.size() + 1;
+            this.handlers.put(handler, id);
+            this.ensure(1 + 5 * 3);
+            this.buffer.put((byte) RECORD_HANDLER);
+            this.putUnsigned(id);
+            this.putUnsigned(tagId);
+            this.putUnsigned(messageId);
+        }
+        return id;
+    }
+
+    private void putString(String string)
+    {
+        byte[] bytes = string.getBytes(UTF_8);
+        this.ensure(5 + bytes.length);
+        this.putUnsigned(bytes.length);
+        this.buffer.put(bytes);
+    }
+
+    private void putUnsigned(long value)
+    {
+        while((value & ~0x7FL) != 0)
+        {
+            this.buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        this.buffer.put((byte) value);
+    }
+
+    private void putSigned(long value)
+    {
+        this.putUnsigned((value << 1) ^ (value >> 63));
+    }
+
+    /**
+     * Make room for some bytes, writing out or growing the buffer
+     */
+    private void ensure(int bytes)
+    {
+        if(this.buffer.remaining() >= bytes)
+        {
+            return;
+        }
+        if(!this.closed)
+        {
+            this.writeBuffer();
+        }
+        // after an error the record is still completed, but it is never written
+        if(this.buffer.remaining() < bytes)
+        {
+            this.buffer = ByteBuffer.allocate(Math.max(bytes, this.buffer.capacity() * 2));
+        }
+    }
+
+    private void writeIfFull()
+    {
+        if(this.buffer.position() >= WRITE_THRESHOLD)
+        {
+            this.flush();
+        }
+    }
+
+    /**
+     * Write out the buffer, after an error the file can not be continued and the sink is closed
+     */
+    private void writeBuffer()
+    {
+        this.buffer.flip();
+        try
+        {
+            while(this.buffer.hasRemaining())
+            {
+                this.channel.write(this.buffer);
+            }
+            this.buffer.clear();
+        }
+        catch(IOException e)
+        {
+            this.lastError = e;
+            this.closed = true;
+            this.buffer.clear();
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.nomad5.log.Handler.Sink;
+
+import com.nomad5.log.Logger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes records as UTF-8 lines to a byte channel.
+ *
+ * Every record becomes one line in the brief format of logcat,
+ * {@code D/tag: message}, encoded without creating strings.
+ *
+ * A sink with a batch gathers the lines and writes them to the channel at
+ * once when the batch is full, its oldest line waited for the delay, an
+ * ERROR or ASSERT record arrives or the sink is flushed. A daemon thread
+ * writes batches that wait longer than the delay while nothing is logged.
+ *
+ * Writes are serialized by the sink. Errors of the channel do not reach the
+ * logging code, the last one is kept, see {@link #getLastError()}.
+ */
+public class ChannelSink implements Sink
+{
+    private final WritableByteChannel channel;
+    private final LineEncoder encoder = new LineEncoder();
+    // the gathered lines, null if every line is written at once
+    private final ByteBuffer batch;
+    private final long delayNanos;
+    private long batchStart;
+    private final Thread flusher;
+    private volatile boolean closed;
+    private volatile IOException lastError;
+
+    /**
+     * Creates a sink that writes every record to the channel at once.
+     */
+    public ChannelSink(WritableByteChannel channel)
+    {
+        this(channel, 0, 0);
+    }
+
+    /**
+     * Creates a sink that gathers records before writing them to the channel.
+     *
+     * @param channel     the channel to write to.
+     * @param batchSize   the size of the batch in bytes, or 0 to write every record at once.
+     * @param delayMillis the longest time a record waits in the batch, or 0 to wait until it is full.
+     */
+    public ChannelSink(WritableByteChannel channel, int batchSize, long delayMillis)
+    {
+        if(batchSize < 0 || delayMillis < 0)
+        {
+            throw new IllegalArgumentException("invalid batch size or delay");
+        }
+        this.channel = channel;
+        this.batch = batchSize > 0 ? ByteBuffer.allocate(batchSize) : null;
+        this.delayNanos = TimeUnit.MILLISECONDS.toNanos(delayMillis);
+        this.flusher = batchSize > 0 && delayMillis > 0 ? this.startFlusher(delayMillis) : null;
+    }
+
+    /**
+     * Returns the channel of this sink.
+     */
+    protected WritableByteChannel getChannel()
+    {
+        return this.channel;
+    }
+
+    /**
+     * Returns the last error of the channel, or {@code null}.
+     */
+    public IOException getLastError()
+    {
+        return this.lastError;
+    }
+
+    @Override
+    public synchronized void write(Logger.Level level, String tag, CharSequence message)
+    {
+        if(this.closed)
+        {
+            return;
+        }
+        ByteBuffer line = this.encoder.encode(level, tag, message);
+        ByteBuffer batch = this.batch;
+        if(batch == null)
+        {
+            this.writeFully(line);
+            return;
+        }
+        if(line.remaining() > batch.remaining())
+        {
+            this.writeBatch();
+        }
+        if(line.remaining() > batch.capacity())
+        {
+            this.writeFully(line);
+            return;
+        }
+        if(batch.position() == 0 && this.delayNanos > 0)
+        {
+            this.batchStart = System.nanoTime();
+        }
+        batch.put(line);
+        if(Logger.Level.ERROR.includes(level) || (this.delayNanos > 0 && System.nanoTime() - this.batchStart >= this.delayNanos))
+        {
+            this.writeBatch();
+        }
+    }
+
+    /**
+     * Writes the gathered records to the channel.
+     */
+    @Override
+    public synchronized void flush()
+    {
+        if(this.batch != null)
+        {
+            this.writeBatch();
+        }
+    }
+
+    /**
+     * Writes the gathered records, stops the flush thread and closes the channel.
+     */
+    @Override
+    public void close()
+    {
+        this.closed = true;
+        if(this.flusher != null)
+        {
+            this.flusher.interrupt();
+        }
+        synchronized(this)
+        {
+            this.flush();
+            try
+            {
+                this.closeChannel();
+            }
+            catch(IOException e)
+            {
+                this.lastError = e;
+            }
+        }
+    }
+
+    /**
+     * Closes the channel, called once by {@link #close()} after the last write.
+     */
+    protected void closeChannel() throws IOException
+    {
+        this.channel.close();
+    }
+
+    /**
+     * Write the batch and start a new one, under the lock
+     */
+    private void writeBatch()
+    {
+        if(this.batch.position() > 0)
+        {
+            this.batch.flip();
+            this.writeFully(this.batch);
+            this.batch.clear();
+        }
+    }
+
+    /**
+     * Write all bytes of the buffer, under the lock
+     */
+    private void writeFully(ByteBuffer buffer)
+    {
+        try
+        {
+            while(buffer.hasRemaining())
+            {
+                this.channel.write(buffer);
+            }
+        }
+        catch(IOException e)
+        {
+            this.lastError = e;
+        }
+    }
+
+    /**
+     * Start the daemon thread that writes batches nobody else wrote in time
+     */
+    private Thread startFlusher(final long delayMillis)
+    {
+        Thread thread = new Thread("ChannelSink")
+        {
+            @Override
+            public void run()
+            {
+                while(!ChannelSink.this.closed)
+                {
+                    try
+                    {
+                        Thread.sleep(delayMillis);
+                    }
+                    catch(InterruptedException e)
+                    {
+                        return;
+                    }
+                    ChannelSink.this.flush();
+                }
+            }
+        };
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+}
@@ -0,0 +1,22 @@
+package com.nomad5.log.Handler.Sink;
+
+import com.nomad5.log.Handler.LogEvent;
+import com.nomad5.log.Handler.PatternHandler;
+
+/**
+ * A sink that stores events unrendered.
+ *
+ * A {@link PatternHandler} passes its events to such a sink instead of
+ * rendering them, the sink keeps what is needed to render them later with
+ * the patterns of the handler.
+ */
+public interface EventSink extends Sink
+{
+    /**
+     * Writes an event that the handler would have rendered.
+     *
+     * @param handler the handler, its patterns render the event.
+     * @param event   the event, it is only valid during the call.
+     */
+    public void write(PatternHandler handler, LogEvent event);
+}
@@ -0,0 +1,43 @@
+package com.nomad5.log.Handler.Sink;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * Appends records as lines to a file through its file channel.
+ */
+public class FileSink extends ChannelSink
+{
+    private final File file;
+
+    /**
+     * Creates a sink that appends to the file, creating it if needed.
+     *
+     * @throws IOException if the file can not be opened.
+     */
+    public FileSink(File file) throws IOException
+    {
+        this(file, 0, 0);
+    }
+
+    /**
+     * Creates a sink that gathers records before appending them to the file,
+     * see {@link ChannelSink#ChannelSink(java.nio.channels.WritableByteChannel, int, long)}.
+     *
+     * @throws IOException if the file can not be opened.
+     */
+    public FileSink(File file, int batchSize, long delayMillis) throws IOException
+    {
+        super(new FileOutputStream(file, true).getChannel(), batchSize, delayMillis);
+        this.file = file;
+    }
+
+    /**
+     * Returns the file of this sink.
+     */
+    public File getFile()
+    {
+        return this.file;
+    }
+}
@@ -0,0 +1,66 @@
+package com.nomad5.log.Handler.Sink;
+
+import com.nomad5.log.Logger;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * Encodes records as UTF-8 lines in the brief format of logcat, {@code D/tag: message}.
+ *
+ * The characters are copied from the render buffer into a reused char buffer
+ * and encoded into a reused byte buffer, so encoding a record does not create
+ * strings. An encoder is not thread-safe.
+ */
+final class LineEncoder
+{
+    private static final int INITIAL_SIZE = 1024;
+
+    private final CharsetEncoder encoder = Charset.forName("UTF-8").newEncoder()
+                                                  .onMalformedInput(CodingErrorAction.REPLACE)
+                                                  .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private CharBuffer chars = CharBuffer.allocate(INITIAL_SIZE);
+    private ByteBuffer bytes = ByteBuffer.allocate(INITIAL_SIZE * 3);
+
+    /**
+     * Encode the record, the returned buffer is valid until the next call.
+     */
+    ByteBuffer encode(Logger.Level level, String tag, CharSequence message)
+    {
+        int length = tag.length() + message.length() + 5;
+        if(this.chars.capacity() < length)
+        {
+            int capacity = Math.max(length, this.chars.capacity() * 2);
+            this.chars = CharBuffer.allocate(capacity);
+            this.bytes = ByteBuffer.allocate((int) Math.ceil(capacity * this.encoder.maxBytesPerChar()));
+        }
+        CharBuffer line = this.chars;
+        line.clear();
+        line.put(level.name().charAt(0)).put('/').put(tag).put(": ");
+        if(message instanceof StringBuilder)
+        {
+            ((StringBuilder) message).getChars(0, message.length(), line.array(), line.position());
+            line.position(line.position() + message.length());
+        }
+        else
+        {
+            for(int i = 0; i < message.length(); i++)
+            {
+                line.put(message.charAt(i));
+            }
+        }
+        line.put('\n');
+        line.flip();
+
+        // the byte buffer holds the longest encoding of the char buffer, so it never overflows
+        this.bytes.clear();
+        this.encoder.reset();
+        this.encoder.encode(line, this.bytes, true);
+        this.encoder.flush(this.bytes);
+        this.bytes.flip();
+        return this.bytes;
+    }
+}
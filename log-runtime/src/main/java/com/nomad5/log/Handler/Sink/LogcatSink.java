@@ -0,0 +1,43 @@
+package com.nomad5.log.Handler.Sink;
+
+import android.util.Log;
+
+import com.nomad5.log.Logger;
+
+/**
+ * Writes records to the android log with {@link Log#println(int, String, String)}.
+ */
+public class LogcatSink implements Sink
+{
+    /**
+     * Returns true if the android log is available in this runtime.
+     */
+    public static boolean isAvailable()
+    {
+        try
+        {
+            Class.forName("android.util.Log");
+            return true;
+        }
+        catch(ClassNotFoundException e)
+        {
+            return false;
+        }
+    }
+
+    @Override
+    public void write(Logger.Level level, String tag, CharSequence message)
+    {
+        Log.println(level.intValue(), tag, message.toString());
+    }
+
+    @Override
+    public void flush()
+    {
+    }
+
+    @Override
+    public void close()
+    {
+    }
+}
@@ -0,0 +1,445 @@
+package com.nomad5.log.Handler.Sink;
+
+import com.nomad5.log.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Writes records as UTF-8 lines into memory mapped segment files.
+ *
+ * The segments are named after the file with an increasing sequence number,
+ * e.g. {@code app.log.1}, {@code app.log.2}. Every segment is mapped with its
+ * full size and the records are copied into the mapping, so writing a record
+ * is a memory copy. A new segment is started when the current one is full or
+ * older than the roll interval. Only the newest segments are retained.
+ *
+ * The pages of the mapping are written back by the operating system, and
+ * forced to the storage by a daemon thread once per flush interval instead
+ * of once per record. A finished segment is forced and cut to the length of
+ * its records. Segments that a killed process could not finish are cut when
+ * the next sink for the file is created.
+ *
+ * Records are encoded on the logging thread, only copying them into the
+ * mapping and rolling over is serialized. Errors do not reach the logging
+ * code, the last one is kept, see {@link #getLastError()}.
+ */
+public class MappedFileSink implements Sink
+{
+    public static final int DEFAULT_SEGMENT_SIZE = 1024 * 1024;
+    public static final int DEFAULT_RETAINED_SEGMENTS = 5;
+    public static final long DEFAULT_FLUSH_MILLIS = 1000;
+
+    /**
+     * A mapped segment file, its mapping is only written under the lock of the sink
+     */
+    private static final class Segment
+    {
+        private final File file;
+        private final RandomAccessFile randomAccessFile;
+        private final MappedByteBuffer buffer;
+        private final long startMillis;
+        // set under the lock of the segment once it is cut, it must not be forced afterwards
+        private boolean closed;
+
+        private Segment(File file, int size, long startMillis) throws IOException
+        {
+            this.file = file;
+            this.randomAccessFile = new RandomAccessFile(file, "rw");
+            try
+            {
+                this.buffer = this.randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+            }
+            catch(IOException e)
+            {
+                this.randomAccessFile.close();
+                throw e;
+            }
+            this.startMillis = startMillis;
+        }
+
+        /**
+         * Force the written records to the storage
+         */
+        private synchronized void force()
+        {
+            if(!this.closed)
+            {
+                this.buffer.force();
+            }
+        }
+
+        /**
+         * Force the records and cut the file to their length
+         */
+        private synchronized void close(int length) throws IOException
+        {
+            if(!this.closed)
+            {
+                this.buffer.force();
+                this.closed = true;
+                try
+                {
+                    this.randomAccessFile.getChannel().truncate(length);
+                }
+                finally
+                {
+                    this.randomAccessFile.close();
+                }
+            }
+        }
+    }
+
+    /**
+     * Encoders of the logging threads
+     */
+    private final ThreadLocal<LineEncoder> encoder = new ThreadLocal<LineEncoder>()
+    {
+        @Override
+        protected LineEncoder initialValue()
+        {
+            return new LineEncoder();
+        }
+    };
+
+    private final File file;
+    private final int segmentSize;
+    private final long rollMillis;
+    private final int retainedSegments;
+    private final long flushMillis;
+    private final Thread flusher;
+
+    private Segment segment;
+    private long sequence;
+    private volatile boolean closed;
+    private volatile IOException lastError;
+
+    /**
+     * Creates a sink with the default segment size, retention and flush interval
+     * that only rolls over when a segment is full.
+     *
+     * @throws IOException if the first segment can not be created.
+     */
+    public MappedFileSink(File file) throws IOException
+    {
+        this(file, DEFAULT_SEGMENT_SIZE, 0, DEFAULT_RETAINED_SEGMENTS, DEFAULT_FLUSH_MILLIS);
+    }
+
+    /**
+     * Creates a sink.
+     *
+     * @param file             the file, the segments are named after it.
+     * @param segmentSize      the size of a segment in bytes, longer records are cut at a character.
+     * @param rollMillis       the maximal age of a segment, or 0 to roll over only when it is full.
+     * @param retainedSegments the count of segments kept including the current one.
+     * @param flushMillis      the interval to force the current segment, or 0 to leave it to the system.
+     * @throws IOException if the first segment can not be created.
+     */
+    public MappedFileSink(File file, int segmentSize, long rollMillis, int retainedSegments, long flushMillis) throws IOException
+    {
+        if(segmentSize <= 0 || rollMillis < 0 || retainedSegments <= 0 || flushMillis < 0)
+        {
+            throw new IllegalArgumentException("invalid segment size, roll interval, retention or flush interval");
+        }
+        this.file = file.getAbsoluteFile();
+        this.segmentSize = segmentSize;
+        this.rollMillis = rollMillis;
+        this.retainedSegments = retainedSegments;
+        this.flushMillis = flushMillis;
+        // continue after the segments of a previous run, the ones it did not finish are still padded
+        List<Long> sequences = this.findSequences();
+        for(Long previous : sequences)
+        {
+            this.trim(new File(this.file.getPath() + "." + previous));
+        }
+        this.sequence = sequences.isEmpty() ? 0 : sequences.get(sequences.size() - 1);
+        synchronized(this)
+        {
+            this.segment = this.createSegment(System.currentTimeMillis());
+        }
+        this.flusher = flushMillis > 0 ? this.startFlusher() : null;
+    }
+
+    /**
+     * Returns the file the segments are named after.
+     */
+    public File getFile()
+    {
+        return this.file;
+    }
+
+    /**
+     * Returns the file of the current segment.
+     */
+    public synchronized File getSegmentFile()
+    {
+        return this.segment == null ? null : this.segment.file;
+    }
+
+    /**
+     * Returns the last error, or {@code null}.
+     */
+    public IOException getLastError()
+    {
+        return this.lastError;
+    }
+
+    @Override
+    public void write(Logger.Level level, String tag, CharSequence message)
+    {
+        if(this.closed)
+        {
+            return;
+        }
+        ByteBuffer line = this.encoder.get().encode(level, tag, message);
+        if(line.remaining() > this.segmentSize)
+        {
+            cut(line, this.segmentSize);
+        }
+        Segment finished = null;
+        synchronized(this)
+        {
+            Segment current = this.segment;
+            if(current == null)
+            {
+                return;
+            }
+            long now = System.currentTimeMillis();
+            if(current.buffer.remaining() < line.remaining()
+                       || (this.rollMillis > 0 && now - current.startMillis >= this.rollMillis))
+            {
+                try
+                {
+                    this.segment = this.createSegment(now);
+                    finished = current;
+                    current = this.segment;
+                }
+                catch(IOException e)
+                {
+                    this.lastError = e;
+                    // keep writing into the current segment while it has room
+                    if(current.buffer.remaining() < line.remaining())
+                    {
+                        return;
+                    }
+                }
+            }
+            current.buffer.put(line);
+        }
+        // no one writes to the finished segment anymore, cut it outside of the lock
+        if(finished != null)
+        {
+            this.finish(finished);
+        }
+    }
+
+    /**
+     * Forces the current segment to the storage.
+     */
+    @Override
+    public void flush()
+    {
+        Segment current;
+        synchronized(this)
+        {
+            current = this.segment;
+        }
+        if(current != null)
+        {
+            current.force();
+        }
+    }
+
+    /**
+     * Stops the flush thread and cuts the current segment, records written
+     * afterwards are dropped.
+     */
+    @Override
+    public void close()
+    {
+        this.closed = true;
+        if(this.flusher != null)
+        {
+            this.flusher.interrupt();
+        }
+        Segment current;
+        synchronized(this)
+        {
+            current = this.segment;
+            this.segment = null;
+        }
+        if(current != null)
+        {
+            this.finish(current);
+        }
+    }
+
+    /**
+     * Create the next segment and delete the segments beyond the retention, under the lock
+     */
+    private Segment createSegment(long now) throws IOException
+    {
+        this.sequence++;
+        Segment segment = new Segment(new File(this.file.getPath() + "." + this.sequence), this.segmentSize, now);
+        List<Long> sequences = this.findSequences();
+        for(int i = 0; i < sequences.size() - this.retainedSegments; i++)
+        {
+            File old = new File(this.file.getPath() + "." + sequences.get(i));
+            if(!old.delete())
+            {
+                this.lastError = new IOException("cannot delete " + old);
+            }
+        }
+        return segment;
+    }
+
+    /**
+     * Force a segment and cut it to the length of its records
+     */
+    private void finish(Segment segment)
+    {
+        try
+        {
+            segment.close(segment.buffer.position());
+        }
+        catch(IOException e)
+        {
+            this.lastError = e;
+        }
+    }
+
+    /**
+     * Cut a segment file of a previous run to the length of its records. A
+     * segment that was not finished is padded with zeros after the line break
+     * of its last record.
+     */
+    private void trim(File segmentFile)
+    {
+        try
+        {
+            RandomAccessFile randomAccessFile = new RandomAccessFile(segmentFile, "rw");
+            try
+            {
+                FileChannel channel = randomAccessFile.getChannel();
+                ByteBuffer block = ByteBuffer.allocate(4096);
+                long size = channel.size();
+                long length = size;
+                // search the last byte that is not zero, block by block from the end
+                while(length > 0)
+                {
+                    long start = Math.max(0, length - block.capacity());
+                    block.clear();
+                    block.limit((int) (length - start));
+                    while(block.hasRemaining() && channel.read(block, start + block.position()) >= 0)
+                    {
+                        // read the whole block
+                    }
+                    int end = block.position();
+                    while(end > 0 && block.get(end - 1) == 0)
+                    {
+                        end--;
+                    }
+                    if(end > 0)
+                    {
+                        length = start + end;
+                        break;
+                    }
+                    length = start;
+                }
+                if(length < size)
+                {
+                    channel.truncate(length);
+                }
+            }
+            finally
+            {
+                randomAccessFile.close();
+            }
+        }
+        catch(IOException e)
+        {
+            this.lastError = e;
+        }
+    }
+
+    /**
+     * Cut an encoded line to the size without splitting a character, it
+     * still ends with a line break
+     */
+    private static void cut(ByteBuffer line, int size)
+    {
+        int end = line.position() + size - 1;
+        // continuation bytes of UTF-8 are 10xxxxxx
+        while(end > line.position() && (line.get(end) & 0xC0) == 0x80)
+        {
+            end--;
+        }
+        line.put(end, (byte) '\n');
+        line.limit(end + 1);
+    }
+
+    /**
+     * Returns the sequence numbers of the existing segments, ascending
+     */
+    private List<Long> findSequences()
+    {
+        List<Long> sequences = new ArrayList<>();
+        String prefix = this.file.getName() + ".";
+        String[] names = this.file.getParentFile().list();
+        if(names != null)
+        {
+            for(String name : names)
+            {
+                if(name.startsWith(prefix) && name.length() > prefix.length())
+                {
+                    try
+                    {
+                        sequences.add(Long.parseLong(name.substring(prefix.length())));
+                    }
+                    catch(NumberFormatException e)
+                    {
+                        // not a segment
+                    }
+                }
+            }
+        }
+        Collections.sort(sequences);
+        return sequences;
+    }
+
+    /**
+     * Start the daemon thread that forces the current segment periodically
+     */
+    private Thread startFlusher()
+    {
+        Thread thread = new Thread("MappedFileSink")
+        {
+            @Override
+            public void run()
+            {
+                while(!MappedFileSink.this.closed)
+                {
+                    try
+                    {
+                        Thread.sleep(MappedFileSink.this.flushMillis);
+                    }
+                    catch(InterruptedException e)
+                    {
+                        return;
+                    }
+                    MappedFileSink.this.flush();
+                }
+            }
+        };
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+}
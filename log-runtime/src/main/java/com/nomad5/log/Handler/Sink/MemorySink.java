@@ -0,0 +1,81 @@
+package com.nomad5.log.Handler.Sink;
+
+import com.nomad5.log.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps the last records in memory, e.g. to attach them to a crash report.
+ *
+ * The records are kept in the brief format of logcat, {@code D/tag: message},
+ * in a ring of fixed size that overwrites the oldest record when it is full.
+ */
+public class MemorySink implements Sink
+{
+    private final String[] records;
+    // the total count of written records, the next one is stored at count % length
+    private long count;
+
+    /**
+     * Creates a sink that keeps the last records.
+     *
+     * @param capacity the count of records kept.
+     */
+    public MemorySink(int capacity)
+    {
+        if(capacity <= 0)
+        {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        this.records = new String[capacity];
+    }
+
+    @Override
+    public void write(Logger.Level level, String tag, CharSequence message)
+    {
+        StringBuilder record = new StringBuilder(tag.length() + message.length() + 4);
+        record.append(level.name().charAt(0)).append('/').append(tag).append(": ").append(message);
+        String string = record.toString();
+        synchronized(this)
+        {
+            this.records[(int) (this.count++ % this.records.length)] = string;
+        }
+    }
+
+    /**
+     * Returns the kept records, the oldest first.
+     */
+    public synchronized List<String> getRecords()
+    {
+        int size = (int) Math.min(this.count, this.records.length);
+        List<String> list = new ArrayList<>(size);
+        for(long i = this.count - size; i < this.count; i++)
+        {
+            list.add(this.records[(int) (i % this.records.length)]);
+        }
+        return list;
+    }
+
+    /**
+     * Drop all kept records.
+     */
+    public synchronized void clear()
+    {
+        for(int i = 0; i < this.records.length; i++)
+        {
+            this.records[i] = null;
+        }
+        this.count = 0;
+    }
+
+    @Override
+    public void flush()
+    {
+    }
+
+    @Override
+    public void close()
+    {
+    }
+}
@@ -0,0 +1,34 @@
+package com.nomad5.log.Handler.Sink;
+
+import com.nomad5.log.Logger;
+
+/**
+ * The output of a {@link com.nomad5.log.Handler.PatternHandler}.
+ *
+ * A sink receives every record that a handler rendered. The message is the
+ * render buffer of the handler and is only valid during the call, sinks that
+ * keep records have to copy it.
+ *
+ * Sinks are shared between handlers and threads and have to be thread-safe.
+ */
+public interface Sink
+{
+    /**
+     * Writes a rendered record.
+     *
+     * @param level   the level of the record.
+     * @param tag     the rendered tag.
+     * @param message the rendered message, including the stack trace of a throwable.
+     */
+    public void write(Logger.Level level, String tag, CharSequence message);
+
+    /**
+     * Writes out everything that is buffered by this sink.
+     */
+    public void flush();
+
+    /**
+     * Releases the resources of this sink, records written afterwards are dropped.
+     */
+    public void close();
+}
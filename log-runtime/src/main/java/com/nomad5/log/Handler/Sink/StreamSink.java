@@ -0,0 +1,53 @@
+package com.nomad5.log.Handler.Sink;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+
+/**
+ * Writes records as lines to an output stream such as {@link System#out}.
+ *
+ * Closing the sink flushes the stream but does not close it.
+ */
+public class StreamSink extends ChannelSink
+{
+    private final OutputStream stream;
+
+    /**
+     * Creates a sink that writes to the stream.
+     */
+    public StreamSink(OutputStream stream)
+    {
+        this(stream, 0, 0);
+    }
+
+    /**
+     * Creates a sink that gathers records before writing them to the stream,
+     * see {@link ChannelSink#ChannelSink(java.nio.channels.WritableByteChannel, int, long)}.
+     */
+    public StreamSink(OutputStream stream, int batchSize, long delayMillis)
+    {
+        super(Channels.newChannel(stream), batchSize, delayMillis);
+        this.stream = stream;
+    }
+
+    @Override
+    public synchronized void flush()
+    {
+        super.flush();
+        try
+        {
+            this.stream.flush();
+        }
+        catch(IOException e)
+        {
+            // the stream reports its own errors, e.g. PrintStream#checkError
+        }
+    }
+
+    @Override
+    protected void closeChannel()
+    {
+        // the stream is not ours, it was flushed by close
+    }
+}
@@ -0,0 +1,110 @@
+package com.nomad5.log;
+
+import com.nomad5.log.Handler.Handler;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Package segment trie over the configured handlers.
+ *
+ * Every configured logger name is split at '.' and '$' into segments and
+ * stored as a path in the tree, so finding the longest configured prefix of a
+ * logger name costs one map lookup per name segment instead of a scan over
+ * every configured key.
+ *
+ * The tree is immutable after construction and can be shared between threads.
+ */
+final class HandlerTree
+{
+    /**
+     * Tree node, children are keyed by segment including its leading separator.
+     * The first segment of a name is the part before its first separator, it
+     * is empty for the empty name and names that start with a separator.
+     */
+    private static final class Node
+    {
+        private final Map<String, Node> children = new HashMap<>();
+        private Handler handler;
+    }
+
+    private final Node root = new Node();
+
+    /**
+     * Build the tree from a handler map. The {@code null} key is the root handler.
+     */
+    HandlerTree(Map<String, Handler> handlerMap)
+    {
+        for(Map.Entry<String, Handler> entry : handlerMap.entrySet())
+        {
+            Node node = this.root;
+            String key = entry.getKey();
+            if(key != null)
+            {
+                for(int start = 0, end = nextSeparator(key, 0); ; start = end, end = nextSeparator(key, start + 1))
+                {
+                    String segment = key.substring(start, end);
+                    Node child = node.children.get(segment);
+                    if(child == null)
+                    {
+                        child = new Node();
+                        node.children.put(segment, child);
+                    }
+                    node = child;
+                    if(end == key.length())
+                    {
+                        break;
+                    }
+                }
+            }
+            node.handler = entry.getValue();
+        }
+    }
+
+    /**
+     * Returns the handler configured for the longest matching prefix of the
+     * name, the root handler if nothing matches, or {@code null} if no root
+     * handler is configured.
+     */
+    Handler find(String name)
+    {
+        Node node = this.root;
+        Handler handler = node.handler;
+        if(name != null)
+        {
+            for(int start = 0, end = nextSeparator(name, 0); ; start = end, end = nextSeparator(name, start + 1))
+            {
+                node = node.children.get(name.substring(start, end));
+                if(node == null)
+                {
+                    break;
+                }
+                if(node.handler != null)
+                {
+                    handler = node.handler;
+                }
+                if(end == name.length())
+                {
+                    break;
+                }
+            }
+        }
+        return handler;
+    }
+
+    /**
+     * Index of the next '.' or '$' at or after from, or the string length
+     */
+    private static int nextSeparator(String string, int from)
+    {
+        for(int i = from; i < string.length(); i++)
+        {
+            char c = string.charAt(i);
+            if(c == '.' || c == '$')
+            {
+                return i;
+            }
+        }
+        return string.length();
+    }
+}
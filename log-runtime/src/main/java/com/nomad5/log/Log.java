@@ -1,160 +1,417 @@
 package com.nomad5.log;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+import java.util.Properties;
+
 /**
  * This class simplifies usage of Android Logger for debugging purposes.
  *
  * This class gets logger using {@link LoggerManager#getLogger()} and
  * delegates calls to it.
+ *
+ * Levels below the minimum level of the build are never logged. The log
+ * plugin sets it per variant in 'log-level.properties' and removes the calls
+ * below it from the bytecode. The level constants are final, so the JIT
+ * removes code guarded by them where the plugin did not:
+ *
+ * if(Log.DEBUG) {
+ *     Log.d(this, "state %s", dumpState());
+ * }
+ *
+ * The 'Value' methods log a format with a single primitive value without
+ * boxing it, e.g. 'Log.dValue(this, "received %d bytes", count)'. They have
+ * names of their own, so calls with boxed values keep using the methods with
+ * arguments.
  */
 @SuppressWarnings("unused")
 public final class Log {
 
+    private static final String LEVEL_PROPERTIES_NAME = "log-level.properties";
+    private static final String CONF_MIN_LEVEL = "minLevel";
+    private static final Logger.Level MIN_LEVEL = loadMinLevel();
+
+    /**
+     * Is the level logged at all in this build
+     */
+    public static final boolean VERBOSE = isLoggable(Logger.Level.VERBOSE);
+    public static final boolean DEBUG = isLoggable(Logger.Level.DEBUG);
+    public static final boolean INFO = isLoggable(Logger.Level.INFO);
+    public static final boolean WARN = isLoggable(Logger.Level.WARN);
+    public static final boolean ERROR = isLoggable(Logger.Level.ERROR);
+    public static final boolean ASSERT = isLoggable(Logger.Level.ASSERT);
+
     private Log() {
         throw new UnsupportedOperationException();
     }
 
+    /**
+     * Returns the minimum level of the build.
+     */
+    public static Logger.Level getMinLevel() {
+        return MIN_LEVEL;
+    }
+
+    /**
+     * Is the level logged at all in this build, see the level constants.
+     */
+    public static boolean isLoggable(Logger.Level level) {
+        return level != null && MIN_LEVEL.includes(level);
+    }
+
+    /**
+     * Read the minimum level, it must not log since loggers depend on it
+     */
+    private static Logger.Level loadMinLevel() {
+        Properties properties = new Properties();
+        InputStream inputStream = Log.class.getClassLoader().getResourceAsStream(LEVEL_PROPERTIES_NAME);
+        try {
+            if(inputStream != null) {
+                try {
+                    properties.load(inputStream);
+                } finally {
+                    inputStream.close();
+                }
+            }
+            String level = properties.getProperty(CONF_MIN_LEVEL);
+            return level == null ? Logger.Level.VERBOSE : Logger.Level.valueOf(level.trim().toUpperCase(Locale.US));
+        } catch(IOException | IllegalArgumentException e) {
+            return Logger.Level.VERBOSE;
+        }
+    }
+
     public static boolean isEnabled(Object caller, Logger.Level level) {
-        return LoggerManager.getLogger(caller).isEnabled(level);
+        return isLoggable(level) && LoggerManager.getLogger(caller).isEnabled(level);
     }
 
     public static boolean isVerboseEnabled(Object caller) {
-        return LoggerManager.getLogger(caller).isVerboseEnabled();
+        return VERBOSE && LoggerManager.getLogger(caller).isVerboseEnabled();
     }
     public static boolean isDebugEnabled(Object caller) {
-        return LoggerManager.getLogger(caller).isDebugEnabled();
+        return DEBUG && LoggerManager.getLogger(caller).isDebugEnabled();
     }
     public static boolean isInfoEnabled(Object caller) {
-        return LoggerManager.getLogger(caller).isInfoEnabled();
+        return INFO && LoggerManager.getLogger(caller).isInfoEnabled();
     }
     public static boolean isWarnEnabled(Object caller) {
-        return LoggerManager.getLogger(caller).isWarnEnabled();
+        return WARN && LoggerManager.getLogger(caller).isWarnEnabled();
     }
     public static boolean isErrorEnabled(Object caller) {
-        return LoggerManager.getLogger(caller).isErrorEnabled();
+        return ERROR && LoggerManager.getLogger(caller).isErrorEnabled();
     }
     public static boolean isAssertEnabled(Object caller) {
-        return LoggerManager.getLogger(caller).isAssertEnabled();
+        return ASSERT && LoggerManager.getLogger(caller).isAssertEnabled();
     }
 
     public static void print(Logger.Level level, Object caller, Throwable throwable, String message) {
-        LoggerManager.getLogger(caller).print(level, caller, throwable, message);
+        if(isLoggable(level)) LoggerManager.getLogger(caller).print(level, caller, throwable, message);
     }
     public static void print(Logger.Level level, Object caller, Throwable throwable, String messageFormat, Object... args) {
-        LoggerManager.getLogger(caller).print(level, caller, throwable, messageFormat, args);
+        if(isLoggable(level)) LoggerManager.getLogger(caller).print(level, caller, throwable, messageFormat, args);
     }
 
     public static void v(Object caller, String message, Throwable throwable) {
-        LoggerManager.getLogger(caller).v(caller, message, throwable);
+        if(VERBOSE) LoggerManager.getLogger(caller).v(caller, message, throwable);
     }
     public static void d(Object caller, String message, Throwable throwable) {
-        LoggerManager.getLogger(caller).d(caller, message, throwable);
+        if(DEBUG) LoggerManager.getLogger(caller).d(caller, message, throwable);
     }
     public static void i(Object caller, String message, Throwable throwable) {
-        LoggerManager.getLogger(caller).i(caller, message, throwable);
+        if(INFO) LoggerManager.getLogger(caller).i(caller, message, throwable);
     }
     public static void w(Object caller, String message, Throwable throwable) {
-        LoggerManager.getLogger(caller).w(caller, message, throwable);
+        if(WARN) LoggerManager.getLogger(caller).w(caller, message, throwable);
     }
     public static void e(Object caller, String message, Throwable throwable) {
-        LoggerManager.getLogger(caller).e(caller, message, throwable);
+        if(ERROR) LoggerManager.getLogger(caller).e(caller, message, throwable);
     }
     public static void a(Object caller, String message, Throwable throwable) {
-        LoggerManager.getLogger(caller).a(caller, message, throwable);
+        if(ASSERT) LoggerManager.getLogger(caller).a(caller, message, throwable);
     }
 
     public static void v(Object caller, Throwable throwable) {
-        LoggerManager.getLogger(caller).v(caller, throwable);
+        if(VERBOSE) LoggerManager.getLogger(caller).v(caller, throwable);
     }
     public static void d(Object caller, Throwable throwable) {
-        LoggerManager.getLogger(caller).d(caller, throwable);
+        if(DEBUG) LoggerManager.getLogger(caller).d(caller, throwable);
     }
     public static void i(Object caller, Throwable throwable) {
-        LoggerManager.getLogger(caller).i(caller, throwable);
+        if(INFO) LoggerManager.getLogger(caller).i(caller, throwable);
     }
     public static void w(Object caller, Throwable throwable) {
-        LoggerManager.getLogger(caller).w(caller, throwable);
+        if(WARN) LoggerManager.getLogger(caller).w(caller, throwable);
     }
     public static void e(Object caller, Throwable throwable) {
-        LoggerManager.getLogger(caller).e(caller, throwable);
+        if(ERROR) LoggerManager.getLogger(caller).e(caller, throwable);
     }
     public static void a(Object caller, Throwable throwable) {
-        LoggerManager.getLogger(caller).a(caller, throwable);
+        if(ASSERT) LoggerManager.getLogger(caller).a(caller, throwable);
     }
 
     public static void v(Object caller, Throwable throwable, String messageFormat, Object... args) {
-        LoggerManager.getLogger(caller).v(caller, throwable, messageFormat, args);
+        if(VERBOSE) LoggerManager.getLogger(caller).v(caller, throwable, messageFormat, args);
     }
     public static void d(Object caller, Throwable throwable, String messageFormat, Object... args) {
-        LoggerManager.getLogger(caller).d(caller, throwable, messageFormat, args);
+        if(DEBUG) LoggerManager.getLogger(caller).d(caller, throwable, messageFormat, args);
     }
     public static void i(Object caller, Throwable throwable, String messageFormat, Object... args) {
-        LoggerManager.getLogger(caller).i(caller, throwable, messageFormat, args);
+        if(INFO) LoggerManager.getLogger(caller).i(caller, throwable, messageFormat, args);
     }
     public static void w(Object caller, Throwable throwable, String messageFormat, Object... args) {
-        LoggerManager.getLogger(caller).w(caller, throwable, messageFormat, args);
+        if(WARN) LoggerManager.getLogger(caller).w(caller, throwable, messageFormat, args);
     }
     public static void e(Object caller, Throwable throwable, String messageFormat, Object... args) {
-        LoggerManager.getLogger(caller).e(caller, throwable, messageFormat, args);
+        if(ERROR) LoggerManager.getLogger(caller).e(caller, throwable, messageFormat, args);
     }
     public static void a(Object caller, Throwable throwable, String messageFormat, Object... args) {
-        LoggerManager.getLogger(caller).a(caller, throwable, messageFormat, args);
+        if(ASSERT) LoggerManager.getLogger(caller).a(caller, throwable, messageFormat, args);
     }
 
     public static void v(Object caller, Throwable throwable, String message) {
-        LoggerManager.getLogger(caller).v(caller, throwable, message);
+        if(VERBOSE) LoggerManager.getLogger(caller).v(caller, throwable, message);
     }
     public static void d(Object caller, Throwable throwable, String message) {
-        LoggerManager.getLogger(caller).d(caller, throwable, message);
+        if(DEBUG) LoggerManager.getLogger(caller).d(caller, throwable, message);
     }
     public static void i(Object caller, Throwable throwable, String message) {
-        LoggerManager.getLogger(caller).i(caller, throwable, message);
+        if(INFO) LoggerManager.getLogger(caller).i(caller, throwable, message);
     }
     public static void w(Object caller, Throwable throwable, String message) {
-        LoggerManager.getLogger(caller).w(caller, throwable, message);
+        if(WARN) LoggerManager.getLogger(caller).w(caller, throwable, message);
     }
     public static void e(Object caller, Throwable throwable, String message) {
-        LoggerManager.getLogger(caller).e(caller, throwable, message);
+        if(ERROR) LoggerManager.getLogger(caller).e(caller, throwable, message);
     }
     public static void a(Object caller, Throwable throwable, String message) {
-        LoggerManager.getLogger(caller).a(caller, throwable, message);
+        if(ASSERT) LoggerManager.getLogger(caller).a(caller, throwable, message);
     }
 
     public static void v(Object caller, String messageFormat, Object... args) {
-        LoggerManager.getLogger(caller).v(caller, messageFormat, args);
+        if(VERBOSE) LoggerManager.getLogger(caller).v(caller, messageFormat, args);
     }
     public static void d(Object caller, String messageFormat, Object... args) {
-        LoggerManager.getLogger(caller).d(caller, messageFormat, args);
+        if(DEBUG) LoggerManager.getLogger(caller).d(caller, messageFormat, args);
     }
     public static void i(Object caller, String messageFormat, Object... args) {
-        LoggerManager.getLogger(caller).i(caller, messageFormat, args);
+        if(INFO) LoggerManager.getLogger(caller).i(caller, messageFormat, args);
     }
     public static void w(Object caller, String messageFormat, Object... args) {
-        LoggerManager.getLogger(caller).w(caller, messageFormat, args);
+        if(WARN) LoggerManager.getLogger(caller).w(caller, messageFormat, args);
     }
     public static void e(Object caller, String messageFormat, Object... args) {
-        LoggerManager.getLogger(caller).e(caller, messageFormat, args);
+        if(ERROR) LoggerManager.getLogger(caller).e(caller, messageFormat, args);
     }
     public static void a(Object caller, String messageFormat, Object... args) {
-        LoggerManager.getLogger(caller).a(caller, messageFormat, args);
+        if(ASSERT) LoggerManager.getLogger(caller).a(caller, messageFormat, args);
+    }
+
+    public static void vValue(Object caller, String messageFormat, int arg) {
+        if(VERBOSE) LoggerManager.getSimpleLogger(caller).vValue(caller, messageFormat, arg);
+    }
+    public static void dValue(Object caller, String messageFormat, int arg) {
+        if(DEBUG) LoggerManager.getSimpleLogger(caller).dValue(caller, messageFormat, arg);
+    }
+    public static void iValue(Object caller, String messageFormat, int arg) {
+        if(INFO) LoggerManager.getSimpleLogger(caller).iValue(caller, messageFormat, arg);
+    }
+    public static void wValue(Object caller, String messageFormat, int arg) {
+        if(WARN) LoggerManager.getSimpleLogger(caller).wValue(caller, messageFormat, arg);
+    }
+    public static void eValue(Object caller, String messageFormat, int arg) {
+        if(ERROR) LoggerManager.getSimpleLogger(caller).eValue(caller, messageFormat, arg);
+    }
+    public static void aValue(Object caller, String messageFormat, int arg) {
+        if(ASSERT) LoggerManager.getSimpleLogger(caller).aValue(caller, messageFormat, arg);
+    }
+
+    public static void vValue(Object caller, String messageFormat, long arg) {
+        if(VERBOSE) LoggerManager.getSimpleLogger(caller).vValue(caller, messageFormat, arg);
+    }
+    public static void dValue(Object caller, String messageFormat, long arg) {
+        if(DEBUG) LoggerManager.getSimpleLogger(caller).dValue(caller, messageFormat, arg);
+    }
+    public static void iValue(Object caller, String messageFormat, long arg) {
+        if(INFO) LoggerManager.getSimpleLogger(caller).iValue(caller, messageFormat, arg);
+    }
+    public static void wValue(Object caller, String messageFormat, long arg) {
+        if(WARN) LoggerManager.getSimpleLogger(caller).wValue(caller, messageFormat, arg);
+    }
+    public static void eValue(Object caller, String messageFormat, long arg) {
+        if(ERROR) LoggerManager.getSimpleLogger(caller).eValue(caller, messageFormat, arg);
+    }
+    public static void aValue(Object caller, String messageFormat, long arg) {
+        if(ASSERT) LoggerManager.getSimpleLogger(caller).aValue(caller, messageFormat, arg);
+    }
+
+    public static void vValue(Object caller, String messageFormat, double arg) {
+        if(VERBOSE) LoggerManager.getSimpleLogger(caller).vValue(caller, messageFormat, arg);
+    }
+    public static void dValue(Object caller, String messageFormat, double arg) {
+        if(DEBUG) LoggerManager.getSimpleLogger(caller).dValue(caller, messageFormat, arg);
+    }
+    public static void iValue(Object caller, String messageFormat, double arg) {
+        if(INFO) LoggerManager.getSimpleLogger(caller).iValue(caller, messageFormat, arg);
+    }
+    public static void wValue(Object caller, String messageFormat, double arg) {
+        if(WARN) LoggerManager.getSimpleLogger(caller).wValue(caller, messageFormat, arg);
+    }
+    public static void eValue(Object caller, String messageFormat, double arg) {
+        if(ERROR) LoggerManager.getSimpleLogger(caller).eValue(caller, messageFormat, arg);
+    }
+    public static void aValue(Object caller, String messageFormat, double arg) {
+        if(ASSERT) LoggerManager.getSimpleLogger(caller).aValue(caller, messageFormat, arg);
+    }
+
+    public static void vValue(Object caller, String messageFormat, boolean arg) {
+        if(VERBOSE) LoggerManager.getSimpleLogger(caller).vValue(caller, messageFormat, arg);
+    }
+    public static void dValue(Object caller, String messageFormat, boolean arg) {
+        if(DEBUG) LoggerManager.getSimpleLogger(caller).dValue(caller, messageFormat, arg);
+    }
+    public static void iValue(Object caller, String messageFormat, boolean arg) {
+        if(INFO) LoggerManager.getSimpleLogger(caller).iValue(caller, messageFormat, arg);
+    }
+    public static void wValue(Object caller, String messageFormat, boolean arg) {
+        if(WARN) LoggerManager.getSimpleLogger(caller).wValue(caller, messageFormat, arg);
+    }
+    public static void eValue(Object caller, String messageFormat, boolean arg) {
+        if(ERROR) LoggerManager.getSimpleLogger(caller).eValue(caller, messageFormat, arg);
+    }
+    public static void aValue(Object caller, String messageFormat, boolean arg) {
+        if(ASSERT) LoggerManager.getSimpleLogger(caller).aValue(caller, messageFormat, arg);
+    }
+
+    public static void vValue(Object caller, String messageFormat, char arg) {
+        if(VERBOSE) LoggerManager.getSimpleLogger(caller).vValue(caller, messageFormat, arg);
+    }
+    public static void dValue(Object caller, String messageFormat, char arg) {
+        if(DEBUG) LoggerManager.getSimpleLogger(caller).dValue(caller, messageFormat, arg);
+    }
+    public static void iValue(Object caller, String messageFormat, char arg) {
+        if(INFO) LoggerManager.getSimpleLogger(caller).iValue(caller, messageFormat, arg);
+    }
+    public static void wValue(Object caller, String messageFormat, char arg) {
+        if(WARN) LoggerManager.getSimpleLogger(caller).wValue(caller, messageFormat, arg);
+    }
+    public static void eValue(Object caller, String messageFormat, char arg) {
+        if(ERROR) LoggerManager.getSimpleLogger(caller).eValue(caller, messageFormat, arg);
+    }
+    public static void aValue(Object caller, String messageFormat, char arg) {
+        if(ASSERT) LoggerManager.getSimpleLogger(caller).aValue(caller, messageFormat, arg);
+    }
+
+    public static void vValue(Object caller, String messageFormat, float arg) {
+        if(VERBOSE) LoggerManager.getSimpleLogger(caller).vValue(caller, messageFormat, arg);
+    }
+    public static void dValue(Object caller, String messageFormat, float arg) {
+        if(DEBUG) LoggerManager.getSimpleLogger(caller).dValue(caller, messageFormat, arg);
+    }
+    public static void iValue(Object caller, String messageFormat, float arg) {
+        if(INFO) LoggerManager.getSimpleLogger(caller).iValue(caller, messageFormat, arg);
+    }
+    public static void wValue(Object caller, String messageFormat, float arg) {
+        if(WARN) LoggerManager.getSimpleLogger(caller).wValue(caller, messageFormat, arg);
+    }
+    public static void eValue(Object caller, String messageFormat, float arg) {
+        if(ERROR) LoggerManager.getSimpleLogger(caller).eValue(caller, messageFormat, arg);
+    }
+    public static void aValue(Object caller, String messageFormat, float arg) {
+        if(ASSERT) LoggerManager.getSimpleLogger(caller).aValue(caller, messageFormat, arg);
+    }
+
+    public static void vValue(Object caller, String messageFormat, byte arg) {
+        if(VERBOSE) LoggerManager.getSimpleLogger(caller).vValue(caller, messageFormat, arg);
+    }
+    public static void dValue(Object caller, String messageFormat, byte arg) {
+        if(DEBUG) LoggerManager.getSimpleLogger(caller).dValue(caller, messageFormat, arg);
+    }
+    public static void iValue(Object caller, String messageFormat, byte arg) {
+        if(INFO) LoggerManager.getSimpleLogger(caller).iValue(caller, messageFormat, arg);
+    }
+    public static void wValue(Object caller, String messageFormat, byte arg) {
+        if(WARN) LoggerManager.getSimpleLogger(caller).wValue(caller, messageFormat, arg);
+    }
+    public static void eValue(Object caller, String messageFormat, byte arg) {
+        if(ERROR) LoggerManager.getSimpleLogger(caller).eValue(caller, messageFormat, arg);
+    }
+    public static void aValue(Object caller, String messageFormat, byte arg) {
+        if(ASSERT) LoggerManager.getSimpleLogger(caller).aValue(caller, messageFormat, arg);
+    }
+
+    public static void vValue(Object caller, String messageFormat, short arg) {
+        if(VERBOSE) LoggerManager.getSimpleLogger(caller).vValue(caller, messageFormat, arg);
+    }
+    public static void dValue(Object caller, String messageFormat, short arg) {
+        if(DEBUG) LoggerManager.getSimpleLogger(caller).dValue(caller, messageFormat, arg);
+    }
+    public static void iValue(Object caller, String messageFormat, short arg) {
+        if(INFO) LoggerManager.getSimpleLogger(caller).iValue(caller, messageFormat, arg);
+    }
+    public static void wValue(Object caller, String messageFormat, short arg) {
+        if(WARN) LoggerManager.getSimpleLogger(caller).wValue(caller, messageFormat, arg);
+    }
+    public static void eValue(Object caller, String messageFormat, short arg) {
+        if(ERROR) LoggerManager.getSimpleLogger(caller).eValue(caller, messageFormat, arg);
+    }
+    public static void aValue(Object caller, String messageFormat, short arg) {
+        if(ASSERT) LoggerManager.getSimpleLogger(caller).aValue(caller, messageFormat, arg);
     }
 
     public static void v(Object caller, String message) {
-        LoggerManager.getLogger(caller).v(caller, message);
+        if(VERBOSE) LoggerManager.getLogger(caller).v(caller, message);
     }
     public static void d(Object caller, String message) {
-        LoggerManager.getLogger(caller).d(caller, message);
+        if(DEBUG) LoggerManager.getLogger(caller).d(caller, message);
     }
     public static void i(Object caller, String message) {
-        LoggerManager.getLogger(caller).i(caller, message);
+        if(INFO) LoggerManager.getLogger(caller).i(caller, message);
     }
     public static void w(Object caller, String message) {
-        LoggerManager.getLogger(caller).w(caller, message);
+        if(WARN) LoggerManager.getLogger(caller).w(caller, message);
     }
     public static void e(Object caller, String message) {
-        LoggerManager.getLogger(caller).e(caller, message);
+        if(ERROR) LoggerManager.getLogger(caller).e(caller, message);
     }
     public static void a(Object caller, String message) {
-        LoggerManager.getLogger(caller).a(caller, message);
+        if(ASSERT) LoggerManager.getLogger(caller).a(caller, message);
+    }
+
+    public static void v(Object caller, Logger.MessageSupplier supplier) {
+        if(VERBOSE) LoggerManager.getSimpleLogger(caller).v(caller, supplier);
+    }
+    public static void d(Object caller, Logger.MessageSupplier supplier) {
+        if(DEBUG) LoggerManager.getSimpleLogger(caller).d(caller, supplier);
+    }
+    public static void i(Object caller, Logger.MessageSupplier supplier) {
+        if(INFO) LoggerManager.getSimpleLogger(caller).i(caller, supplier);
+    }
+    public static void w(Object caller, Logger.MessageSupplier supplier) {
+        if(WARN) LoggerManager.getSimpleLogger(caller).w(caller, supplier);
+    }
+    public static void e(Object caller, Logger.MessageSupplier supplier) {
+        if(ERROR) LoggerManager.getSimpleLogger(caller).e(caller, supplier);
+    }
+    public static void a(Object caller, Logger.MessageSupplier supplier) {
+        if(ASSERT) LoggerManager.getSimpleLogger(caller).a(caller, supplier);
     }
 
+    public static void v(Object caller, Throwable throwable, Logger.MessageSupplier supplier) {
+        if(VERBOSE) LoggerManager.getSimpleLogger(caller).v(caller, throwable, supplier);
+    }
+    public static void d(Object caller, Throwable throwable, Logger.MessageSupplier supplier) {
+        if(DEBUG) LoggerManager.getSimpleLogger(caller).d(caller, throwable, supplier);
+    }
+    public static void i(Object caller, Throwable throwable, Logger.MessageSupplier supplier) {
+        if(INFO) LoggerManager.getSimpleLogger(caller).i(caller, throwable, supplier);
+    }
+    public static void w(Object caller, Throwable throwable, Logger.MessageSupplier supplier) {
+        if(WARN) LoggerManager.getSimpleLogger(caller).w(caller, throwable, supplier);
+    }
+    public static void e(Object caller, Throwable throwable, Logger.MessageSupplier supplier) {
+        if(ERROR) LoggerManager.getSimpleLogger(caller).e(caller, throwable, supplier);
+    }
+    public static void a(Object caller, Throwable throwable, Logger.MessageSupplier supplier) {
+        if(ASSERT) LoggerManager.getSimpleLogger(caller).a(caller, throwable, supplier);
+    }
 }
@@ -38,6 +38,14 @@ public interface Logger {
 
     }
 
+    /**
+     * Supplies a message that is only built when it is logged.
+     */
+    public static interface MessageSupplier
+    {
+        public String get();
+    }
+
     /**
      * Get name of the logger
      */
@@ -60,6 +60,89 @@ public abstract class AbstractLogger implements Logger
         return this.isEnabled(Level.ASSERT);
     }
 
+    /**
+     * Print a message with a single int argument. The argument is boxed,
+     * loggers that can print it unboxed override this.
+     */
+    protected void printValue(Level level, Object caller, Throwable throwable, String messageFormat, int arg)
+    {
+        this.print(level, caller, throwable, messageFormat, new Object[] {arg});
+    }
+
+    /**
+     * Print a message with a single long argument. The argument is boxed,
+     * loggers that can print it unboxed override this.
+     */
+    protected void printValue(Level level, Object caller, Throwable throwable, String messageFormat, long arg)
+    {
+        this.print(level, caller, throwable, messageFormat, new Object[] {arg});
+    }
+
+    /**
+     * Print a message with a single double argument. The argument is boxed,
+     * loggers that can print it unboxed override this.
+     */
+    protected void printValue(Level level, Object caller, Throwable throwable, String messageFormat, double arg)
+    {
+        this.print(level, caller, throwable, messageFormat, new Object[] {arg});
+    }
+
+    /**
+     * Print a message with a single boolean argument. The argument is boxed,
+     * loggers that can print it unboxed override this.
+     */
+    protected void printValue(Level level, Object caller, Throwable throwable, String messageFormat, boolean arg)
+    {
+        this.print(level, caller, throwable, messageFormat, new Object[] {arg});
+    }
+
+    /**
+     * Print a message with a single char argument. The argument is boxed,
+     * loggers that can print it unboxed override this.
+     */
+    protected void printValue(Level level, Object caller, Throwable throwable, String messageFormat, char arg)
+    {
+        this.print(level, caller, throwable, messageFormat, new Object[] {arg});
+    }
+
+    /**
+     * Print a message with a single float argument. The argument is boxed,
+     * loggers that can print it unboxed override this.
+     */
+    protected void printValue(Level level, Object caller, Throwable throwable, String messageFormat, float arg)
+    {
+        this.print(level, caller, throwable, messageFormat, new Object[] {arg});
+    }
+
+    /**
+     * Print a message with a single byte argument. The argument is boxed,
+     * loggers that can print it unboxed override this.
+     */
+    protected void printValue(Level level, Object caller, Throwable throwable, String messageFormat, byte arg)
+    {
+        this.print(level, caller, throwable, messageFormat, new Object[] {arg});
+    }
+
+    /**
+     * Print a message with a single short argument. The argument is boxed,
+     * loggers that can print it unboxed override this.
+     */
+    protected void printValue(Level level, Object caller, Throwable throwable, String messageFormat, short arg)
+    {
+        this.print(level, caller, throwable, messageFormat, new Object[] {arg});
+    }
+
+    /**
+     * Print a message of a supplier, which only runs if the level is enabled.
+     */
+    protected void printSupplied(Level level, Object caller, Throwable throwable, MessageSupplier supplier)
+    {
+        if(this.isEnabled(level))
+        {
+            this.print(level, caller, throwable, supplier.get());
+        }
+    }
+
     @Override
     public void v(Object caller, String message, Throwable throwable)
     {
@@ -240,6 +323,252 @@ public abstract class AbstractLogger implements Logger
         this.print(Level.ASSERT, caller, null, messageFormat, args);
     }
 
+    /**
+     * Logging with caller, format string and a single primitive value, the
+     * value is not boxed by loggers that support it. The methods have names of
+     * their own, so a call with a boxed value or a byte still formats it as
+     * one of the arguments of {@link #d(Object, String, Object...)}.
+     */
+    public void vValue(Object caller, String messageFormat, int arg)
+    {
+        this.printValue(Level.VERBOSE, caller, null, messageFormat, arg);
+    }
+
+    public void dValue(Object caller, String messageFormat, int arg)
+    {
+        this.printValue(Level.DEBUG, caller, null, messageFormat, arg);
+    }
+
+    public void iValue(Object caller, String messageFormat, int arg)
+    {
+        this.printValue(Level.INFO, caller, null, messageFormat, arg);
+    }
+
+    public void wValue(Object caller, String messageFormat, int arg)
+    {
+        this.printValue(Level.WARN, caller, null, messageFormat, arg);
+    }
+
+    public void eValue(Object caller, String messageFormat, int arg)
+    {
+        this.printValue(Level.ERROR, caller, null, messageFormat, arg);
+    }
+
+    public void aValue(Object caller, String messageFormat, int arg)
+    {
+        this.printValue(Level.ASSERT, caller, null, messageFormat, arg);
+    }
+
+    public void vValue(Object caller, String messageFormat, long arg)
+    {
+        this.printValue(Level.VERBOSE, caller, null, messageFormat, arg);
+    }
+
+    public void dValue(Object caller, String messageFormat, long arg)
+    {
+        this.printValue(Level.DEBUG, caller, null, messageFormat, arg);
+    }
+
+    public void iValue(Object caller, String messageFormat, long arg)
+    {
+        this.printValue(Level.INFO, caller, null, messageFormat, arg);
+    }
+
+    public void wValue(Object caller, String messageFormat, long arg)
+    {
+        this.printValue(Level.WARN, caller, null, messageFormat, arg);
+    }
+
+    public void eValue(Object caller, String messageFormat, long arg)
+    {
+        this.printValue(Level.ERROR, caller, null, messageFormat, arg);
+    }
+
+    public void aValue(Object caller, String messageFormat, long arg)
+    {
+        this.printValue(Level.ASSERT, caller, null, messageFormat, arg);
+    }
+
+    public void vValue(Object caller, String messageFormat, double arg)
+    {
+        this.printValue(Level.VERBOSE, caller, null, messageFormat, arg);
+    }
+
+    public void dValue(Object caller, String messageFormat, double arg)
+    {
+        this.printValue(Level.DEBUG, caller, null, messageFormat, arg);
+    }
+
+    public void iValue(Object caller, String messageFormat, double arg)
+    {
+        this.printValue(Level.INFO, caller, null, messageFormat, arg);
+    }
+
+    public void wValue(Object caller, String messageFormat, double arg)
+    {
+        this.printValue(Level.WARN, caller, null, messageFormat, arg);
+    }
+
+    public void eValue(Object caller, String messageFormat, double arg)
+    {
+        this.printValue(Level.ERROR, caller, null, messageFormat, arg);
+    }
+
+    public void aValue(Object caller, String messageFormat, double arg)
+    {
+        this.printValue(Level.ASSERT, caller, null, messageFormat, arg);
+    }
+
+    public void vValue(Object caller, String messageFormat, boolean arg)
+    {
+        this.printValue(Level.VERBOSE, caller, null, messageFormat, arg);
+    }
+
+    public void dValue(Object caller, String messageFormat, boolean arg)
+    {
+        this.printValue(Level.DEBUG, caller, null, messageFormat, arg);
+    }
+
+    public void iValue(Object caller, String messageFormat, boolean arg)
+    {
+        this.printValue(Level.INFO, caller, null, messageFormat, arg);
+    }
+
+    public void wValue(Object caller, String messageFormat, boolean arg)
+    {
+        this.printValue(Level.WARN, caller, null, messageFormat, arg);
+    }
+
+    public void eValue(Object caller, String messageFormat, boolean arg)
+    {
+        this.printValue(Level.ERROR, caller, null, messageFormat, arg);
+    }
+
+    public void aValue(Object caller, String messageFormat, boolean arg)
+    {
+        this.printValue(Level.ASSERT, caller, null, messageFormat, arg);
+    }
+
+    public void vValue(Object caller, String messageFormat, char arg)
+    {
+        this.printValue(Level.VERBOSE, caller, null, messageFormat, arg);
+    }
+
+    public void dValue(Object caller, String messageFormat, char arg)
+    {
+        this.printValue(Level.DEBUG, caller, null, messageFormat, arg);
+    }
+
+    public void iValue(Object caller, String messageFormat, char arg)
+    {
+        this.printValue(Level.INFO, caller, null, messageFormat, arg);
+    }
+
+    public void wValue(Object caller, String messageFormat, char arg)
+    {
+        this.printValue(Level.WARN, caller, null, messageFormat, arg);
+    }
+
+    public void eValue(Object caller, String messageFormat, char arg)
+    {
+        this.printValue(Level.ERROR, caller, null, messageFormat, arg);
+    }
+
+    public void aValue(Object caller, String messageFormat, char arg)
+    {
+        this.printValue(Level.ASSERT, caller, null, messageFormat, arg);
+    }
+
+    public void vValue(Object caller, String messageFormat, float arg)
+    {
+        this.printValue(Level.VERBOSE, caller, null, messageFormat, arg);
+    }
+
+    public void dValue(Object caller, String messageFormat, float arg)
+    {
+        this.printValue(Level.DEBUG, caller, null, messageFormat, arg);
+    }
+
+    public void iValue(Object caller, String messageFormat, float arg)
+    {
+        this.printValue(Level.INFO, caller, null, messageFormat, arg);
+    }
+
+    public void wValue(Object caller, String messageFormat, float arg)
+    {
+        this.printValue(Level.WARN, caller, null, messageFormat, arg);
+    }
+
+    public void eValue(Object caller, String messageFormat, float arg)
+    {
+        this.printValue(Level.ERROR, caller, null, messageFormat, arg);
+    }
+
+    public void aValue(Object caller, String messageFormat, float arg)
+    {
+        this.printValue(Level.ASSERT, caller, null, messageFormat, arg);
+    }
+
+    public void vValue(Object caller, String messageFormat, byte arg)
+    {
+        this.printValue(Level.VERBOSE, caller, null, messageFormat, arg);
+    }
+
+    public void dValue(Object caller, String messageFormat, byte arg)
+    {
+        this.printValue(Level.DEBUG, caller, null, messageFormat, arg);
+    }
+
+    public void iValue(Object caller, String messageFormat, byte arg)
+    {
+        this.printValue(Level.INFO, caller, null, messageFormat, arg);
+    }
+
+    public void wValue(Object caller, String messageFormat, byte arg)
+    {
+        this.printValue(Level.WARN, caller, null, messageFormat, arg);
+    }
+
+    public void eValue(Object caller, String messageFormat, byte arg)
+    {
+        this.printValue(Level.ERROR, caller, null, messageFormat, arg);
+    }
+
+    public void aValue(Object caller, String messageFormat, byte arg)
+    {
+        this.printValue(Level.ASSERT, caller, null, messageFormat, arg);
+    }
+
+    public void vValue(Object caller, String messageFormat, short arg)
+    {
+        this.printValue(Level.VERBOSE, caller, null, messageFormat, arg);
+    }
+
+    public void dValue(Object caller, String messageFormat, short arg)
+    {
+        this.printValue(Level.DEBUG, caller, null, messageFormat, arg);
+    }
+
+    public void iValue(Object caller, String messageFormat, short arg)
+    {
+        this.printValue(Level.INFO, caller, null, messageFormat, arg);
+    }
+
+    public void wValue(Object caller, String messageFormat, short arg)
+    {
+        this.printValue(Level.WARN, caller, null, messageFormat, arg);
+    }
+
+    public void eValue(Object caller, String messageFormat, short arg)
+    {
+        this.printValue(Level.ERROR, caller, null, messageFormat, arg);
+    }
+
+    public void aValue(Object caller, String messageFormat, short arg)
+    {
+        this.printValue(Level.ASSERT, caller, null, messageFormat, arg);
+    }
+
     @Override
     public void v(Object caller, String message)
     {
@@ -276,4 +605,68 @@ public abstract class AbstractLogger implements Logger
         this.print(Level.ASSERT, caller, null, message);
     }
 
+    /**
+     * Logging with caller, and a throwable if given, and a message that is
+     * only built if the level is enabled. These are not on {@link Logger},
+     * so that its implementations need not supply them.
+     */
+    public void v(Object caller, MessageSupplier supplier)
+    {
+        this.printSupplied(Level.VERBOSE, caller, null, supplier);
+    }
+
+    public void d(Object caller, MessageSupplier supplier)
+    {
+        this.printSupplied(Level.DEBUG, caller, null, supplier);
+    }
+
+    public void i(Object caller, MessageSupplier supplier)
+    {
+        this.printSupplied(Level.INFO, caller, null, supplier);
+    }
+
+    public void w(Object caller, MessageSupplier supplier)
+    {
+        this.printSupplied(Level.WARN, caller, null, supplier);
+    }
+
+    public void e(Object caller, MessageSupplier supplier)
+    {
+        this.printSupplied(Level.ERROR, caller, null, supplier);
+    }
+
+    public void a(Object caller, MessageSupplier supplier)
+    {
+        this.printSupplied(Level.ASSERT, caller, null, supplier);
+    }
+
+    public void v(Object caller, Throwable throwable, MessageSupplier supplier)
+    {
+        this.printSupplied(Level.VERBOSE, caller, throwable, supplier);
+    }
+
+    public void d(Object caller, Throwable throwable, MessageSupplier supplier)
+    {
+        this.printSupplied(Level.DEBUG, caller, throwable, supplier);
+    }
+
+    public void i(Object caller, Throwable throwable, MessageSupplier supplier)
+    {
+        this.printSupplied(Level.INFO, caller, throwable, supplier);
+    }
+
+    public void w(Object caller, Throwable throwable, MessageSupplier supplier)
+    {
+        this.printSupplied(Level.WARN, caller, throwable, supplier);
+    }
+
+    public void e(Object caller, Throwable throwable, MessageSupplier supplier)
+    {
+        this.printSupplied(Level.ERROR, caller, throwable, supplier);
+    }
+
+    public void a(Object caller, Throwable throwable, MessageSupplier supplier)
+    {
+        this.printSupplied(Level.ASSERT, caller, throwable, supplier);
+    }
 }
@@ -1,16 +1,28 @@
 package com.nomad5.log.LoggerImpl;
 
+import com.nomad5.log.Handler.EventHandler;
 import com.nomad5.log.Handler.Handler;
+import com.nomad5.log.Handler.LogEvent;
+import com.nomad5.log.Log;
 import com.nomad5.log.Logger;
 
 /**
  * Simple implementation of {@link Logger} that prints all messages
  * using {@link Handler} interface.
+ *
+ * The handler can be replaced at runtime, every message is printed by either
+ * the previous or the new handler. Levels below the minimum level of the
+ * build, see {@link Log#isLoggable(Level)}, are never printed.
+ *
+ * A message with a single primitive argument is printed with the event of
+ * the logging thread and without boxing the argument, so it does not create
+ * objects as long as the handler is an {@link EventHandler} that does not.
+ * A message supplier runs only after the handler accepted the level.
  */
 public class SimpleLogger extends AbstractLogger
 {
 
-    private final Handler handler;
+    private volatile Handler handler;
 
     /**
      * Creates new {@link SimpleLogger} instance.
@@ -24,27 +36,149 @@ public class SimpleLogger extends AbstractLogger
         this.handler = handler;
     }
 
+    /**
+     * Returns the handler of this logger.
+     */
+    public Handler getHandler()
+    {
+        return this.handler;
+    }
+
+    /**
+     * Replaces the handler of this logger.
+     *
+     * @param handler the handler to log messages from now on.
+     */
+    public void setHandler(Handler handler)
+    {
+        this.handler = handler;
+    }
+
     @Override
     public boolean isEnabled(Level level)
     {
-        return this.handler != null && this.handler.isEnabled(level);
+        Handler handler = this.handler;
+        return handler != null && Log.isLoggable(level) && handler.isEnabled(level);
     }
 
     @Override
     public void print(Level level, Object caller, Throwable throwable, String message)
     {
-        if(this.handler != null)
+        Handler handler = this.handler;
+        if(handler != null && Log.isLoggable(level))
         {
-            this.handler.print(this.getName(), level, caller, throwable, message);
+            handler.print(this.getName(), level, caller, throwable, message);
         }
     }
 
     @Override
     public void print(Level level, Object caller, Throwable throwable, String messageFormat, Object... args)
     {
-        if(this.handler != null)
+        Handler handler = this.handler;
+        if(handler != null && Log.isLoggable(level))
+        {
+            handler.print(this.getName(), level, caller, throwable, messageFormat, args);
+        }
+    }
+
+    @Override
+    protected void printSupplied(Level level, Object caller, Throwable throwable, MessageSupplier supplier)
+    {
+        Handler handler = this.handler;
+        if(handler != null && Log.isLoggable(level) && handler.isEnabled(level))
+        {
+            handler.print(this.getName(), level, caller, throwable, supplier.get());
+        }
+    }
+
+    @Override
+    protected void printValue(Level level, Object caller, Throwable throwable, String messageFormat, int arg)
+    {
+        if(this.isEnabled(level))
+        {
+            this.print(LogEvent.obtain().set(this.getName(), level, caller, throwable, messageFormat, arg));
+        }
+    }
+
+    @Override
+    protected void printValue(Level level, Object caller, Throwable throwable, String messageFormat, long arg)
+    {
+        if(this.isEnabled(level))
+        {
+            this.print(LogEvent.obtain().set(this.getName(), level, caller, throwable, messageFormat, arg));
+        }
+    }
+
+    @Override
+    protected void printValue(Level level, Object caller, Throwable throwable, String messageFormat, double arg)
+    {
+        if(this.isEnabled(level))
+        {
+            this.print(LogEvent.obtain().set(this.getName(), level, caller, throwable, messageFormat, arg));
+        }
+    }
+
+    @Override
+    protected void printValue(Level level, Object caller, Throwable throwable, String messageFormat, boolean arg)
+    {
+        if(this.isEnabled(level))
+        {
+            this.print(LogEvent.obtain().set(this.getName(), level, caller, throwable, messageFormat, arg));
+        }
+    }
+
+    @Override
+    protected void printValue(Level level, Object caller, Throwable throwable, String messageFormat, char arg)
+    {
+        if(this.isEnabled(level))
+        {
+            this.print(LogEvent.obtain().set(this.getName(), level, caller, throwable, messageFormat, arg));
+        }
+    }
+
+    @Override
+    protected void printValue(Level level, Object caller, Throwable throwable, String messageFormat, float arg)
+    {
+        if(this.isEnabled(level))
+        {
+            this.print(LogEvent.obtain().set(this.getName(), level, caller, throwable, messageFormat, arg));
+        }
+    }
+
+    @Override
+    protected void printValue(Level level, Object caller, Throwable throwable, String messageFormat, byte arg)
+    {
+        if(this.isEnabled(level))
+        {
+            this.print(LogEvent.obtain().set(this.getName(), level, caller, throwable, messageFormat, arg));
+        }
+    }
+
+    @Override
+    protected void printValue(Level level, Object caller, Throwable throwable, String messageFormat, short arg)
+    {
+        if(this.isEnabled(level))
+        {
+            this.print(LogEvent.obtain().set(this.getName(), level, caller, throwable, messageFormat, arg));
+        }
+    }
+
+    /**
+     * Print an event of {@link LogEvent#obtain()} and give it back
+     */
+    private void print(LogEvent event)
+    {
+        try
+        {
+            Handler handler = this.handler;
+            if(handler != null)
+            {
+                event.printTo(handler);
+            }
+        }
+        finally
         {
-            this.handler.print(this.getName(), level, caller, throwable, messageFormat, args);
+            LogEvent.recycle(event);
         }
     }
 }
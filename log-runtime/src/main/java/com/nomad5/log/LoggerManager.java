@@ -1,20 +1,40 @@
 package com.nomad5.log;
 
+import com.nomad5.log.Annotation.CallSites;
+import com.nomad5.log.Annotation.Hugo;
+import com.nomad5.log.Annotation.MethodTracer;
 import com.nomad5.log.Handler.Handler;
 
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
-import java.util.WeakHashMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import com.nomad5.log.Handler.AsyncHandler;
 import com.nomad5.log.Handler.PatternHandler;
+import com.nomad5.log.Handler.RateLimitHandler;
+import com.nomad5.log.Handler.Sink.BinarySink;
+import com.nomad5.log.Handler.Sink.FileSink;
+import com.nomad5.log.Handler.Sink.LogcatSink;
+import com.nomad5.log.Handler.Sink.MappedFileSink;
+import com.nomad5.log.Handler.Sink.MemorySink;
+import com.nomad5.log.Handler.Sink.Sink;
+import com.nomad5.log.Handler.Sink.StreamSink;
 import com.nomad5.log.LoggerImpl.SimpleLogger;
 
 /**
@@ -41,10 +61,91 @@ import com.nomad5.log.LoggerImpl.SimpleLogger;
  * root=ERROR:MyApplication
  * logger.com.example.server=DEBUG:MyApplication-server
  *
+ * Messages are written to the android log, or to standard error where it is
+ * not available. Another {@link Sink} can be appended to the level with '@'.
+ * The sinks 'logcat', 'stdout' and 'stderr' always exist, others are
+ * declared with a name:
+ *
+ * # sink declaration, a 'file:&lt;path&gt;' or 'memory:&lt;record count&gt;'
+ * sink.&lt;name&gt;=&lt;type&gt;:&lt;parameter&gt;
+ * # lines of a file, 'stdout' or 'stderr' gathered in a batch of a size in bytes
+ * # (k and m suffixes) and written after a delay in milliseconds, see flush()
+ * sink.&lt;name&gt;=file:&lt;path&gt;[,batch=&lt;size&gt;][,delay=&lt;ms&gt;]
+ * sink.&lt;name&gt;=stdout:[batch=&lt;size&gt;][,delay=&lt;ms&gt;]
+ * # memory mapped segments of a size in bytes (k and m suffixes), rolled
+ * # after milliseconds, count of retained segments, flush interval in milliseconds
+ * sink.&lt;name&gt;=mapped:&lt;path&gt;[,size=&lt;size&gt;][,roll=&lt;ms&gt;][,keep=&lt;count&gt;][,flush=&lt;ms&gt;]
+ * # unrendered events in a binary file, see BinaryLogDecoder
+ * sink.&lt;name&gt;=binary:&lt;path&gt;
+ *
+ * sink.trace=file:/sdcard/trace.log
+ * sink.history=mapped:/sdcard/history.log,size=4m,roll=3600000,keep=10
+ * root=INFO@stdout:MyApplication
+ * logger.com.example.server=DEBUG@trace:MyApplication-server
+ *
+ * The messages of a logger can be limited per log site to a burst of
+ * messages per period, see {@link RateLimitHandler}:
+ *
+ * # 'root' or a name that has a logger configuration
+ * limit.&lt;package or class name&gt;=&lt;messages&gt;/&lt;ms&gt;
+ *
+ * limit.com.example.server=20/1000
+ *
+ * The 'debuglog.' keys configure the {@code @DebugLog} aspect, see
+ * {@link Hugo#configure(Properties)}.
+ *
+ * The configuration can be replaced at runtime with one of the
+ * {@code configure} methods. Loggers that were handed out before keep
+ * working and pick up their new handler, without any locking on the
+ * logging path.
  */
 @SuppressWarnings("unused")
 public final class LoggerManager
 {
+    /**
+     * Listener that is notified after the configuration was replaced
+     */
+    public interface ConfigurationListener
+    {
+        /**
+         * Called after all loggers were switched to the new handlers. The
+         * sinks and asynchronous handlers of the previous configuration that
+         * the new one does not use are closed by then, messages that were
+         * logged to them during the switch may be dropped.
+         *
+         * @param previous the previous handler map, {@code null} key is the root handler.
+         * @param current  the new handler map, {@code null} key is the root handler.
+         */
+        void onConfigurationChanged(Map<String, Handler> previous, Map<String, Handler> current);
+    }
+
+    /**
+     * An immutable configuration, replaced as a whole
+     */
+    private static final class Configuration
+    {
+        private final Map<String, Handler> handlerMap;
+        private final HandlerTree handlerTree;
+        // the sinks decoded from 'log.properties' by their definition
+        private final Map<String, Sink> sinkDefinitions;
+
+        private Configuration(Map<String, Handler> handlerMap, Map<String, Sink> sinkDefinitions)
+        {
+            this.handlerMap = Collections.unmodifiableMap(handlerMap);
+            this.handlerTree = new HandlerTree(this.handlerMap);
+            this.sinkDefinitions = sinkDefinitions;
+        }
+
+        /**
+         * Find log handler with specific name
+         */
+        private Handler findHandler(String name)
+        {
+            Handler handler = this.handlerTree.find(name);
+            return handler != null ? handler : DEFAULT_HANDLER;
+        }
+    }
+
     /**
      * Dummy constructor, not allowed most stuff is static
      */
@@ -56,7 +157,8 @@ public final class LoggerManager
     /**
      * The default handler and default logger
      */
-    private static final Handler DEFAULT_HANDLER    = new PatternHandler(Logger.Level.VERBOSE, "%logger", "%date %caller%n");
+    private static final Sink DEFAULT_SINK          = LogcatSink.isAvailable() ? new LogcatSink() : new StreamSink(System.err);
+    private static final Handler DEFAULT_HANDLER    = new PatternHandler(Logger.Level.VERBOSE, "%logger", "%date %caller%n", DEFAULT_SINK);
     private static final Logger DEFAULT_LOGGER      = new SimpleLogger(Logger.ROOT_LOGGER_NAME, DEFAULT_HANDLER);
 
     /**
@@ -70,24 +172,53 @@ public final class LoggerManager
     private static final String PROPERTIES_NAME     = "log.properties";
     private static final String CONF_ROOT           = "root";
     private static final String CONF_LOGGER         = "logger.";
+    private static final String CONF_SINK           = "sink.";
+    private static final String CONF_LIMIT          = "limit.";
+    private static final char CONF_SINK_SEPARATOR   = '@';
     private static final Pattern CONF_LOGGER_REGEX  = Pattern.compile("(.*?):(.*?)(:(.*))?");
 
     /**
-     * The logger cache
+     * The logger caches, by name and by class. Both are read without locking
      */
-    private static final Map<String, Logger> LOGGER_CACHE = new WeakHashMap<>();
+    private static final ConcurrentMap<String, SimpleLogger> LOGGER_CACHE = new ConcurrentHashMap<>();
+    private static final ClassLoggerMap CLASS_LOGGER_CACHE                = new ClassLoggerMap();
+    private static volatile SimpleLogger rootLogger;
 
     /**
-     * The handler map
+     * The current configuration, replaced under the class lock
      */
-    private static final Map<String, Handler> HANDLER_MAP = Collections.unmodifiableMap(loadConfiguration());
+    private static volatile Configuration configuration = loadConfiguration();
+
+    /**
+     * The configuration listeners
+     */
+    private static final List<ConfigurationListener> LISTENERS = new CopyOnWriteArrayList<>();
+
+    static
+    {
+        // batched records of the configuration are written out when the process exits
+        try
+        {
+            Runtime.getRuntime().addShutdownHook(new Thread("LoggerManager")
+            {
+                @Override
+                public void run()
+                {
+                    flush();
+                }
+            });
+        }
+        catch(IllegalStateException e)
+        {
+            // loaded while the process exits
+        }
+    }
 
     /**
      * Load the configuration
      */
-    private static Map<String, Handler> loadConfiguration()
+    private static Configuration loadConfiguration()
     {
-        Map<String, Handler> handlerMap = new HashMap<>();
         // read properties file
         Properties properties = new Properties();
         try
@@ -97,23 +228,66 @@ public final class LoggerManager
         catch(IOException e)
         {
             DEFAULT_LOGGER.e(e, "Cannot configure logger from '%s'. Default configuration will be used", PROPERTIES_NAME);
+            Map<String, Handler> handlerMap = new HashMap<>();
             handlerMap.put(null, DEFAULT_HANDLER);
-            return handlerMap;
+            return new Configuration(handlerMap, Collections.<String, Sink>emptyMap());
+        }
+        return decodeConfiguration(properties, Collections.<String, Sink>emptyMap());
+    }
+
+    /**
+     * Decode the properties to a configuration. A sink whose definition did
+     * not change is taken over from the previous configuration, so its file
+     * stays open.
+     */
+    private static Configuration decodeConfiguration(Properties properties, Map<String, Sink> previousSinks)
+    {
+        Map<String, Handler> handlerMap = new HashMap<>();
+        Map<String, Sink> sinkDefinitions = new HashMap<>();
+        // the keys of the @DebugLog aspect
+        try
+        {
+            Hugo.configure(properties);
+        }
+        catch(IllegalArgumentException e)
+        {
+            DEFAULT_LOGGER.w(null, e, "Cannot configure @DebugLog from '%s'", PROPERTIES_NAME);
         }
         // something is wrong if property file is empty
         if(!properties.propertyNames().hasMoreElements())
         {
             DEFAULT_LOGGER.e(null, "Logger configuration file is empty. Default configuration will be used");
             handlerMap.put(null, DEFAULT_HANDLER);
-            return handlerMap;
+            return new Configuration(handlerMap, sinkDefinitions);
+        }
+        // parse the sinks first, handlers refer to them by name
+        Map<String, Sink> sinkMap = new HashMap<>();
+        sinkMap.put("logcat", DEFAULT_SINK instanceof LogcatSink ? DEFAULT_SINK : new LogcatSink());
+        sinkMap.put("stdout", decodeSink("stdout", previousSinks, sinkDefinitions));
+        sinkMap.put("stderr", DEFAULT_SINK instanceof StreamSink ? DEFAULT_SINK : decodeSink("stderr", previousSinks, sinkDefinitions));
+        for(Enumeration<?> names = properties.propertyNames(); names.hasMoreElements(); )
+        {
+            String propertyName = (String) names.nextElement();
+            if(propertyName.startsWith(CONF_SINK))
+            {
+                Sink sink = decodeSink(properties.getProperty(propertyName).trim(), previousSinks, sinkDefinitions);
+                if(sink != null)
+                {
+                    sinkMap.put(propertyName.substring(CONF_SINK.length()), sink);
+                }
+            }
         }
         // parse properties to logger map
         for(Enumeration<?> names = properties.propertyNames(); names.hasMoreElements(); )
         {
             String propertyName = (String) names.nextElement();
             String propertyValue = properties.getProperty(propertyName);
+            if(propertyName.startsWith(CONF_SINK) || propertyName.startsWith(CONF_LIMIT) || propertyName.startsWith(Hugo.CONF_PREFIX))
+            {
+                continue;
+            }
 
-            Handler handler = decodeHandler(propertyValue);
+            Handler handler = decodeHandler(propertyValue, sinkMap);
             if(handler != null)
             {
                 if(propertyName.equals(CONF_ROOT))
@@ -140,7 +314,54 @@ public final class LoggerManager
         {
             handlerMap.put(null, DEFAULT_HANDLER);
         }
-        return handlerMap;
+        // rate limits wrap the handlers of their loggers
+        for(Enumeration<?> names = properties.propertyNames(); names.hasMoreElements(); )
+        {
+            String propertyName = (String) names.nextElement();
+            if(propertyName.startsWith(CONF_LIMIT))
+            {
+                String loggerName = propertyName.substring(CONF_LIMIT.length());
+                if(loggerName.equalsIgnoreCase(Logger.ROOT_LOGGER_NAME))
+                {
+                    loggerName = null;
+                }
+                Handler handler = handlerMap.get(loggerName);
+                if(handler == null)
+                {
+                    DEFAULT_LOGGER.w(null, "Rate limit '%s' has no logger, declare it as '%s%s'", propertyName, CONF_LOGGER, loggerName);
+                    continue;
+                }
+                Handler limited = decodeRateLimit(properties.getProperty(propertyName), handler);
+                if(limited != null)
+                {
+                    handlerMap.put(loggerName, limited);
+                }
+            }
+        }
+        return new Configuration(handlerMap, sinkDefinitions);
+    }
+
+    /**
+     * Decode a rate limit of the form 'burst/periodMillis' around the handler
+     */
+    private static Handler decodeRateLimit(String limitString, Handler handler)
+    {
+        int separator = limitString.indexOf('/');
+        try
+        {
+            if(separator < 0)
+            {
+                throw new IllegalArgumentException("no period");
+            }
+            int burst = Integer.parseInt(limitString.substring(0, separator).trim());
+            long periodMillis = Long.parseLong(limitString.substring(separator + 1).trim());
+            return new RateLimitHandler(handler, burst, periodMillis);
+        }
+        catch(IllegalArgumentException e)
+        {
+            DEFAULT_LOGGER.w(null, "Cannot parse rate limit '%s', use 'messages/millis'", limitString);
+            return null;
+        }
     }
 
     /**
@@ -174,15 +395,206 @@ public final class LoggerManager
         }
     }
 
+    /**
+     * Take over the sink of a definition from the previous configuration, or decode it
+     */
+    private static Sink decodeSink(String sinkString, Map<String, Sink> previousSinks, Map<String, Sink> sinkDefinitions)
+    {
+        Sink sink = sinkDefinitions.get(sinkString);
+        if(sink == null)
+        {
+            sink = previousSinks.get(sinkString);
+        }
+        if(sink == null)
+        {
+            // a previous sink of the same file is closed first, e.g. the new sink may delete its segment
+            String file = getSinkFile(sinkString);
+            for(Map.Entry<String, Sink> previous : previousSinks.entrySet())
+            {
+                if(file != null && file.equals(getSinkFile(previous.getKey())))
+                {
+                    previous.getValue().close();
+                }
+            }
+            sink = decodeSink(sinkString);
+        }
+        if(sink != null)
+        {
+            sinkDefinitions.put(sinkString, sink);
+        }
+        return sink;
+    }
+
+    /**
+     * Returns the path of the file a sink definition writes to, or {@code null}
+     */
+    private static String getSinkFile(String sinkString)
+    {
+        int separator = sinkString.indexOf(':');
+        String type = separator < 0 ? sinkString : sinkString.substring(0, separator);
+        if(!type.equals("file") && !type.equals("mapped") && !type.equals("binary"))
+        {
+            return null;
+        }
+        String parameter = sinkString.substring(separator + 1);
+        int options = parameter.indexOf(',');
+        return (type.equals("binary") || options < 0 ? parameter : parameter.substring(0, options)).trim();
+    }
+
+    /**
+     * Decode the string to sink
+     */
+    private static Sink decodeSink(String sinkString)
+    {
+        int separator = sinkString.indexOf(':');
+        String type = separator < 0 ? sinkString : sinkString.substring(0, separator);
+        String parameter = separator < 0 ? "" : sinkString.substring(separator + 1);
+        try
+        {
+            switch(type)
+            {
+                case "logcat":
+                    return new LogcatSink();
+                case "stdout":
+                    return decodeStreamSink(System.out, parameter);
+                case "stderr":
+                    return decodeStreamSink(System.err, parameter);
+                case "file":
+                    return decodeFileSink(parameter);
+                case "memory":
+                    return new MemorySink(Integer.parseInt(parameter));
+                case "mapped":
+                    return decodeMappedFileSink(parameter);
+                case "binary":
+                    return new BinarySink(new File(parameter));
+                default:
+                    DEFAULT_LOGGER.w(null, "Unknown sink type '%s'", type);
+                    return null;
+            }
+        }
+        catch(IOException | IllegalArgumentException e)
+        {
+            DEFAULT_LOGGER.w(null, e, "Cannot create sink '%s'", sinkString);
+            return null;
+        }
+    }
+
+    /**
+     * Decode the parameter of a file sink, a path followed by batch options
+     */
+    private static Sink decodeFileSink(String parameter) throws IOException
+    {
+        String[] options = parameter.split(",");
+        long[] batch = decodeBatchOptions(options);
+        return new FileSink(new File(options[0].trim()), (int) batch[0], batch[1]);
+    }
+
+    /**
+     * Decode the parameter of a stream sink, batch options or nothing
+     */
+    private static Sink decodeStreamSink(OutputStream stream, String parameter)
+    {
+        long[] batch = decodeBatchOptions(("," + parameter).split(","));
+        return new StreamSink(stream, (int) batch[0], batch[1]);
+    }
+
+    /**
+     * Decode the batch size and delay of the options after the first
+     */
+    private static long[] decodeBatchOptions(String[] options)
+    {
+        long[] batch = {0, 0};
+        for(int i = 1; i < options.length; i++)
+        {
+            String option = options[i].trim();
+            int separator = option.indexOf('=');
+            String key = separator < 0 ? option : option.substring(0, separator);
+            String value = separator < 0 ? "" : option.substring(separator + 1);
+            switch(key)
+            {
+                case "":
+                    break;
+                case "batch":
+                    batch[0] = decodeSize(value);
+                    break;
+                case "delay":
+                    batch[1] = Long.parseLong(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown option '" + key + "'");
+            }
+        }
+        return batch;
+    }
+
+    /**
+     * Decode a size in bytes with an optional k or m suffix
+     */
+    private static int decodeSize(String value)
+    {
+        int unit = value.endsWith("k") ? 1024 : value.endsWith("m") ? 1024 * 1024 : 1;
+        return Integer.parseInt(unit == 1 ? value : value.substring(0, value.length() - 1)) * unit;
+    }
+
+    /**
+     * Decode the parameter of a mapped file sink, a path followed by options
+     */
+    private static Sink decodeMappedFileSink(String parameter) throws IOException
+    {
+        String[] options = parameter.split(",");
+        int size = MappedFileSink.DEFAULT_SEGMENT_SIZE;
+        long roll = 0;
+        int keep = MappedFileSink.DEFAULT_RETAINED_SEGMENTS;
+        long flush = MappedFileSink.DEFAULT_FLUSH_MILLIS;
+        for(int i = 1; i < options.length; i++)
+        {
+            String option = options[i].trim();
+            int separator = option.indexOf('=');
+            String key = separator < 0 ? option : option.substring(0, separator);
+            String value = separator < 0 ? "" : option.substring(separator + 1);
+            switch(key)
+            {
+                case "size":
+                    size = decodeSize(value);
+                    break;
+                case "roll":
+                    roll = Long.parseLong(value);
+                    break;
+                case "keep":
+                    keep = Integer.parseInt(value);
+                    break;
+                case "flush":
+                    flush = Long.parseLong(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown option '" + key + "'");
+            }
+        }
+        return new MappedFileSink(new File(options[0].trim()), size, roll, keep, flush);
+    }
+
     /**
      * Decode the string to handler
      */
-    private static Handler decodeHandler(String handlerString)
+    private static Handler decodeHandler(String handlerString, Map<String, Sink> sinkMap)
     {
         Matcher matcher = CONF_LOGGER_REGEX.matcher(handlerString);
         if(matcher.matches())
         {
             String levelString = matcher.group(1);
+            Sink sink = DEFAULT_SINK;
+            int sinkSeparator = levelString.indexOf(CONF_SINK_SEPARATOR);
+            if(sinkSeparator >= 0)
+            {
+                String sinkName = levelString.substring(sinkSeparator + 1);
+                sink = sinkMap.get(sinkName);
+                if(sink == null)
+                {
+                    DEFAULT_LOGGER.w(null, "Unknown sink '%s', declare it as '%s%s'", sinkName, CONF_SINK, sinkName);
+                    return null;
+                }
+                levelString = levelString.substring(0, sinkSeparator);
+            }
             String tag = matcher.group(2);
             String message = matcher.group(4);
             if(tag.length() > 23)
@@ -193,7 +605,7 @@ public final class LoggerManager
             }
             try
             {
-                return new PatternHandler(Logger.Level.valueOf(levelString), tag, message);
+                return new PatternHandler(Logger.Level.valueOf(levelString), tag, message, sink);
             }
             catch(IllegalArgumentException e)
             {
@@ -209,55 +621,255 @@ public final class LoggerManager
     }
 
     /**
-     * Find log handler with specific name
+     * Replace the configuration with the one of a properties file in the
+     * format of 'log.properties'.
+     *
+     * @throws IOException if the file can not be read.
+     */
+    public static void configure(File file) throws IOException
+    {
+        Properties properties = new Properties();
+        InputStream inputStream = new FileInputStream(file);
+        try
+        {
+            properties.load(inputStream);
+        }
+        finally
+        {
+            inputStream.close();
+        }
+        configure(properties);
+    }
+
+    /**
+     * Replace the configuration with properties in the format of 'log.properties'.
+     */
+    public static void configure(Properties properties)
+    {
+        Configuration previous;
+        Configuration current;
+        // decoded under the lock, the sinks that are taken over must not be closed meanwhile
+        synchronized(LoggerManager.class)
+        {
+            current = decodeConfiguration(properties, configuration.sinkDefinitions);
+            previous = replace(current);
+        }
+        release(previous, current);
+    }
+
+    /**
+     * Replace the configuration with a handler map, the {@code null} key is
+     * the root handler. The default handler is used as root handler if the
+     * map has none.
+     */
+    public static void configure(Map<String, Handler> handlerMap)
+    {
+        Map<String, Handler> copy = new HashMap<>(handlerMap);
+        if(!copy.containsKey(null))
+        {
+            copy.put(null, DEFAULT_HANDLER);
+        }
+        Configuration previous;
+        Configuration current = new Configuration(copy, Collections.<String, Sink>emptyMap());
+        synchronized(LoggerManager.class)
+        {
+            previous = replace(current);
+        }
+        release(previous, current);
+    }
+
+    /**
+     * Switch all loggers to the handlers of a configuration, under the class
+     * lock, returns the previous configuration
+     */
+    private static Configuration replace(Configuration current)
+    {
+        Configuration previous = configuration;
+        configuration = current;
+        // loggers created concurrently check the configuration again, see updateHandler
+        SimpleLogger root = rootLogger;
+        if(root != null)
+        {
+            root.setHandler(current.findHandler(null));
+        }
+        for(SimpleLogger logger : LOGGER_CACHE.values())
+        {
+            logger.setHandler(current.findHandler(logger.getName()));
+        }
+        return previous;
+    }
+
+    /**
+     * Write out what the previous configuration gathered, close what only it
+     * used and notify the listeners
      */
-    private static Handler findHandler(String name)
+    private static void release(Configuration previous, Configuration current)
     {
-        String currentKey = null;
-        if(name != null)
+        Set<Sink> previousSinks = Collections.newSetFromMap(new IdentityHashMap<Sink, Boolean>());
+        Set<AsyncHandler> previousAsyncHandlers = Collections.newSetFromMap(new IdentityHashMap<AsyncHandler, Boolean>());
+        Set<RateLimitHandler> previousRateLimitHandlers = Collections.newSetFromMap(new IdentityHashMap<RateLimitHandler, Boolean>());
+        collect(previous.handlerMap, previousSinks, previousAsyncHandlers, previousRateLimitHandlers);
+        Set<Sink> currentSinks = Collections.newSetFromMap(new IdentityHashMap<Sink, Boolean>());
+        Set<AsyncHandler> currentAsyncHandlers = Collections.newSetFromMap(new IdentityHashMap<AsyncHandler, Boolean>());
+        collect(current.handlerMap,
+                currentSinks,
+                currentAsyncHandlers,
+                Collections.newSetFromMap(new IdentityHashMap<RateLimitHandler, Boolean>()));
+        // suppressed messages are reported while the handlers they go to still run,
+        // queued events reach the sinks before these are flushed and closed
+        for(RateLimitHandler handler : previousRateLimitHandlers)
+        {
+            handler.flush();
+        }
+        for(AsyncHandler handler : previousAsyncHandlers)
         {
-            for(String key : HANDLER_MAP.keySet())
+            if(!currentAsyncHandlers.contains(handler))
             {
-                if(key != null && name.startsWith(key))
+                try
                 {
-                    // check that key corresponds to a name of sub-package
-                    if(key.length() >= name.length() || name.charAt(key.length()) == '.' || name.charAt(key.length()) == '$')
-                    {
-                        // update current best matching key
-                        if(currentKey == null || currentKey.length() < key.length())
-                        {
-                            currentKey = key;
-                        }
-                    }
+                    handler.shutdown();
+                }
+                catch(InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
                 }
             }
         }
-        Handler handler = HANDLER_MAP.get(currentKey);
-        return handler != null ? handler : DEFAULT_HANDLER;
+        flush(previous.handlerMap);
+        for(Sink sink : previousSinks)
+        {
+            if(!currentSinks.contains(sink) && sink != DEFAULT_SINK)
+            {
+                sink.close();
+            }
+        }
+        for(ConfigurationListener listener : LISTENERS)
+        {
+            listener.onConfigurationChanged(previous.handlerMap, current.handlerMap);
+        }
     }
 
     /**
-     * Returns logger corresponding to the specified name.
+     * Returns the current handler map, the {@code null} key is the root handler.
      */
-    public static Logger getLogger(String name)
+    public static Map<String, Handler> getHandlers()
     {
-        Logger logger;
-        // try to find a logger in the cache
-        synchronized(LOGGER_CACHE)
+        return configuration.handlerMap;
+    }
+
+    /**
+     * Writes out the records that the sinks of the current configuration
+     * gathered. This runs when the process exits, call it where an app may
+     * be killed without exiting, e.g. when it goes to the background.
+     *
+     * Calls traced by {@link MethodTracer} and the messages a
+     * {@link RateLimitHandler} suppressed are logged first, events queued
+     * by an {@link AsyncHandler} are not waited for.
+     */
+    public static void flush()
+    {
+        MethodTracer.drain();
+        flush(configuration.handlerMap);
+    }
+
+    /**
+     * Report what the rate limits of the handlers suppressed and flush every
+     * sink of the handlers once
+     */
+    private static void flush(Map<String, Handler> handlerMap)
+    {
+        Set<Sink> sinks = Collections.newSetFromMap(new IdentityHashMap<Sink, Boolean>());
+        sinks.add(DEFAULT_SINK);
+        Set<RateLimitHandler> rateLimitHandlers = Collections.newSetFromMap(new IdentityHashMap<RateLimitHandler, Boolean>());
+        collect(handlerMap,
+                sinks,
+                Collections.newSetFromMap(new IdentityHashMap<AsyncHandler, Boolean>()),
+                rateLimitHandlers);
+        for(RateLimitHandler handler : rateLimitHandlers)
         {
-            logger = LOGGER_CACHE.get(name);
+            handler.flush();
         }
-        // load logger from configuration
-        if(logger == null)
+        for(Sink sink : sinks)
+        {
+            sink.flush();
+        }
+    }
+
+    /**
+     * Collect the sinks, asynchronous and rate limiting handlers that the handlers use
+     */
+    private static void collect(Map<String, Handler> handlerMap,
+                                Set<Sink> sinks,
+                                Set<AsyncHandler> asyncHandlers,
+                                Set<RateLimitHandler> rateLimitHandlers)
+    {
+        for(Handler handler : handlerMap.values())
         {
-            logger = new SimpleLogger(name, findHandler(name));
-            synchronized(LOGGER_CACHE)
+            // unwrap the handlers of this library down to the sink
+            while(handler instanceof RateLimitHandler || handler instanceof AsyncHandler)
             {
-                LOGGER_CACHE.put(logger.getName(), logger);
+                if(handler instanceof AsyncHandler)
+                {
+                    asyncHandlers.add((AsyncHandler) handler);
+                }
+                else
+                {
+                    rateLimitHandlers.add((RateLimitHandler) handler);
+                }
+                handler = handler instanceof RateLimitHandler ? ((RateLimitHandler) handler).getHandler()
+                                                              : ((AsyncHandler) handler).getHandler();
+            }
+            if(handler instanceof PatternHandler && ((PatternHandler) handler).getSink() != null)
+            {
+                sinks.add(((PatternHandler) handler).getSink());
             }
         }
-        // return logger
-        return logger;
+    }
+
+    /**
+     * Add a listener that is notified when the configuration was replaced.
+     */
+    public static void addConfigurationListener(ConfigurationListener listener)
+    {
+        LISTENERS.add(listener);
+    }
+
+    /**
+     * Remove a configuration listener.
+     */
+    public static void removeConfigurationListener(ConfigurationListener listener)
+    {
+        LISTENERS.remove(listener);
+    }
+
+    /**
+     * Create a logger with the handler of the current configuration
+     */
+    private static SimpleLogger createLogger(String name)
+    {
+        return new SimpleLogger(name, configuration.findHandler(name));
+    }
+
+    /**
+     * Set the handler of a newly published logger again if the configuration
+     * was replaced while it was created, the replacement may have missed it
+     */
+    private static void updateHandler(SimpleLogger logger)
+    {
+        Configuration current = configuration;
+        while(logger.getHandler() != current.findHandler(logger.getName()))
+        {
+            logger.setHandler(current.findHandler(logger.getName()));
+            current = configuration;
+        }
+    }
+
+    /**
+     * Returns logger corresponding to the specified name.
+     */
+    public static Logger getLogger(String name)
+    {
+        return getSimpleLogger(name);
     }
 
     /**
@@ -265,7 +877,7 @@ public final class LoggerManager
      */
     public static Logger getLogger(Class<?> aClass)
     {
-        return getLogger(aClass == null ? null : aClass.getName());
+        return getSimpleLogger(aClass);
     }
 
     /**
@@ -273,15 +885,87 @@ public final class LoggerManager
      */
     public static Logger getLogger()
     {
-        return getLogger(Utils.getCallerClassName(false));
+        return getSimpleLogger(Utils.getCallerClassName(false));
     }
 
     /**
-     * Returns logger depending on the caller object
+     * Returns logger depending on the caller object.
+     *
+     * Without a caller object the logger of the class that contains the
+     * running log call is returned. A woven call knows that class, see
+     * {@link CallSites}, otherwise the stack is inspected.
      */
     public static Logger getLogger(Object caller)
     {
-        if(caller != null)  return getLogger(Utils.getClassName(caller));
-        else                return getLogger();
+        return getSimpleLogger(caller);
+    }
+
+    /**
+     * Returns the logger of the caller object like {@link #getLogger(Object)}.
+     * {@link Log} uses the methods that only {@link SimpleLogger} has.
+     */
+    static SimpleLogger getSimpleLogger(Object caller)
+    {
+        if(caller != null)
+        {
+            return getSimpleLogger(caller.getClass());
+        }
+        Class<?> callerClass = CallSites.currentClass();
+        if(callerClass != null)
+        {
+            return getSimpleLogger(callerClass);
+        }
+        return getSimpleLogger(Utils.getCallerClassName(false));
+    }
+
+    private static SimpleLogger getSimpleLogger(String name)
+    {
+        // concurrent maps do not allow null keys, the root logger has its own slot
+        if(name == null)
+        {
+            SimpleLogger logger = rootLogger;
+            if(logger == null)
+            {
+                synchronized(LoggerManager.class)
+                {
+                    logger = rootLogger;
+                    if(logger == null)
+                    {
+                        logger = rootLogger = createLogger(null);
+                    }
+                }
+            }
+            return logger;
+        }
+        // try to find a logger in the cache
+        SimpleLogger logger = LOGGER_CACHE.get(name);
+        // load logger from configuration
+        if(logger == null)
+        {
+            logger = createLogger(name);
+            SimpleLogger existing = LOGGER_CACHE.putIfAbsent(name, logger);
+            if(existing != null)
+            {
+                return existing;
+            }
+            updateHandler(logger);
+        }
+        // return logger
+        return logger;
+    }
+
+    private static SimpleLogger getSimpleLogger(Class<?> aClass)
+    {
+        if(aClass == null)
+        {
+            return getSimpleLogger((String) null);
+        }
+        // identity lookup, the class name is only needed on a miss
+        SimpleLogger logger = CLASS_LOGGER_CACHE.get(aClass);
+        if(logger == null)
+        {
+            logger = CLASS_LOGGER_CACHE.putIfAbsent(aClass, getSimpleLogger(aClass.getName()));
+        }
+        return logger;
     }
 }
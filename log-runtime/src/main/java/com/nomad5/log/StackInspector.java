@@ -0,0 +1,258 @@
+package com.nomad5.log;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Iterator;
+
+/**
+ * Finds the caller of the logging methods on the current stack.
+ *
+ * The caller is the first frame outside of this library that follows a frame
+ * inside of it, optionally also skipping the ignored packages of {@link Utils}.
+ *
+ * Where the runtime has {@code java.lang.StackWalker} the frames are walked
+ * lazily and only up to the caller. It is used through reflection because
+ * this library is compiled for android, which does not have it. Otherwise
+ * the whole stack trace of the current thread is inspected.
+ */
+abstract class StackInspector
+{
+    /**
+     * Tracks the search for the caller frame by frame
+     */
+    static final class Search
+    {
+        private final boolean skipIgnored;
+        private boolean packageFound;
+        private boolean packageLeft;
+
+        Search(boolean skipIgnored)
+        {
+            this.skipIgnored = skipIgnored;
+        }
+
+        /**
+         * Returns true if the frame of this class is the caller
+         */
+        boolean isCaller(String className)
+        {
+            // 1. find package
+            if(!this.packageFound)
+            {
+                this.packageFound = className.startsWith(Utils.PACKAGE_NAME);
+                return false;
+            }
+            // 2. then skip package
+            if(!this.packageLeft)
+            {
+                if(className.startsWith(Utils.PACKAGE_NAME))
+                {
+                    return false;
+                }
+                if(!this.skipIgnored)
+                {
+                    return true;
+                }
+                this.packageLeft = true;
+            }
+            // 3. finally skip ignored packages
+            return !Utils.isIgnored(className);
+        }
+    }
+
+    /**
+     * The inspector of the running platform
+     */
+    static final StackInspector INSTANCE = create();
+
+    /**
+     * Returns the caller or the outermost frame if no caller is found.
+     */
+    abstract StackTraceElement getCaller(boolean skipIgnored);
+
+    /**
+     * Returns the class name of {@link #getCaller(boolean)}.
+     */
+    abstract String getCallerClassName(boolean skipIgnored);
+
+    private static StackInspector create()
+    {
+        try
+        {
+            return new StackWalkerInspector();
+        }
+        catch(Exception e)
+        {
+            return new StackTraceInspector();
+        }
+        catch(LinkageError e)
+        {
+            return new StackTraceInspector();
+        }
+    }
+
+    /**
+     * Inspects the complete stack trace of the current thread
+     */
+    static final class StackTraceInspector extends StackInspector
+    {
+        /**
+         * Internal class to get the caller via SecurityManager
+         */
+        private static final class CallerResolver extends SecurityManager
+        {
+            public Class<?> getCaller(boolean skipIgnored)
+            {
+                Class[] classContext = this.getClassContext();
+                // sometimes class context is null (usually on new Android devices)
+                if(classContext == null || classContext.length <= 0)
+                {
+                    return null; // if class context is null or empty
+                }
+                Search search = new Search(skipIgnored);
+                for(Class aClass : classContext)
+                {
+                    if(search.isCaller(aClass.getName()))
+                    {
+                        return aClass;
+                    }
+                }
+                return classContext[classContext.length - 1];
+            }
+        }
+        private final CallerResolver callerResolver = new CallerResolver();
+
+        @Override
+        StackTraceElement getCaller(boolean skipIgnored)
+        {
+            StackTraceElement[] stackTrace = Thread.currentThread().getStackTrace();
+            if(stackTrace == null || stackTrace.length <= 0)
+            {
+                return null; // if stack trace is null or empty
+            }
+            Search search = new Search(skipIgnored);
+            for(StackTraceElement stackTraceElement : stackTrace)
+            {
+                if(search.isCaller(stackTraceElement.getClassName()))
+                {
+                    return stackTraceElement;
+                }
+            }
+            return stackTrace[stackTrace.length - 1];
+        }
+
+        @Override
+        String getCallerClassName(boolean skipIgnored)
+        {
+            Class<?> caller = this.callerResolver.getCaller(skipIgnored);
+            if(caller == null)
+            {
+                StackTraceElement callerStackTrace = this.getCaller(skipIgnored);
+                return callerStackTrace == null ? null : callerStackTrace.getClassName();
+            }
+            return caller.getName();
+        }
+    }
+
+    /**
+     * Walks the frames lazily with a java.lang.StackWalker
+     */
+    static final class StackWalkerInspector extends StackInspector
+    {
+        private final Object walker;
+        private final Method walk;
+        private final Method iterator;
+        private final Method getClassName;
+        private final Method toStackTraceElement;
+        // the functions passed to StackWalker.walk, they are stateless and reused
+        private final Object[] callerFunctions = new Object[2];
+        private final Object[] classNameFunctions = new Object[2];
+
+        StackWalkerInspector() throws Exception
+        {
+            Class<?> walkerClass = Class.forName("java.lang.StackWalker");
+            Class<?> frameClass = Class.forName("java.lang.StackWalker$StackFrame");
+            Class<?> functionClass = Class.forName("java.util.function.Function");
+            this.walker = walkerClass.getMethod("getInstance").invoke(null);
+            this.walk = walkerClass.getMethod("walk", functionClass);
+            this.iterator = Class.forName("java.util.stream.BaseStream").getMethod("iterator");
+            this.getClassName = frameClass.getMethod("getClassName");
+            this.toStackTraceElement = frameClass.getMethod("toStackTraceElement");
+            for(int i = 0; i < 2; i++)
+            {
+                this.callerFunctions[i] = this.function(functionClass, i == 1, false);
+                this.classNameFunctions[i] = this.function(functionClass, i == 1, true);
+            }
+            // fail here rather than on the first log call
+            if(this.getCaller(false) == null)
+            {
+                throw new IllegalStateException("stack walker does not find frames");
+            }
+        }
+
+        @Override
+        StackTraceElement getCaller(boolean skipIgnored)
+        {
+            return (StackTraceElement) this.walk(this.callerFunctions[skipIgnored ? 1 : 0]);
+        }
+
+        @Override
+        String getCallerClassName(boolean skipIgnored)
+        {
+            return (String) this.walk(this.classNameFunctions[skipIgnored ? 1 : 0]);
+        }
+
+        private Object walk(Object function)
+        {
+            try
+            {
+                return this.walk.invoke(this.walker, function);
+            }
+            catch(Exception e)
+            {
+                throw new IllegalStateException("cannot walk the stack", e);
+            }
+        }
+
+        /**
+         * Create a java.util.function.Function that searches the frame stream
+         */
+        private Object function(Class<?> functionClass, final boolean skipIgnored, final boolean classNameOnly)
+        {
+            return Proxy.newProxyInstance(functionClass.getClassLoader(), new Class<?>[]{functionClass}, new InvocationHandler()
+            {
+                @Override
+                public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+                {
+                    if(method.getDeclaringClass() == Object.class)
+                    {
+                        if("equals".equals(method.getName()))
+                        {
+                            return proxy == args[0];
+                        }
+                        return "hashCode".equals(method.getName()) ? System.identityHashCode(proxy) : "StackInspector";
+                    }
+                    Search search = new Search(skipIgnored);
+                    Iterator<?> frames = (Iterator<?>) StackWalkerInspector.this.iterator.invoke(args[0]);
+                    Object frame = null;
+                    String className = null;
+                    while(frames.hasNext())
+                    {
+                        frame = frames.next();
+                        className = (String) StackWalkerInspector.this.getClassName.invoke(frame);
+                        if(search.isCaller(className))
+                        {
+                            break;
+                        }
+                    }
+                    if(frame == null || classNameOnly)
+                    {
+                        return className;
+                    }
+                    return StackWalkerInspector.this.toStackTraceElement.invoke(frame);
+                }
+            });
+        }
+    }
+}
@@ -1,5 +1,9 @@
 package com.nomad5.log;
 
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.net.UnknownHostException;
+
 /**
  * Utilities for the logging stuff
  */
@@ -14,7 +18,14 @@ public final class Utils
     /**
      * The package name of the main logger class
      */
-    private static final String PACKAGE_NAME = Logger.class.getPackage().getName();
+    static final String PACKAGE_NAME = Logger.class.getPackage().getName();
+
+    /**
+     * Reusable render buffers, one per thread. Huge ones are not kept
+     */
+    private static final ThreadLocal<StringBuilder> BUILDER = new ThreadLocal<>();
+    private static final int MAX_BUILDER_CAPACITY = 16 * 1024;
+    private static final char[] SPACES = "                                ".toCharArray();
 
     /**
      * Utils class also just static stuff
@@ -25,99 +36,18 @@ public final class Utils
     }
 
     /**
-     * Internal class to get the caller via SecurityManager
+     * Is the class in one of the ignored packages
      */
-    private static final class CallerResolver extends SecurityManager
+    static boolean isIgnored(String className)
     {
-        public Class<?> getCaller()
+        for(String ignoredPackage : ignorePackages)
         {
-            Class[] classContext = this.getClassContext();
-            // sometimes class context is null (usually on new Android devices)
-            if(classContext == null || classContext.length <= 0)
-            {
-                return null; // if class context is null or empty
-            }
-            boolean packageFound = false;
-            for(Class aClass : classContext)
+            if(className.startsWith(ignoredPackage))
             {
-                if(!packageFound)
-                {
-                    if(aClass.getPackage().getName().startsWith(PACKAGE_NAME))
-                    {
-                        packageFound = true;
-                    }
-                }
-                else
-                {
-                    if(!aClass.getPackage().getName().startsWith(PACKAGE_NAME))
-                    {
-                        return aClass;
-                    }
-                }
+                return true;
             }
-            return classContext[classContext.length - 1];
         }
-    }
-    private static final CallerResolver CALLER_RESOLVER = new CallerResolver();
-
-    /**
-     * Get caller via stacktrace. Set skipIgnored to true if you want to
-     * ignore the packages in String[] ignorePackages
-     */
-    private static StackTraceElement getCallerStackTrace(boolean skipIgnored)
-    {
-        StackTraceElement[] stackTrace = Thread.currentThread().getStackTrace();
-        if(stackTrace == null || stackTrace.length <= 0)
-        {
-            return null; // if stack trace is null or empty
-        }
-
-        boolean packageFound = false;
-        boolean packageFoundAndSkip = false;
-        for(StackTraceElement stackTraceElement : stackTrace)
-        {
-            // 1. find package
-            if(!packageFound)
-            {
-                if(stackTraceElement.getClassName().startsWith(PACKAGE_NAME))
-                {
-                    packageFound = true;
-                    continue;
-                }
-            }
-            else
-            {
-                // 2. then skip package
-                if(!stackTraceElement.getClassName().startsWith(PACKAGE_NAME))
-                {
-                    if(skipIgnored)
-                    {
-                        packageFoundAndSkip = true;
-                    }
-                    else
-                    {
-                        return stackTraceElement;
-                    }
-                }
-            }
-            if(packageFoundAndSkip)
-            {
-                // 3. finally skip ignored packages
-                boolean skipThis = false;
-                for(String ignoredPackage : ignorePackages)
-                {
-                    if(stackTraceElement.getClassName().startsWith(ignoredPackage))
-                    {
-                        skipThis = true;
-                    }
-                }
-                if(!skipThis)
-                {
-                    return stackTraceElement;
-                }
-            }
-        }
-        return stackTrace[stackTrace.length - 1];
+        return false;
     }
 
     /**
@@ -125,20 +55,11 @@ public final class Utils
      *
      * Can be much faster than {@link #getCaller(boolean)} because
      * this method tries to use {@link SecurityManager} to get
-     * caller context.
+     * caller context where the stack can not be walked lazily.
      */
     public static String getCallerClassName(boolean ignorePackages)
     {
-        Class<?> caller = CALLER_RESOLVER.getCaller();
-        if(caller == null)
-        {
-            StackTraceElement callerStackTrace = getCallerStackTrace(ignorePackages);
-            return callerStackTrace == null ? null : callerStackTrace.getClassName();
-        }
-        else
-        {
-            return caller.getName();
-        }
+        return StackInspector.INSTANCE.getCallerClassName(ignorePackages);
     }
 
     /**
@@ -147,12 +68,14 @@ public final class Utils
      *
      * This method compares names of the packages of stack trace elements
      * with the package of this library to find information about caller.
+     * Only the frames up to the caller are inspected where the runtime
+     * supports it, see {@link StackInspector}.
      *
      * @return the caller stack trace element.
      */
     public static StackTraceElement getCaller(boolean ignorePackages)
     {
-        return getCallerStackTrace(ignorePackages);
+        return StackInspector.INSTANCE.getCaller(ignorePackages);
     }
 
     /**
@@ -179,19 +102,91 @@ public final class Utils
     public static String shorten(String string, int count, int length)
     {
         if(string == null) return null;
-        String resultString = string;
-        if(Math.abs(length) < resultString.length())
+        if(Math.abs(length) >= string.length() && Math.abs(count) <= string.length()) return string;
+        StringBuilder builder = new StringBuilder(string);
+        shorten(builder, 0, count, length);
+        return builder.toString();
+    }
+
+    /**
+     * Shorten the end of a builder in place, same rules as {@link #shorten(String, int, int)}
+     *
+     * @param builder the builder.
+     * @param start   the start of the modified string in the builder.
+     * @param count   the desired minimum length of result.
+     * @param length  the desired maximum of string length.
+     */
+    public static void shorten(StringBuilder builder, int start, int count, int length)
+    {
+        int stringLength = builder.length() - start;
+        if(Math.abs(length) < stringLength)
         {
             if(length > 0)
-                resultString = string.substring(0, length);
+            {
+                builder.setLength(start + length);
+                stringLength = length;
+            }
             if(length < 0)
-                resultString = string.substring(string.length() + length, string.length());
+            {
+                builder.delete(start, start + stringLength + length);
+                stringLength = -length;
+            }
+        }
+        // positive count pads on the left, negative on the right
+        for(int padding = Math.abs(count) - stringLength; padding > 0; padding -= SPACES.length)
+        {
+            if(count > 0)   builder.insert(start, SPACES, 0, Math.min(padding, SPACES.length));
+            else            builder.append(SPACES, 0, Math.min(padding, SPACES.length));
         }
-        if(Math.abs(count) > resultString.length())
+    }
+
+    /**
+     * Append the stack trace of a throwable like android's Log.getStackTraceString,
+     * nothing is appended if an {@link UnknownHostException} is in the cause chain
+     */
+    public static void appendStackTrace(StringBuilder builder, Throwable throwable)
+    {
+        // android does this to reduce the log spam of unavailable networks
+        for(Throwable cause = throwable; cause != null; cause = cause.getCause())
+        {
+            if(cause instanceof UnknownHostException)
+            {
+                return;
+            }
+        }
+        StringWriter writer = new StringWriter();
+        PrintWriter printWriter = new PrintWriter(writer, false);
+        throwable.printStackTrace(printWriter);
+        printWriter.flush();
+        builder.append(writer.getBuffer());
+    }
+
+    /**
+     * Returns an empty builder for rendering on this thread. Give it back with
+     * {@link #recycleBuilder(StringBuilder)} when the rendered text is not needed anymore.
+     */
+    public static StringBuilder obtainBuilder()
+    {
+        StringBuilder builder = BUILDER.get();
+        if(builder == null)
+        {
+            return new StringBuilder(256);
+        }
+        // nested log calls while rendering, e.g. from toString(), get their own builder
+        BUILDER.set(null);
+        return builder;
+    }
+
+    /**
+     * Give a builder back to this thread for reuse.
+     */
+    public static void recycleBuilder(StringBuilder builder)
+    {
+        if(builder.capacity() <= MAX_BUILDER_CAPACITY)
         {
-            return String.format("%" + count + "s", resultString);
+            builder.setLength(0);
+            BUILDER.set(builder);
         }
-        return resultString;
     }
 
     /**
@@ -204,7 +199,6 @@ public final class Utils
      * @param count     the desired maximum count of packages
      * @return the shortened class name.
      */
-    // todo optimize it
     public static String shortenClassName(String className, int count, int maxLength)
     {
         className = shortenPackagesName(className, count);
@@ -257,20 +251,20 @@ public final class Utils
                 {
                     if(builder.length() > 0)
                     {
-                        builder.insert(builder.length(), '*');
+                        builder.append('*');
                         break;
                     }
-                    builder.insert(builder.length(), className.substring(index, className.length()));
+                    builder.append(className, index, className.length());
                     break;
                 }
                 else
                 {
                     if(builder.length() > 0 && i + 1 > maxLength)
                     {
-                        builder.insert(builder.length(), '*');
+                        builder.append('*');
                         break;
                     }
-                    builder.insert(builder.length(), className.substring(index, i + 1));
+                    builder.append(className, index, i + 1);
                 }
                 index = i + 1;
             }
@@ -278,7 +272,6 @@ public final class Utils
         }
     }
 
-    // todo optimize it
     private static String shortenPackagesName(String className, int count)
     {
         if(className == null) return null;
@@ -293,7 +286,7 @@ public final class Utils
 
                 if(i == -1)
                 {
-                    builder.insert(builder.length(), className.substring(index, className.length()));
+                    builder.append(className, index, className.length());
                     break;
 
                 }
@@ -301,10 +294,10 @@ public final class Utils
                 {
                     if(points == count)
                     {
-                        builder.insert(builder.length(), className.substring(index, i));
+                        builder.append(className, index, i);
                         break;
                     }
-                    builder.insert(builder.length(), className.substring(index, i + 1));
+                    builder.append(className, index, i + 1);
                 }
                 index = i + 1;
                 points++;
@@ -317,11 +310,12 @@ public final class Utils
             {
                 int from = className.lastIndexOf('.') + 1;
                 int to = className.length();
-                builder.insert(builder.length(), className.substring(from, to));
+                builder.append(className, from, to);
             }
             else
             {
-                return className.replaceFirst(exceptString + '.', "");
+                // the excepted packages are a prefix of the class name
+                return className.substring(exceptString.length() + 1);
             }
         }
         return builder.toString();
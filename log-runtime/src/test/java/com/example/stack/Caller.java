@@ -0,0 +1,18 @@
+package com.example.stack;
+
+import java.util.concurrent.Callable;
+import log.weaving.internal.Forwarder;
+
+/** Calls into the library from outside of it, directly and through an ignored package. */
+public final class Caller {
+  public static <T> T direct(Callable<T> call) throws Exception {
+    return call.call();
+  }
+
+  public static <T> T throughIgnored(Callable<T> call) throws Exception {
+    return Forwarder.forward(call);
+  }
+
+  private Caller() {
+  }
+}
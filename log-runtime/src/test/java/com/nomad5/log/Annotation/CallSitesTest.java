@@ -0,0 +1,76 @@
+package com.nomad5.log.Annotation;
+
+import com.nomad5.log.Handler.LogEvent;
+import com.nomad5.log.Logger;
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.Signature;
+import org.aspectj.runtime.reflect.Factory;
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public final class CallSitesTest {
+  private final CallSites aspect = new CallSites();
+  private final Factory factory = new Factory("CallSitesTest.java", CallSitesTest.class);
+
+  /** What the weaver passes to the advice for a log call in a method at a line. */
+  private void enter(String method, int line) {
+    Signature log = factory.makeMethodSig(0, "d", Object.class, new Class[0], new String[0], new Class[0], void.class);
+    Signature enclosing = factory.makeMethodSig(0, method, CallSitesTest.class, new Class[0], new String[0],
+        new Class[0], void.class);
+    aspect.enterLogCall(factory.makeSJP(JoinPoint.METHOD_CALL, log, line),
+        factory.makeESJP(JoinPoint.METHOD_EXECUTION, enclosing, line - 1));
+  }
+
+  @After public void exitAll() {
+    while (CallSites.current() != null) {
+      aspect.exitLogCall();
+    }
+  }
+
+  @Test public void nestedLogCallsRestoreTheOuterCallSite() {
+    assertNull(CallSites.current());
+    enter("outer", 10);
+    assertEquals(new StackTraceElement(CallSitesTest.class.getName(), "outer", "CallSitesTest.java", 10),
+        CallSites.current());
+
+    // e.g. a log call in the toString() of an argument
+    enter("inner", 20);
+    assertEquals(new StackTraceElement(CallSitesTest.class.getName(), "inner", "CallSitesTest.java", 20),
+        CallSites.current());
+    aspect.exitLogCall();
+    assertEquals(new StackTraceElement(CallSitesTest.class.getName(), "outer", "CallSitesTest.java", 10),
+        CallSites.current());
+    assertEquals(CallSitesTest.class, CallSites.currentClass());
+
+    aspect.exitLogCall();
+    assertNull(CallSites.current());
+    assertNull(CallSites.currentClass());
+  }
+
+  @Test public void deepNestingKeepsEveryCallSite() {
+    for (int line = 1; line <= 10; line++) {
+      enter("method" + line, line);
+    }
+    for (int line = 10; line >= 1; line--) {
+      assertEquals(line, CallSites.current().getLineNumber());
+      assertEquals("method" + line, CallSites.current().getMethodName());
+      aspect.exitLogCall();
+    }
+    assertNull(CallSites.current());
+  }
+
+  @Test public void callerObjectNamesTheCallerByItsClass() {
+    enter("outer", 10);
+    LogEvent event = LogEvent.obtain().set("main", Logger.Level.DEBUG, "caller", null, "message", null);
+    assertEquals(new StackTraceElement(String.class.getName(), "<no-method>", "<no-file>", -1), event.getCaller());
+    LogEvent.recycle(event);
+
+    event = LogEvent.obtain().set("main", Logger.Level.DEBUG, null, null, "message", null);
+    assertEquals(new StackTraceElement(CallSitesTest.class.getName(), "outer", "CallSitesTest.java", 10),
+        event.getCaller());
+    LogEvent.recycle(event);
+  }
+}
@@ -0,0 +1,35 @@
+package com.nomad5.log.Annotation;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public final class HugoTest {
+  @DebugLog(threshold = 50)
+  static final class Slow {
+    @DebugLog(threshold = 5) void faster() {}
+    @DebugLog void inherited() {}
+    void plain() {}
+
+    final class Inner {
+      void nested() {}
+    }
+  }
+
+  @DebugLog
+  static final class Unset {
+    void plain() {}
+  }
+
+  @Test public void thresholdOfTheMethodWinsOverItsClasses() throws Exception {
+    assertEquals(5, Hugo.getAnnotatedThreshold(Slow.class.getDeclaredMethod("faster"), Slow.class));
+    assertEquals(50, Hugo.getAnnotatedThreshold(Slow.class.getDeclaredMethod("inherited"), Slow.class));
+    assertEquals(50, Hugo.getAnnotatedThreshold(Slow.class.getDeclaredMethod("plain"), Slow.class));
+    assertEquals(50, Hugo.getAnnotatedThreshold(Slow.Inner.class.getDeclaredMethod("nested"), Slow.Inner.class));
+  }
+
+  @Test public void missingThresholdIsUnset() throws Exception {
+    assertEquals(-1, Hugo.getAnnotatedThreshold(Unset.class.getDeclaredMethod("plain"), Unset.class));
+    assertEquals(-1, Hugo.getAnnotatedThreshold(null, HugoTest.class));
+  }
+}
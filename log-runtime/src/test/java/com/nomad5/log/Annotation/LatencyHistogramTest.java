@@ -0,0 +1,62 @@
+package com.nomad5.log.Annotation;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public final class LatencyHistogramTest {
+  private static void assertClose(long expected, long actual) {
+    assertTrue(actual + " for " + expected, actual >= expected && actual <= expected + expected / 16);
+  }
+
+  @Test public void percentilesAreWithinTheBucketWidth() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (long nanos = 1; nanos <= 100000; nanos++) {
+      histogram.record(nanos);
+    }
+    LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+    assertEquals(100000, snapshot.getCount());
+    assertEquals(100000, snapshot.getMaxNanos());
+    assertEquals(1, snapshot.getPercentileNanos(0));
+    assertEquals(10, snapshot.getPercentileNanos(0.01));
+    assertClose(50000, snapshot.getPercentileNanos(50));
+    assertClose(99000, snapshot.getPercentileNanos(99));
+    assertClose(99900, snapshot.getPercentileNanos(99.9));
+    assertEquals(100000, snapshot.getPercentileNanos(100));
+  }
+
+  @Test public void outliersAreCappedAndEmptyHistogramsAreZero() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    assertEquals(0, histogram.snapshot().getPercentileNanos(50));
+    histogram.record(-5);
+    histogram.record(Long.MAX_VALUE);
+    LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+    assertEquals(0, snapshot.getPercentileNanos(50));
+    assertEquals((1L << 40) - 1, snapshot.getMaxNanos());
+    assertEquals((1L << 40) - 1, snapshot.getPercentileNanos(100));
+  }
+
+  @Test public void concurrentRecordsAreMerged() throws InterruptedException {
+    final LatencyHistogram histogram = new LatencyHistogram();
+    Thread[] threads = new Thread[8];
+    for (int t = 0; t < threads.length; t++) {
+      final long nanos = 1000 * (t + 1);
+      threads[t] = new Thread() {
+        @Override public void run() {
+          for (int i = 0; i < 10000; i++) {
+            histogram.record(nanos);
+          }
+        }
+      };
+      threads[t].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+    assertEquals(80000, snapshot.getCount());
+    assertEquals(8000, snapshot.getMaxNanos());
+    assertClose(4000, snapshot.getPercentileNanos(50));
+  }
+}
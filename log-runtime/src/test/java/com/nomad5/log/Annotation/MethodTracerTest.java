@@ -0,0 +1,126 @@
+package com.nomad5.log.Annotation;
+
+import com.nomad5.log.Handler.Handler;
+import com.nomad5.log.Handler.PatternHandler;
+import com.nomad5.log.Handler.Sink.MemorySink;
+import com.nomad5.log.Logger;
+import com.nomad5.log.LoggerManager;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.Signature;
+import org.aspectj.lang.reflect.SourceLocation;
+import org.aspectj.runtime.internal.AroundClosure;
+import org.aspectj.runtime.reflect.Factory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertTrue;
+
+public final class MethodTracerTest {
+  static final class Cart {
+    int add(List<String> items) {
+      items.add("added");
+      return items.size();
+    }
+  }
+
+  /** A call of Cart.add, the way the weaver passes it to the advice. */
+  private static final class AddCall implements ProceedingJoinPoint {
+    private final JoinPoint.StaticPart staticPart;
+    private final List<String> items;
+
+    AddCall(List<String> items) {
+      Factory factory = new Factory("Cart.java", Cart.class);
+      Signature add = factory.makeMethodSig(0, "add", Cart.class, new Class[] {List.class}, new String[] {"items"},
+          new Class[0], int.class);
+      this.staticPart = factory.makeSJP(JoinPoint.METHOD_EXECUTION, add, 10);
+      this.items = items;
+    }
+
+    @Override public Object proceed() {
+      return new Cart().add(items);
+    }
+
+    @Override public Object proceed(Object[] args) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override public void set$AroundClosure(AroundClosure arc) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override public Object[] getArgs() {
+      return new Object[] {items};
+    }
+
+    @Override public JoinPoint.StaticPart getStaticPart() {
+      return staticPart;
+    }
+
+    @Override public Signature getSignature() {
+      return staticPart.getSignature();
+    }
+
+    @Override public SourceLocation getSourceLocation() {
+      return staticPart.getSourceLocation();
+    }
+
+    @Override public String getKind() {
+      return staticPart.getKind();
+    }
+
+    @Override public Object getThis() {
+      return null;
+    }
+
+    @Override public Object getTarget() {
+      return null;
+    }
+
+    @Override public String toShortString() {
+      return staticPart.toShortString();
+    }
+
+    @Override public String toLongString() {
+      return staticPart.toLongString();
+    }
+  }
+
+  private final MemorySink sink = new MemorySink(16);
+
+  @Before public void traceCart() {
+    Handler handler = new PatternHandler(Logger.Level.VERBOSE, "Trace", "", sink);
+    LoggerManager.configure(Collections.singletonMap(Cart.class.getName(), handler));
+  }
+
+  @After public void stopTracing() {
+    // render nothing for the calls of other tests
+    MethodTracer.start(0, -1);
+    MethodTracer.stop();
+    LoggerManager.configure(new HashMap<String, Handler>());
+  }
+
+  private String lastRecord() {
+    List<String> records = sink.getRecords();
+    return records.get(records.size() - 1);
+  }
+
+  @Test public void sampledCallsRenderTheArgumentsTheyGot() throws Throwable {
+    MethodTracer.start(1, -1);
+    MethodTracer.trace(new AddCall(new ArrayList<>(Collections.singletonList("a"))));
+    MethodTracer.drain();
+    assertTrue(lastRecord(), lastRecord().endsWith(" (items=[\"a\"]) = 2"));
+  }
+
+  @Test public void slowCallsRenderTheArgumentsTheyLeft() throws Throwable {
+    MethodTracer.start(0, 0);
+    MethodTracer.trace(new AddCall(new ArrayList<>(Collections.singletonList("a"))));
+    MethodTracer.drain();
+    assertTrue(lastRecord(), lastRecord().endsWith(" (items=[\"a\", \"added\"]) = 2"));
+  }
+}
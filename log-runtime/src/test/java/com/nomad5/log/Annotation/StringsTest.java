@@ -1,11 +1,21 @@
-package com.nomad5.log;
+package com.nomad5.log.Annotation;
 
 import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.After;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
 
 public final class StringsTest {
+  @After public void resetLimits() {
+    Strings.setLimits(Strings.DEFAULT_ELEMENTS, Strings.DEFAULT_LENGTH, Strings.DEFAULT_DEPTH);
+  }
+
   @Test public void nullValue() {
     assertEquals("null", Strings.toString(null));
   }
@@ -101,4 +111,43 @@ public final class StringsTest {
     array[3] = array;
     assertEquals("[1, 2, 3, [...]]", Strings.toString(array));
   }
+
+  @Test public void collectionsAndMaps() {
+    List<Object> list = Arrays.<Object>asList(1, "String", null);
+    assertEquals("[1, \"String\", null]", Strings.toString(list));
+    Map<String, Object> map = new LinkedHashMap<>();
+    map.put("key", list);
+    map.put("empty", Collections.emptyMap());
+    assertEquals("{\"key\"=[1, \"String\", null], \"empty\"={}}", Strings.toString(map));
+  }
+
+  @Test public void recursiveMap() {
+    Map<String, Object> map = new LinkedHashMap<>();
+    map.put("self", map);
+    assertEquals("{\"self\"={...}}", Strings.toString(map));
+  }
+
+  @Test public void elementsAreLimitedForTheWholeValue() {
+    Strings.setLimits(4, 1000, 4);
+    assertEquals("[0x00, 0x00, 0x00, 0x00, ...]", Strings.toString(new byte[10 * 1024 * 1024]));
+    Object[] nested = { new int[] { 1, 2, 3 }, new int[] { 4, 5 } };
+    assertEquals("[[1, 2, 3], ...]", Strings.toString(nested));
+    assertEquals("[1, 1, 1, 1, ...]", Strings.toString(Collections.nCopies(1000000, 1)));
+  }
+
+  @Test public void lengthIsLimited() {
+    Strings.setLimits(100, 4, 4);
+    assertEquals("\"Stri...\"", Strings.toString(new StringBuilder("String")));
+    assertEquals("\"\\n\\n\\n\\n...\"", Strings.toString("\n\n\n\n\n"));
+    assertEquals("1234...", Strings.toString(new BigInteger("123456")));
+    assertEquals("\"Str\"", Strings.toString("Str"));
+  }
+
+  @Test public void depthIsLimited() {
+    Strings.setLimits(100, 1000, 2);
+    Object[] array = { 1, new Object[] { 2, new Object[] { 3 } } };
+    assertEquals("[1, [2, [...]]]", Strings.toString(array));
+    assertEquals("[[{...}]]", Strings.toString(Collections.singletonList(
+        Collections.singletonList(Collections.singletonMap(1, 2)))));
+  }
 }
@@ -0,0 +1,277 @@
+package com.nomad5.log.Handler;
+
+import com.nomad5.log.Logger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public final class AsyncHandlerTest {
+  /** Records the argument of every event, the first print waits until it is opened. */
+  private static final class GatedHandler implements EventHandler {
+    final List<Integer> printed = Collections.synchronizedList(new ArrayList<Integer>());
+    final CountDownLatch entered = new CountDownLatch(1);
+    final CountDownLatch gate = new CountDownLatch(1);
+
+    @Override public boolean isEnabled(Logger.Level level) {
+      return true;
+    }
+
+    @Override public boolean isCallerNeeded() {
+      return false;
+    }
+
+    @Override public void print(String loggerName, Logger.Level level, Object object, Throwable throwable,
+        String message) {
+      throw new AssertionError("unexpected plain message");
+    }
+
+    @Override public void print(String loggerName, Logger.Level level, Object object, Throwable throwable,
+        String messageFormat, Object... args) {
+      throw new AssertionError("unexpected direct print");
+    }
+
+    @Override public void print(LogEvent event) {
+      entered.countDown();
+      try {
+        gate.await();
+      } catch (InterruptedException e) {
+        throw new AssertionError(e);
+      }
+      printed.add((Integer) event.getArgs()[0]);
+    }
+  }
+
+  /** Counts how often every argument was printed. */
+  private static final class CountingHandler implements EventHandler {
+    private final AtomicIntegerArray counts;
+
+    CountingHandler(AtomicIntegerArray counts) {
+      this.counts = counts;
+    }
+
+    @Override public boolean isEnabled(Logger.Level level) {
+      return true;
+    }
+
+    @Override public boolean isCallerNeeded() {
+      return false;
+    }
+
+    @Override public void print(String loggerName, Logger.Level level, Object object, Throwable throwable,
+        String message) {
+      throw new AssertionError("unexpected plain message");
+    }
+
+    @Override public void print(String loggerName, Logger.Level level, Object object, Throwable throwable,
+        String messageFormat, Object... args) {
+      throw new AssertionError("unexpected direct print");
+    }
+
+    @Override public void print(LogEvent event) {
+      counts.incrementAndGet((Integer) event.getArgs()[0]);
+    }
+  }
+
+  /** A handler that only has the print methods of {@link Handler}. */
+  private static final class PlainHandler implements Handler {
+    final List<String> printed = Collections.synchronizedList(new ArrayList<String>());
+
+    @Override public boolean isEnabled(Logger.Level level) {
+      return true;
+    }
+
+    @Override public void print(String loggerName, Logger.Level level, Object object, Throwable throwable,
+        String message) {
+      printed.add(loggerName + " " + level + " " + message);
+    }
+
+    @Override public void print(String loggerName, Logger.Level level, Object object, Throwable throwable,
+        String messageFormat, Object... args) {
+      printed.add(loggerName + " " + level + " " + String.format(messageFormat, args));
+    }
+  }
+
+  private static void log(Handler handler, Logger.Level level, int i) {
+    handler.print("main", level, null, null, "%d", i);
+  }
+
+  /** Waits until the thread parks, it is blocked on a full buffer. */
+  private static void awaitParked(Thread thread) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    while (thread.getState() != Thread.State.TIMED_WAITING) {
+      assertTrue("not blocked: " + thread.getState(), System.nanoTime() < deadline);
+      Thread.sleep(1);
+    }
+  }
+
+  @Test public void blockWaitsForSpace() throws Exception {
+    GatedHandler gated = new GatedHandler();
+    final AsyncHandler handler = new AsyncHandler(gated, 2, AsyncHandler.OverflowPolicy.BLOCK, null);
+    log(handler, Logger.Level.DEBUG, 0);
+    assertTrue(gated.entered.await(10, TimeUnit.SECONDS));
+    // the event that is printed keeps its slot
+    log(handler, Logger.Level.DEBUG, 1);
+
+    Thread producer = new Thread() {
+      @Override public void run() {
+        log(handler, Logger.Level.DEBUG, 2);
+      }
+    };
+    producer.start();
+    awaitParked(producer);
+    gated.gate.countDown();
+    producer.join();
+    handler.shutdown();
+
+    assertEquals(Arrays.asList(0, 1, 2), gated.printed);
+    assertEquals(0, handler.getDroppedCount());
+  }
+
+  @Test public void dropNewestDropsWhatDoesNotFit() throws Exception {
+    GatedHandler gated = new GatedHandler();
+    AsyncHandler handler = new AsyncHandler(gated, 2, AsyncHandler.OverflowPolicy.DROP_NEWEST, null);
+    log(handler, Logger.Level.DEBUG, 0);
+    assertTrue(gated.entered.await(10, TimeUnit.SECONDS));
+    for (int i = 1; i < 10; i++) {
+      log(handler, Logger.Level.ERROR, i);
+    }
+    assertEquals(8, handler.getDroppedCount());
+    assertEquals(2, handler.getPendingCount());
+
+    gated.gate.countDown();
+    handler.shutdown();
+    assertEquals(Arrays.asList(0, 1), gated.printed);
+    assertEquals(8, handler.getDroppedCount());
+  }
+
+  @Test public void dropBelowLevelWaitsForTheDropLevel() throws Exception {
+    GatedHandler gated = new GatedHandler();
+    final AsyncHandler handler =
+        new AsyncHandler(gated, 2, AsyncHandler.OverflowPolicy.DROP_BELOW_LEVEL, Logger.Level.WARN);
+    log(handler, Logger.Level.DEBUG, 0);
+    assertTrue(gated.entered.await(10, TimeUnit.SECONDS));
+    log(handler, Logger.Level.DEBUG, 1);
+    log(handler, Logger.Level.DEBUG, 2);
+    log(handler, Logger.Level.INFO, 3);
+    assertEquals(2, handler.getDroppedCount());
+
+    Thread producer = new Thread() {
+      @Override public void run() {
+        log(handler, Logger.Level.WARN, 4);
+      }
+    };
+    producer.start();
+    awaitParked(producer);
+    gated.gate.countDown();
+    producer.join();
+    handler.shutdown();
+
+    assertEquals(Arrays.asList(0, 1, 4), gated.printed);
+    assertEquals(2, handler.getDroppedCount());
+  }
+
+  @Test public void shutdownPrintsPendingEventsAndDropsLaterOnes() throws Exception {
+    GatedHandler gated = new GatedHandler();
+    final AsyncHandler handler = new AsyncHandler(gated, 4, AsyncHandler.OverflowPolicy.BLOCK, null);
+    log(handler, Logger.Level.DEBUG, 0);
+    assertTrue(gated.entered.await(10, TimeUnit.SECONDS));
+    log(handler, Logger.Level.DEBUG, 1);
+
+    Thread stopper = new Thread() {
+      @Override public void run() {
+        try {
+          handler.shutdown();
+        } catch (InterruptedException e) {
+          throw new AssertionError(e);
+        }
+      }
+    };
+    stopper.start();
+    // the shutdown waits for the consumer, which waits for the gate
+    while (stopper.getState() != Thread.State.WAITING) {
+      Thread.sleep(1);
+    }
+    log(handler, Logger.Level.ERROR, 2);
+    gated.gate.countDown();
+    stopper.join();
+    log(handler, Logger.Level.ERROR, 3);
+
+    assertEquals(Arrays.asList(0, 1), gated.printed);
+    assertEquals(2, handler.getDroppedCount());
+    assertEquals(0, handler.getPendingCount());
+  }
+
+  @Test public void plainHandlersGetTheFormatAndArguments() throws Exception {
+    PlainHandler plain = new PlainHandler();
+    AsyncHandler handler = new AsyncHandler(plain);
+    assertFalse(handler.isCallerNeeded());
+    handler.print("main", Logger.Level.INFO, null, null, "100%");
+    log(handler, Logger.Level.DEBUG, 1);
+    LogEvent event = LogEvent.obtain().set("main", Logger.Level.WARN, null, null, "%x", 255);
+    handler.print(event);
+    LogEvent.recycle(event);
+    handler.shutdown();
+
+    assertEquals(Arrays.asList("main INFO 100%", "main DEBUG 1", "main WARN ff"), plain.printed);
+    assertEquals(0, handler.getDroppedCount());
+  }
+
+  @Test public void concurrentProducersLoseAndDuplicateNothing() throws Exception {
+    final int threads = 4;
+    final int eventsPerThread = 500;
+    for (final AsyncHandler.OverflowPolicy policy : AsyncHandler.OverflowPolicy.values()) {
+      // every round shuts down while the producers are logging
+      for (int round = 0; round < 200; round++) {
+        AtomicIntegerArray counts = new AtomicIntegerArray(threads * eventsPerThread);
+        final AsyncHandler handler = new AsyncHandler(new CountingHandler(counts), 64, policy, Logger.Level.WARN);
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch logging = new CountDownLatch(threads);
+        List<Thread> producers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+          final int first = t * eventsPerThread;
+          producers.add(new Thread() {
+            @Override public void run() {
+              try {
+                start.await();
+              } catch (InterruptedException e) {
+                throw new AssertionError(e);
+              }
+              for (int i = 0; i < eventsPerThread; i++) {
+                log(handler, i % 2 == 0 ? Logger.Level.DEBUG : Logger.Level.WARN, first + i);
+                if (i == eventsPerThread / 4) {
+                  logging.countDown();
+                }
+              }
+            }
+          });
+        }
+        for (Thread thread : producers) {
+          thread.start();
+        }
+        start.countDown();
+        logging.await();
+        handler.shutdown();
+        for (Thread thread : producers) {
+          thread.join();
+        }
+
+        int printed = 0;
+        for (int i = 0; i < counts.length(); i++) {
+          assertTrue(policy + " event " + i, counts.get(i) <= 1);
+          printed += counts.get(i);
+        }
+        assertEquals(policy.toString(), counts.length(), printed + handler.getDroppedCount());
+        assertEquals(policy.toString(), 0, handler.getPendingCount());
+      }
+    }
+  }
+}
@@ -0,0 +1,87 @@
+package com.nomad5.log.Handler;
+
+import java.math.BigInteger;
+import java.util.Date;
+import java.util.Locale;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public final class CompiledFormatTest {
+  private static void assertFormat(String format, Object... args) {
+    assertEquals(String.format(format, args), CompiledFormat.get(format).format(args));
+  }
+
+  @Test public void plainText() {
+    assertFormat("no conversions");
+    assertFormat("");
+    assertFormat("100%% sure%n");
+  }
+
+  @Test public void simpleConversions() {
+    assertFormat("%s and %s", "a", null);
+    assertFormat("%d %d %d %d %d", 1, -2L, (short) 3, (byte) 4, new BigInteger("12345678901234567890"));
+    assertFormat("%d", (Object) null);
+    assertFormat("%b %b %b %b", true, false, null, "x");
+    assertFormat("[%s]", new Object[] { new int[0].length });
+  }
+
+  @Test public void complexConversions() {
+    assertFormat("%5s|%-5d|%x|%.2f", "a", 1, 255, 1.005);
+    assertFormat("%2$s %1$s", "a", "b");
+    assertFormat("%tY", new Date(0));
+  }
+
+  @Test public void extraArgumentsAreIgnored() {
+    assertFormat("%s", "a", "b");
+  }
+
+  @Test(expected = java.util.MissingFormatArgumentException.class)
+  public void missingArgument() {
+    CompiledFormat.get("%s %s").format("a");
+  }
+
+  @Test(expected = java.util.IllegalFormatConversionException.class)
+  public void wrongArgumentType() {
+    CompiledFormat.get("%d").format("a");
+  }
+
+  @Test public void localizedDigits() {
+    Locale locale = Locale.getDefault();
+    try {
+      Locale.setDefault(new Locale("ar", "EG"));
+      assertFormat("%d", 42);
+    } finally {
+      Locale.setDefault(locale);
+    }
+  }
+
+  @Test public void localizedDigitsOfTheFormatLocale() {
+    Locale locale = Locale.getDefault();
+    try {
+      Locale.setDefault(Locale.US);
+      assertFormat("%d", 42);
+      // only the locale for formatting has other digits
+      Locale.setDefault(Locale.Category.FORMAT, new Locale("ar", "EG"));
+      assertFormat("%d", 42);
+      StringBuilder builder = new StringBuilder();
+      CompiledFormat.get("%d").appendTo(builder, 42);
+      CompiledFormat.get("%d").appendTo(builder, 42L);
+      assertEquals(String.format("%d%d", 42, 42L), builder.toString());
+    } finally {
+      Locale.setDefault(locale);
+    }
+  }
+
+  @Test public void cachedByIdentity() {
+    String format = "cached %s";
+    assertSame(CompiledFormat.get(format), CompiledFormat.get(format));
+  }
+
+  @Test public void appendTo() {
+    StringBuilder builder = new StringBuilder("head ");
+    CompiledFormat.get("%s=%d").appendTo(builder, "x", 1);
+    assertEquals("head x=1", builder.toString());
+  }
+}
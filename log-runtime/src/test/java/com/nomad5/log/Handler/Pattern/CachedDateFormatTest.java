@@ -0,0 +1,79 @@
+package com.nomad5.log.Handler.Pattern;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public final class CachedDateFormatTest {
+  private static final String[] PATTERNS = {
+      "yyyy-MM-dd HH:mm:ss.SSS",
+      "HH:mm:ss",
+      "S 'SSS' yyyy",
+      "ss.SSSS",
+      "SSS",
+      "ss.S.SS"
+  };
+
+  private static void assertSameAsSimpleDateFormat(String pattern, long timeMillis) {
+    assertEquals(pattern, new SimpleDateFormat(pattern).format(new Date(timeMillis)),
+        new CachedDateFormat(pattern).format(timeMillis));
+  }
+
+  @Test public void patterns() {
+    for (String pattern : PATTERNS) {
+      assertSameAsSimpleDateFormat(pattern, 1442700000007L);
+      assertSameAsSimpleDateFormat(pattern, 1442700000999L);
+      assertSameAsSimpleDateFormat(pattern, 1442700000050L);
+      assertSameAsSimpleDateFormat(pattern, -1L);
+    }
+  }
+
+  @Test public void millisecondsWithinOneSecond() {
+    CachedDateFormat format = new CachedDateFormat("HH:mm:ss.SSS");
+    SimpleDateFormat expected = new SimpleDateFormat("HH:mm:ss.SSS");
+    for (long time = 1442700000000L; time < 1442700002000L; time++) {
+      assertEquals(expected.format(new Date(time)), format.format(time));
+    }
+  }
+
+  @Test public void concurrentFormatting() throws Exception {
+    final CachedDateFormat format = new CachedDateFormat("yyyy-MM-dd HH:mm:ss.SSS");
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    List<Future<String>> results = new ArrayList<>();
+    for (int t = 0; t < 8; t++) {
+      final long seed = t;
+      results.add(executor.submit(new Callable<String>() {
+        @Override public String call() {
+          SimpleDateFormat expected = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS");
+          Random random = new Random(seed);
+          StringBuilder builder = new StringBuilder();
+          for (int i = 0; i < 100000; i++) {
+            // a few seconds so that threads keep replacing each others snapshot
+            long time = 1442700000000L + random.nextInt(4000);
+            builder.setLength(0);
+            format.appendTo(builder, time);
+            String wanted = expected.format(new Date(time));
+            if (!wanted.equals(builder.toString())) {
+              return wanted + " != " + builder;
+            }
+          }
+          return null;
+        }
+      }));
+    }
+    for (Future<String> result : results) {
+      assertNull(result.get());
+    }
+    executor.shutdown();
+  }
+}
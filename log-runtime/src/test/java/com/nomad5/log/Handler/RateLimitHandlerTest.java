@@ -0,0 +1,115 @@
+package com.nomad5.log.Handler;
+
+import com.nomad5.log.Handler.Sink.MemorySink;
+import com.nomad5.log.Logger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public final class RateLimitHandlerTest {
+  private final MemorySink sink = new MemorySink(64);
+  private final PatternHandler pattern = new PatternHandler(Logger.Level.DEBUG, "Main", "", sink);
+
+  @Test public void burstsOverBudgetAreSummarizedOnce() throws InterruptedException {
+    RateLimitHandler handler = new RateLimitHandler(pattern, 2, 400);
+    for (int i = 0; i < 10; i++) {
+      handler.print("main", Logger.Level.WARN, null, null, "retry %d", i);
+    }
+    handler.print("main", Logger.Level.WARN, null, null, "other %d", 0);
+    handler.print("other", Logger.Level.WARN, null, null, "retry %d", 0);
+    assertEquals(Arrays.asList("W/Main: retry 0", "W/Main: retry 1", "W/Main: other 0", "W/Main: retry 0"),
+        sink.getRecords());
+    assertEquals(8, handler.getSuppressedCount());
+
+    // the bucket refills one message per period / burst
+    Thread.sleep(250);
+    sink.clear();
+    handler.print("main", Logger.Level.WARN, null, null, "retry %d", 10);
+    assertEquals(Arrays.asList("W/Main: 8 similar messages suppressed: retry %d", "W/Main: retry 10"),
+        sink.getRecords());
+  }
+
+  @Test public void disabledLevelsDoNotTakeFromTheBudget() {
+    RateLimitHandler handler = new RateLimitHandler(pattern, 1, 60000);
+    handler.print("main", Logger.Level.VERBOSE, null, null, "tick");
+    handler.print("main", Logger.Level.DEBUG, null, null, "tick");
+    handler.print("main", Logger.Level.DEBUG, null, null, "tick");
+    assertEquals(Collections.singletonList("D/Main: tick"), sink.getRecords());
+    assertEquals(1, handler.getSuppressedCount());
+  }
+
+  @Test public void flushReportsSitesThatAreStillSuppressing() {
+    RateLimitHandler handler = new RateLimitHandler(pattern, 1, 60000);
+    for (int i = 0; i < 3; i++) {
+      handler.print("main", Logger.Level.WARN, null, null, "retry %d", i);
+    }
+    handler.print("main", Logger.Level.WARN, null, null, "other %d", 0);
+    handler.flush();
+    handler.flush();
+    assertEquals(Arrays.asList("W/Main: retry 0", "W/Main: other 0", "W/Main: 2 similar messages suppressed: retry %d"),
+        sink.getRecords());
+  }
+
+  @Test public void concurrentFirstMessagesShareOneSite() throws InterruptedException {
+    final int threads = 4;
+    final int messagesPerThread = 1000;
+    final AtomicInteger printed = new AtomicInteger();
+    final AtomicInteger reported = new AtomicInteger();
+    Handler counting = new Handler() {
+      @Override public boolean isEnabled(Logger.Level level) {
+        return true;
+      }
+
+      @Override public void print(String loggerName, Logger.Level level, Object callerObject, Throwable throwable,
+          String message) {
+        throw new AssertionError("unexpected plain message");
+      }
+
+      @Override public void print(String loggerName, Logger.Level level, Object callerObject, Throwable throwable,
+          String messageFormat, Object... args) {
+        if (RateLimitHandler.SUPPRESSED_FORMAT.equals(messageFormat)) {
+          reported.addAndGet((Integer) args[0]);
+        } else {
+          printed.incrementAndGet();
+        }
+      }
+    };
+    for (int round = 0; round < 100; round++) {
+      printed.set(0);
+      reported.set(0);
+      final RateLimitHandler handler = new RateLimitHandler(counting, 1, 60000);
+      final CountDownLatch start = new CountDownLatch(1);
+      List<Thread> loggers = new ArrayList<>();
+      for (int t = 0; t < threads; t++) {
+        loggers.add(new Thread() {
+          @Override public void run() {
+            try {
+              start.await();
+            } catch (InterruptedException e) {
+              throw new AssertionError(e);
+            }
+            for (int i = 0; i < messagesPerThread; i++) {
+              handler.print("main", Logger.Level.WARN, null, null, "retry %d", i);
+            }
+          }
+        });
+      }
+      for (Thread thread : loggers) {
+        thread.start();
+      }
+      start.countDown();
+      for (Thread thread : loggers) {
+        thread.join();
+      }
+      handler.flush();
+      assertEquals(1, printed.get());
+      assertEquals(threads * messagesPerThread - 1, reported.get());
+    }
+  }
+}
@@ -0,0 +1,95 @@
+package com.nomad5.log.Handler.Sink;
+
+import com.nomad5.log.Handler.LogEvent;
+import com.nomad5.log.Handler.PatternHandler;
+import com.nomad5.log.Logger;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.channels.Channels;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public final class BinarySinkTest {
+  private static final String TAG = "%logger{-1}";
+  private static final String MESSAGE = "%date{HH:mm:ss.SSS} [%thread] %level %caller";
+
+  private static List<LogEvent> events() {
+    StackTraceElement caller = new StackTraceElement("com.example.Main", "run", "Main.java", 42);
+    long time = 1500000000000L;
+    return Arrays.asList(
+        new LogEvent().set("com.example.Main", Logger.Level.INFO, caller, "main", time, null,
+            "%d items of %s in %.2f s, %c %b %x", new Object[] { 3, "queue", 1.5, '\u00e4', true, 255L }),
+        new LogEvent().set("com.example.Main", Logger.Level.DEBUG, caller, "worker", time + 5, null,
+            "%d items of %s in %.2f s, %c %b %x", new Object[] { -7, null, 0.25, 'x', false, -1L }),
+        new LogEvent().set("com.example.Other", Logger.Level.WARN, null, "worker", time - 1000, null,
+            "gr\u00fc\u00dfe %s %s", new Object[] { new BigDecimal("1.50"), Arrays.asList(1, 2) }),
+        new LogEvent().set("com.example.Other", Logger.Level.ERROR, caller, "main", time, new IllegalStateException("broken"),
+            "plain %d message", null),
+        new LogEvent().set("com.example.Main", Logger.Level.INFO, caller, "main", time, null,
+            "%d items of %s in %.2f s, %c %b %x", new Object[] { 4, "stack", 2.0, 'y', true, 0L }));
+  }
+
+  private static List<String> decode(byte[] bytes) throws Exception {
+    MemorySink decoded = new MemorySink(100);
+    new BinaryLogDecoder(new ByteArrayInputStream(bytes), decoded).decode();
+    return decoded.getRecords();
+  }
+
+  @Test public void decodedEventsMatchRenderedEvents() throws Exception {
+    MemorySink rendered = new MemorySink(100);
+    PatternHandler text = new PatternHandler(Logger.Level.VERBOSE, TAG, MESSAGE, rendered);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    BinarySink sink = new BinarySink(Channels.newChannel(out));
+    PatternHandler binary = new PatternHandler(Logger.Level.VERBOSE, TAG, MESSAGE, sink);
+    PatternHandler other = new PatternHandler(Logger.Level.VERBOSE, "Other", "%level", sink);
+
+    for (LogEvent event : events()) {
+      text.print(event);
+      binary.print(event);
+    }
+    other.print(events().get(0));
+    sink.write(Logger.Level.INFO, "Text", "rendered");
+    sink.close();
+
+    List<String> expected = rendered.getRecords();
+    List<String> actual = decode(out.toByteArray());
+    assertEquals(expected.size() + 2, actual.size());
+    assertEquals(expected, actual.subList(0, expected.size()));
+    assertEquals("I/Other: INFO 3 items of queue in 1.50 s, \u00e4 true ff", actual.get(expected.size()));
+    assertEquals("I/Text: rendered", actual.get(expected.size() + 1));
+    assertTrue(actual.get(3).contains("java.lang.IllegalStateException: broken"));
+  }
+
+  @Test public void repeatedEventsAreSmall() throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    BinarySink sink = new BinarySink(Channels.newChannel(out));
+    PatternHandler binary = new PatternHandler(Logger.Level.VERBOSE, TAG, MESSAGE, sink);
+    LogEvent event = events().get(0);
+    binary.print(event);
+    sink.flush();
+    int first = out.size();
+    binary.print(event);
+    sink.flush();
+    // 11 bytes of time, level, ids, flags and format, the six raw arguments take 24
+    assertTrue("" + (out.size() - first), out.size() - first <= 35);
+  }
+
+  @Test public void appendedRunsAndTruncatedRecordsDecode() throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    for (int run = 0; run < 2; run++) {
+      BinarySink sink = new BinarySink(Channels.newChannel(out));
+      PatternHandler binary = new PatternHandler(Logger.Level.VERBOSE, "Run", "%thread", sink);
+      binary.print(events().get(run));
+      sink.close();
+    }
+    byte[] bytes = out.toByteArray();
+    assertEquals(Arrays.asList("I/Run: main 3 items of queue in 1.50 s, \u00e4 true ff",
+        "D/Run: worker -7 items of null in 0.25 s, x false ffffffffffffffff"), decode(bytes));
+    assertEquals(1, decode(Arrays.copyOf(bytes, bytes.length - 3)).size());
+  }
+}
@@ -0,0 +1,173 @@
+package com.nomad5.log.Handler.Sink;
+
+import com.nomad5.log.Logger;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public final class MappedFileSinkTest {
+  private File directory;
+  private File file;
+
+  @Before public void createDirectory() throws IOException {
+    directory = File.createTempFile("mapped", "");
+    assertTrue(directory.delete());
+    assertTrue(directory.mkdir());
+    file = new File(directory, "app.log");
+  }
+
+  @After public void deleteDirectory() {
+    File[] files = directory.listFiles();
+    if (files != null) {
+      for (File segment : files) {
+        segment.delete();
+      }
+    }
+    directory.delete();
+  }
+
+  private static String read(File file) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    InputStream in = new FileInputStream(file);
+    try {
+      byte[] buffer = new byte[4096];
+      for (int count; (count = in.read(buffer)) != -1; ) {
+        out.write(buffer, 0, count);
+      }
+    } finally {
+      in.close();
+    }
+    return out.toString("UTF-8");
+  }
+
+  private List<String> segments() {
+    String[] names = directory.list();
+    Arrays.sort(names);
+    return Arrays.asList(names);
+  }
+
+  @Test public void writesAndCutsSegmentOnClose() throws IOException {
+    MappedFileSink sink = new MappedFileSink(file, 4096, 0, 2, 0);
+    sink.write(Logger.Level.INFO, "Tag", new StringBuilder("first"));
+    sink.write(Logger.Level.WARN, "Tag", "second");
+    sink.close();
+    sink.write(Logger.Level.WARN, "Tag", "dropped");
+    assertEquals(Arrays.asList("app.log.1"), segments());
+    assertEquals("I/Tag: first\nW/Tag: second\n", read(new File(directory, "app.log.1")));
+  }
+
+  @Test public void rollsOverBySizeAndKeepsNewestSegments() throws IOException {
+    // every record is 14 bytes, so a segment holds two of them
+    MappedFileSink sink = new MappedFileSink(file, 40, 0, 2, 0);
+    for (int i = 0; i < 7; i++) {
+      sink.write(Logger.Level.INFO, "T", "record " + i);
+    }
+    sink.close();
+    assertEquals(Arrays.asList("app.log.3", "app.log.4"), segments());
+    assertEquals("I/T: record 4\nI/T: record 5\n", read(new File(directory, "app.log.3")));
+    assertEquals("I/T: record 6\n", read(new File(directory, "app.log.4")));
+  }
+
+  @Test public void rollsOverByTime() throws Exception {
+    MappedFileSink sink = new MappedFileSink(file, 4096, 50, 5, 0);
+    sink.write(Logger.Level.INFO, "T", "early");
+    Thread.sleep(100);
+    sink.write(Logger.Level.INFO, "T", "late");
+    sink.close();
+    assertEquals(Arrays.asList("app.log.1", "app.log.2"), segments());
+    assertEquals("I/T: late\n", read(new File(directory, "app.log.2")));
+  }
+
+  @Test public void continuesAfterSegmentsOfPreviousRun() throws IOException {
+    new MappedFileSink(file, 4096, 0, 5, 0).close();
+    MappedFileSink sink = new MappedFileSink(file, 4096, 0, 5, 0);
+    assertEquals(new File(directory, "app.log.2").getAbsoluteFile(), sink.getSegmentFile());
+    sink.close();
+  }
+
+  @Test public void cutsLongRecordsAtACharacter() throws IOException {
+    MappedFileSink sink = new MappedFileSink(file, 16, 0, 5, 0);
+    // 5 bytes of prefix and 3 bytes per character, the sixteenth byte is in the fourth one
+    sink.write(Logger.Level.INFO, "T", "\u20ac\u20ac\u20ac\u20ac\u20ac\u20ac");
+    sink.write(Logger.Level.INFO, "T", "next");
+    sink.close();
+    assertEquals(Arrays.asList("app.log.1", "app.log.2"), segments());
+    assertEquals("I/T: \u20ac\u20ac\u20ac\n", read(new File(directory, "app.log.1")));
+    assertEquals("I/T: next\n", read(new File(directory, "app.log.2")));
+  }
+
+  @Test public void cutsSegmentsOfAKilledRun() throws IOException {
+    // a killed run leaves its mappings at full size, padded with zeros
+    byte[] records = "I/T: first\nI/T: \u0000 second\n".getBytes("UTF-8");
+    RandomAccessFile padded = new RandomAccessFile(new File(directory, "app.log.1"), "rw");
+    padded.write(records);
+    padded.setLength(10000);
+    padded.close();
+    RandomAccessFile empty = new RandomAccessFile(new File(directory, "app.log.2"), "rw");
+    empty.setLength(10000);
+    empty.close();
+
+    MappedFileSink sink = new MappedFileSink(file, 4096, 0, 5, 0);
+    sink.write(Logger.Level.INFO, "T", "third");
+    sink.close();
+    assertEquals(Arrays.asList("app.log.1", "app.log.2", "app.log.3"), segments());
+    assertEquals("I/T: first\nI/T: \u0000 second\n", read(new File(directory, "app.log.1")));
+    assertEquals(0, new File(directory, "app.log.2").length());
+    assertEquals("I/T: third\n", read(new File(directory, "app.log.3")));
+    assertNull(sink.getLastError());
+  }
+
+  @Test public void concurrentWritersLoseNothing() throws Exception {
+    final MappedFileSink sink = new MappedFileSink(file, 64 * 1024, 0, 1000, 10);
+    final int threads = 4;
+    final int records = 5000;
+    List<Thread> writers = new ArrayList<>();
+    for (int t = 0; t < threads; t++) {
+      final int thread = t;
+      writers.add(new Thread() {
+        @Override public void run() {
+          for (int i = 0; i < records; i++) {
+            sink.write(Logger.Level.DEBUG, "T" + thread, "record " + i);
+          }
+        }
+      });
+    }
+    for (Thread writer : writers) {
+      writer.start();
+    }
+    for (Thread writer : writers) {
+      writer.join();
+    }
+    sink.close();
+
+    Set<String> lines = new HashSet<>();
+    int count = 0;
+    for (String segment : segments()) {
+      String content = read(new File(directory, segment));
+      assertTrue(content.endsWith("\n"));
+      for (String line : content.split("\n")) {
+        lines.add(line);
+        count++;
+      }
+    }
+    assertEquals(threads * records, count);
+    assertEquals(threads * records, lines.size());
+    assertFalse(lines.contains(""));
+  }
+}
@@ -0,0 +1,104 @@
+package com.nomad5.log.Handler.Sink;
+
+import com.nomad5.log.Handler.PatternHandler;
+import com.nomad5.log.Logger;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public final class SinkTest {
+  @Test public void channelSinkWritesUtf8Lines() throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ChannelSink sink = new ChannelSink(Channels.newChannel(out));
+    sink.write(Logger.Level.DEBUG, "Tag", new StringBuilder("gr\u00fc\u00dfe \ud83d\ude00"));
+    sink.write(Logger.Level.ERROR, "Tag", "plain");
+    assertEquals("D/Tag: gr\u00fc\u00dfe \ud83d\ude00\nE/Tag: plain\n", out.toString("UTF-8"));
+  }
+
+  @Test public void channelSinkGrowsForLongRecords() throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ChannelSink sink = new ChannelSink(Channels.newChannel(out));
+    char[] chars = new char[100000];
+    Arrays.fill(chars, '\u00e4');
+    String message = new String(chars);
+    sink.write(Logger.Level.INFO, "T", new StringBuilder(message));
+    assertEquals("I/T: " + message + "\n", out.toString("UTF-8"));
+  }
+
+  @Test public void channelSinkBatchesRecords() throws Exception {
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    final int[] writes = new int[1];
+    WritableByteChannel channel = new WritableByteChannel() {
+      final WritableByteChannel target = Channels.newChannel(out);
+
+      @Override public int write(ByteBuffer buffer) throws IOException {
+        writes[0]++;
+        return target.write(buffer);
+      }
+
+      @Override public boolean isOpen() {
+        return true;
+      }
+
+      @Override public void close() {
+      }
+    };
+    ChannelSink sink = new ChannelSink(channel, 32, 0);
+    sink.write(Logger.Level.DEBUG, "T", "one");
+    sink.write(Logger.Level.INFO, "T", "two");
+    assertEquals(0, writes[0]);
+    sink.write(Logger.Level.ERROR, "T", "three");
+    assertEquals(1, writes[0]);
+    assertEquals("D/T: one\nI/T: two\nE/T: three\n", out.toString("UTF-8"));
+
+    // a full batch is written before the next record, a record larger than the batch at once
+    sink.write(Logger.Level.DEBUG, "T", "0123456789012345678901");
+    sink.write(Logger.Level.DEBUG, "T", "four");
+    assertEquals(2, writes[0]);
+    sink.write(Logger.Level.DEBUG, "T", "01234567890123456789012345678901");
+    assertEquals(4, writes[0]);
+    sink.write(Logger.Level.DEBUG, "T", "five");
+    sink.flush();
+    assertEquals(5, writes[0]);
+    assertTrue(out.toString("UTF-8").endsWith(
+        "D/T: 0123456789012345678901\nD/T: four\nD/T: 01234567890123456789012345678901\nD/T: five\n"));
+  }
+
+  @Test public void channelSinkDropsRecordsAfterClose() throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ChannelSink sink = new ChannelSink(Channels.newChannel(out), 32, 0);
+    sink.write(Logger.Level.DEBUG, "T", "one");
+    sink.close();
+    sink.write(Logger.Level.DEBUG, "T", "two");
+    sink.write(Logger.Level.ERROR, "T", "three");
+    sink.flush();
+    assertEquals("D/T: one\n", out.toString("UTF-8"));
+    assertNull(sink.getLastError());
+  }
+
+  @Test public void memorySinkKeepsLastRecords() {
+    MemorySink sink = new MemorySink(2);
+    sink.write(Logger.Level.INFO, "T", "one");
+    sink.write(Logger.Level.INFO, "T", "two");
+    sink.write(Logger.Level.WARN, "T", new StringBuilder("three"));
+    assertEquals(Arrays.asList("I/T: two", "W/T: three"), sink.getRecords());
+    sink.clear();
+    assertTrue(sink.getRecords().isEmpty());
+  }
+
+  @Test public void handlerWritesRenderedRecords() {
+    MemorySink sink = new MemorySink(4);
+    PatternHandler handler = new PatternHandler(Logger.Level.INFO, "Example", "[%level]", sink);
+    handler.print("com.example.Main", Logger.Level.INFO, null, null, "%d items", 3);
+    handler.print("com.example.Main", Logger.Level.DEBUG, null, null, "filtered");
+    assertEquals(Arrays.asList("I/Example: [INFO] 3 items"), sink.getRecords());
+  }
+}
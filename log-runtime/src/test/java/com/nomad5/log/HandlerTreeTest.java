@@ -0,0 +1,92 @@
+package com.nomad5.log;
+
+import com.nomad5.log.Handler.Handler;
+import com.nomad5.log.Handler.PatternHandler;
+import com.nomad5.log.Handler.Sink.MemorySink;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.Test;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public final class HandlerTreeTest {
+  private static final List<String> KEYS = Arrays.asList(null, "com", "com.foo", "com.foobar", "com.foo.bar",
+      "com.foo$Inner", "com.foo$", "com.foo.", "com..foo", "", "$", ".foo");
+
+  /** The lookup the tree replaced, the longest key that is the name or a package or outer class of it. */
+  private static Handler linearFind(Map<String, Handler> handlerMap, String name) {
+    String currentKey = null;
+    if (name != null) {
+      for (String key : handlerMap.keySet()) {
+        if (key != null && name.startsWith(key)) {
+          if (key.length() >= name.length() || name.charAt(key.length()) == '.' || name.charAt(key.length()) == '$') {
+            if (currentKey == null || currentKey.length() < key.length()) {
+              currentKey = key;
+            }
+          }
+        }
+      }
+    }
+    return handlerMap.get(currentKey);
+  }
+
+  private static Set<String> names() {
+    Set<String> names = new LinkedHashSet<>();
+    names.add(null);
+    for (String key : KEYS) {
+      String base = key == null ? "" : key;
+      for (String suffix : Arrays.asList("", ".a", "$a", "a", ".a.b", "$a$b", ".", "$", "..a")) {
+        names.add(base + suffix);
+      }
+      for (int i = 0; i < base.length(); i++) {
+        names.add(base.substring(0, i));
+      }
+    }
+    return names;
+  }
+
+  @Test public void findsWhatTheLinearScanFound() {
+    MemorySink sink = new MemorySink(1);
+    Set<String> names = names();
+    // every combination of the keys, with and without a root handler
+    for (int mask = 0; mask < 1 << KEYS.size(); mask++) {
+      Map<String, Handler> handlerMap = new HashMap<>();
+      for (int i = 0; i < KEYS.size(); i++) {
+        if ((mask & 1 << i) != 0) {
+          handlerMap.put(KEYS.get(i), new PatternHandler(Logger.Level.DEBUG, String.valueOf(KEYS.get(i)), "", sink));
+        }
+      }
+      HandlerTree tree = new HandlerTree(handlerMap);
+      for (String name : names) {
+        assertSame(handlerMap.keySet() + " " + name, linearFind(handlerMap, name), tree.find(name));
+      }
+    }
+  }
+
+  @Test public void sharedPrefixesAreNotPackages() {
+    MemorySink sink = new MemorySink(1);
+    Map<String, Handler> handlerMap = new HashMap<>();
+    Handler foo = new PatternHandler(Logger.Level.DEBUG, "foo", "", sink);
+    Handler root = new PatternHandler(Logger.Level.DEBUG, "root", "", sink);
+    handlerMap.put("com.foo", foo);
+    handlerMap.put(null, root);
+    HandlerTree tree = new HandlerTree(handlerMap);
+    assertSame(foo, tree.find("com.foo"));
+    assertSame(foo, tree.find("com.foo.Bar"));
+    assertSame(foo, tree.find("com.foo$Inner"));
+    assertSame(root, tree.find("com.foobar"));
+    assertSame(root, tree.find("com.fo"));
+    assertSame(root, tree.find(null));
+
+    // without a root handler
+    handlerMap.remove(null);
+    tree = new HandlerTree(handlerMap);
+    assertNull(tree.find("com.foobar"));
+    assertNull(tree.find(null));
+  }
+}
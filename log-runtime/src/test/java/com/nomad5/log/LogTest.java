@@ -0,0 +1,60 @@
+package com.nomad5.log;
+
+import com.nomad5.log.Handler.Handler;
+import com.nomad5.log.Handler.PatternHandler;
+import com.nomad5.log.Handler.Sink.MemorySink;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public final class LogTest {
+  private final MemorySink sink = new MemorySink(16);
+
+  @Before public void logToMemory() {
+    Handler handler = new PatternHandler(Logger.Level.VERBOSE, "Log", "", sink);
+    LoggerManager.configure(Collections.singletonMap(LogTest.class.getName(), handler));
+  }
+
+  @After public void resetConfiguration() {
+    LoggerManager.configure(new HashMap<String, Handler>());
+  }
+
+  @Test public void boxedAndNarrowArgumentsFormatAsArguments() {
+    Integer nullInteger = null;
+    Long nullLong = null;
+    Log.e(this, "value %s", nullInteger);
+    Log.e(this, "value %d", nullLong);
+    Log.e(this, "byte %x", (byte) 0xff);
+    Log.e(this, "byte %x", Byte.valueOf((byte) 0xff));
+    Log.e(this, "short %x", (short) -1);
+    Log.e(this, "char %s", 'c');
+    assertEquals(Arrays.asList(
+        "E/Log: value null",
+        "E/Log: value null",
+        "E/Log: byte ff",
+        "E/Log: byte ff",
+        "E/Log: short ffff",
+        "E/Log: char c"), sink.getRecords());
+  }
+
+  @Test public void valuesFormatLikeArguments() {
+    Log.vValue(this, "int %x", -1);
+    Log.dValue(this, "byte %x", (byte) -1);
+    Log.iValue(this, "short %x", (short) -1);
+    Log.wValue(this, "long %d", Long.MAX_VALUE);
+    Log.eValue(this, "float %s", 0.5f);
+    Log.aValue(this, "char %c", 'c');
+    assertEquals(Arrays.asList(
+        "V/Log: int ffffffff",
+        "D/Log: byte ff",
+        "I/Log: short ffff",
+        "W/Log: long 9223372036854775807",
+        "E/Log: float 0.5",
+        "A/Log: char c"), sink.getRecords());
+  }
+}
@@ -0,0 +1,165 @@
+package com.nomad5.log.LoggerImpl;
+
+import com.nomad5.log.Handler.PatternHandler;
+import com.nomad5.log.Handler.Sink.ChannelSink;
+import com.nomad5.log.Handler.Sink.MemorySink;
+import com.nomad5.log.Logger;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.IllegalFormatException;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
+
+public final class SimpleLoggerTest {
+  /** Discards everything, without creating objects. */
+  private static final class NullChannel implements WritableByteChannel {
+    long written;
+
+    @Override public int write(ByteBuffer buffer) {
+      int count = buffer.remaining();
+      buffer.position(buffer.limit());
+      written += count;
+      return count;
+    }
+
+    @Override public boolean isOpen() {
+      return true;
+    }
+
+    @Override public void close() {
+    }
+  }
+
+  @Test public void primitiveArgumentsFormatLikeBoxedOnes() {
+    MemorySink sink = new MemorySink(16);
+    SimpleLogger logger = new SimpleLogger("com.example.Main",
+        new PatternHandler(Logger.Level.DEBUG, "Main", "", sink));
+    logger.dValue(null, "int %d", -42);
+    logger.dValue(null, "long %s", Long.MIN_VALUE);
+    logger.dValue(null, "double %s", 0.1);
+    logger.dValue(null, "boolean %b", false);
+    logger.dValue(null, "hex %x", -1);
+    logger.dValue(null, "fixed %.2f", 1.005);
+    logger.dValue(null, "bool %s, no argument", true);
+    logger.dValue(null, "char %s", 'c');
+    logger.dValue(null, "char %c", 'c');
+    logger.dValue(null, "float %s", 1.1f);
+    logger.dValue(null, "float %.1f", 1.1f);
+    logger.dValue(null, "byte %d", (byte) -1);
+    logger.dValue(null, "byte %x", (byte) -1);
+    logger.dValue(null, "short %s", (short) -1);
+    logger.dValue(null, "short %x", (short) -1);
+    logger.vValue(null, "filtered %d", 1);
+    assertEquals(Arrays.asList(
+        "D/Main: int -42",
+        "D/Main: long -9223372036854775808",
+        "D/Main: double 0.1",
+        "D/Main: boolean false",
+        "D/Main: hex ffffffff",
+        "D/Main: fixed " + String.format("%.2f", 1.005),
+        "D/Main: bool true, no argument",
+        "D/Main: char c",
+        "D/Main: char c",
+        "D/Main: float 1.1",
+        "D/Main: float " + String.format("%.1f", 1.1f),
+        "D/Main: byte -1",
+        "D/Main: byte ff",
+        "D/Main: short -1",
+        "D/Main: short ffff"), sink.getRecords());
+
+    try {
+      logger.dValue(null, "%d", 1.5);
+      fail();
+    } catch (IllegalFormatException expected) {
+    }
+    try {
+      logger.dValue(null, "%d", 'c');
+      fail();
+    } catch (IllegalFormatException expected) {
+    }
+  }
+
+  @Test public void boxedAndNarrowArgumentsFormatAsArguments() {
+    MemorySink sink = new MemorySink(16);
+    SimpleLogger logger = new SimpleLogger("com.example.Main",
+        new PatternHandler(Logger.Level.DEBUG, "Main", "", sink));
+    Integer nullInteger = null;
+    Long nullLong = null;
+    logger.d(null, "value %s", nullInteger);
+    logger.d(null, "value %d", nullLong);
+    logger.d(null, "value %s", Integer.valueOf(7));
+    logger.d(null, "byte %x", (byte) 0xff);
+    logger.d(null, "byte %x", Byte.valueOf((byte) 0xff));
+    logger.d(null, "short %x", (short) -1);
+    logger.d(null, "short %x", Short.valueOf((short) -1));
+    assertEquals(Arrays.asList(
+        "D/Main: value null",
+        "D/Main: value null",
+        "D/Main: value 7",
+        "D/Main: byte ff",
+        "D/Main: byte ff",
+        "D/Main: short ffff",
+        "D/Main: short ffff"), sink.getRecords());
+  }
+
+  @Test public void suppliersOnlyRunForEnabledLevels() {
+    final int[] calls = new int[1];
+    Logger.MessageSupplier supplier = new Logger.MessageSupplier() {
+      @Override public String get() {
+        return "call " + ++calls[0];
+      }
+    };
+    MemorySink sink = new MemorySink(16);
+    SimpleLogger logger = new SimpleLogger("com.example.Main",
+        new PatternHandler(Logger.Level.INFO, "Main", "", sink));
+    logger.v(null, supplier);
+    logger.d(null, new IllegalStateException(), supplier);
+    assertEquals(0, calls[0]);
+
+    logger.i(null, supplier);
+    logger.w(null, supplier);
+    assertEquals(Arrays.asList("I/Main: call 1", "W/Main: call 2"), sink.getRecords());
+  }
+
+  @Test public void steadyStateCallsDoNotAllocate() {
+    java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+    assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+    com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+    assumeTrue(threads.isThreadAllocatedMemorySupported());
+    threads.setThreadAllocatedMemoryEnabled(true);
+    long thread = Thread.currentThread().getId();
+
+    NullChannel channel = new NullChannel();
+    SimpleLogger logger = new SimpleLogger("com.example.Allocation",
+        new PatternHandler(Logger.Level.DEBUG, "%logger{-1}", "%level [%thread]", new ChannelSink(channel)));
+    for (int i = 0; i < 100000; i++) {
+      log(logger, i);
+    }
+
+    long overhead = -threads.getThreadAllocatedBytes(thread) + threads.getThreadAllocatedBytes(thread);
+    long before = threads.getThreadAllocatedBytes(thread);
+    for (int i = 0; i < 10000; i++) {
+      log(logger, i);
+    }
+    long allocated = threads.getThreadAllocatedBytes(thread) - before - overhead;
+    assertEquals("bytes allocated by 90000 log calls", 0, allocated);
+    assertEquals(true, channel.written > 0);
+  }
+
+  private static void log(SimpleLogger logger, int i) {
+    logger.dValue(null, "int %d", i);
+    logger.iValue(null, "long %d", (long) i << 32);
+    logger.wValue(null, "double %s", i / 4.0);
+    logger.eValue(null, "float %s", i / 4.0f);
+    logger.wValue(null, "flag %b", (i & 1) == 0);
+    logger.aValue(null, "char %s", (char) ('a' + i % 26));
+    logger.dValue(null, "byte %d", (byte) i);
+    logger.iValue(null, "short %d", (short) i);
+    logger.vValue(null, "filtered %d", i);
+  }
+}
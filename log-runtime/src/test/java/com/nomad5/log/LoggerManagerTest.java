@@ -0,0 +1,269 @@
+package com.nomad5.log;
+
+import com.nomad5.log.Handler.EventHandler;
+import com.nomad5.log.Handler.Handler;
+import com.nomad5.log.Handler.LogEvent;
+import com.nomad5.log.Handler.PatternHandler;
+import com.nomad5.log.Handler.RateLimitHandler;
+import com.nomad5.log.Handler.Sink.MemorySink;
+import com.nomad5.log.Handler.Sink.Sink;
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public final class LoggerManagerTest {
+  /** Counts the events it receives by their id, the only argument of the message. */
+  private static final class CountingHandler implements EventHandler {
+    private final AtomicIntegerArray counts;
+
+    CountingHandler(AtomicIntegerArray counts) {
+      this.counts = counts;
+    }
+
+    @Override public boolean isEnabled(Logger.Level level) {
+      return true;
+    }
+
+    @Override public boolean isCallerNeeded() {
+      return false;
+    }
+
+    @Override public void print(String loggerName, Logger.Level level, Object object, Throwable throwable,
+        String message) {
+      throw new AssertionError("unexpected plain message");
+    }
+
+    @Override public void print(String loggerName, Logger.Level level, Object object, Throwable throwable,
+        String messageFormat, Object... args) {
+      counts.incrementAndGet((Integer) args[0]);
+    }
+
+    @Override public void print(LogEvent event) {
+      counts.incrementAndGet((Integer) event.getArgs()[0]);
+    }
+  }
+
+  private static Map<String, Handler> handlers(String name, Handler handler) {
+    Map<String, Handler> map = new HashMap<>();
+    map.put(name, handler);
+    return map;
+  }
+
+  /** Returns the open files of the process, or -1 where the JVM does not tell. */
+  private static long openFileCount() {
+    try {
+      Class<?> unix = Class.forName("com.sun.management.UnixOperatingSystemMXBean");
+      return (Long) unix.getMethod("getOpenFileDescriptorCount").invoke(ManagementFactory.getOperatingSystemMXBean());
+    } catch (Exception e) {
+      return -1;
+    }
+  }
+
+  /** Returns the number of live threads with the name, waits a while for it to drop to the limit. */
+  private static int threadCount(String name, int limit) throws InterruptedException {
+    for (int attempt = 0; ; attempt++) {
+      int count = 0;
+      for (Thread thread : Thread.getAllStackTraces().keySet()) {
+        if (thread.getName().equals(name)) {
+          count++;
+        }
+      }
+      if (count <= limit || attempt == 100) {
+        return count;
+      }
+      Thread.sleep(10);
+    }
+  }
+
+  private static Properties fileSink(File file) {
+    Properties properties = new Properties();
+    properties.setProperty("sink.trace", "file:" + file.getPath() + ",batch=1k,delay=50");
+    properties.setProperty("root", "DEBUG@trace:Root");
+    return properties;
+  }
+
+  private static Sink rootSink() {
+    return ((PatternHandler) LoggerManager.getHandlers().get(null)).getSink();
+  }
+
+  @Rule public TemporaryFolder temp = new TemporaryFolder();
+
+  @After public void resetConfiguration() {
+    LoggerManager.configure(new HashMap<String, Handler>());
+  }
+
+  @Test public void existingLoggersUseNewHandlers() {
+    AtomicIntegerArray counts = new AtomicIntegerArray(2);
+    Logger logger = LoggerManager.getLogger("com.example.reload.Existing");
+    Logger root = LoggerManager.getLogger((String) null);
+    LoggerManager.configure(handlers("com.example.reload", new CountingHandler(counts)));
+    logger.print(Logger.Level.DEBUG, null, null, "%d", 0);
+    assertEquals(1, counts.get(0));
+    assertTrue(LoggerManager.getHandlers().containsKey(null));
+
+    LoggerManager.configure(handlers(null, new CountingHandler(counts)));
+    logger.print(Logger.Level.DEBUG, null, null, "%d", 1);
+    root.print(Logger.Level.DEBUG, null, null, "%d", 1);
+    assertEquals(2, counts.get(1));
+  }
+
+  @Test public void configureFromProperties() {
+    Properties properties = new Properties();
+    properties.setProperty("root", "ERROR:Root");
+    properties.setProperty("logger.com.example.reload", "DEBUG:Reload:%logger");
+    LoggerManager.configure(properties);
+    Logger logger = LoggerManager.getLogger("com.example.reload.Properties");
+    assertTrue(logger.isDebugEnabled());
+    assertTrue(!logger.isVerboseEnabled());
+    assertTrue(!LoggerManager.getLogger("com.example.other").isWarnEnabled());
+  }
+
+  @Test public void rateLimitsWrapTheHandlersOfTheirLoggers() {
+    Properties properties = new Properties();
+    properties.setProperty("root", "ERROR:Root");
+    properties.setProperty("logger.com.example.reload", "DEBUG:Reload:%logger");
+    properties.setProperty("limit.com.example.reload", "20/1000");
+    properties.setProperty("limit.com.example.missing", "20/1000");
+    properties.setProperty("limit.root", "2");
+    LoggerManager.configure(properties);
+    RateLimitHandler limited = (RateLimitHandler) LoggerManager.getHandlers().get("com.example.reload");
+    assertEquals(20, limited.getBurst());
+    assertEquals(1000, limited.getPeriodMillis());
+    assertTrue(limited.getHandler().isEnabled(Logger.Level.DEBUG));
+    assertTrue(!(LoggerManager.getHandlers().get(null) instanceof RateLimitHandler));
+    assertTrue(!LoggerManager.getHandlers().containsKey("com.example.missing"));
+  }
+
+  @Test public void flushReportsSuppressedMessages() {
+    Properties properties = new Properties();
+    properties.setProperty("sink.recent", "memory:16");
+    properties.setProperty("logger.com.example.reload", "DEBUG@recent:Reload");
+    properties.setProperty("limit.com.example.reload", "1/60000");
+    LoggerManager.configure(properties);
+    Logger logger = LoggerManager.getLogger("com.example.reload.Limited");
+    for (int i = 0; i < 3; i++) {
+      logger.print(Logger.Level.DEBUG, null, null, "retry %d", i);
+    }
+    LoggerManager.flush();
+    RateLimitHandler limited = (RateLimitHandler) LoggerManager.getHandlers().get("com.example.reload");
+    MemorySink sink = (MemorySink) ((PatternHandler) limited.getHandler()).getSink();
+    assertEquals(Arrays.asList("D/Reload: retry 0", "D/Reload: 2 similar messages suppressed: retry %d"),
+        sink.getRecords());
+  }
+
+  @Test public void listenerSeesBothConfigurations() {
+    final List<Map<String, Handler>> seen = new ArrayList<>();
+    LoggerManager.ConfigurationListener listener = new LoggerManager.ConfigurationListener() {
+      @Override public void onConfigurationChanged(Map<String, Handler> previous, Map<String, Handler> current) {
+        seen.add(previous);
+        seen.add(current);
+      }
+    };
+    Handler handler = new CountingHandler(new AtomicIntegerArray(1));
+    Map<String, Handler> previous = LoggerManager.getHandlers();
+    LoggerManager.addConfigurationListener(listener);
+    try {
+      LoggerManager.configure(handlers("com.example", handler));
+    } finally {
+      LoggerManager.removeConfigurationListener(listener);
+    }
+    assertEquals(2, seen.size());
+    assertSame(previous, seen.get(0));
+    assertSame(handler, seen.get(1).get("com.example"));
+    assertNotNull(seen.get(1).get(null));
+  }
+
+  @Test public void swapUnderConcurrentLogging() throws Exception {
+    final int threads = 4;
+    final int eventsPerThread = 50000;
+    final AtomicIntegerArray counts = new AtomicIntegerArray(threads * eventsPerThread);
+    LoggerManager.configure(handlers(null, new CountingHandler(counts)));
+
+    final CountDownLatch start = new CountDownLatch(1);
+    final AtomicBoolean logging = new AtomicBoolean(true);
+    final List<Throwable> failures = Collections.synchronizedList(new ArrayList<Throwable>());
+    List<Thread> loggers = new ArrayList<>();
+    for (int t = 0; t < threads; t++) {
+      final int first = t * eventsPerThread;
+      loggers.add(new Thread() {
+        @Override public void run() {
+          try {
+            start.await();
+            Logger held = LoggerManager.getLogger("com.example.reload.Held");
+            for (int i = 0; i < eventsPerThread; i++) {
+              // loggers held across swaps and loggers created during them
+              Logger logger = i % 2 == 0 ? held : LoggerManager.getLogger("com.example.reload.New" + (i % 4096));
+              logger.print(Logger.Level.DEBUG, null, null, "%d", first + i);
+            }
+          } catch (Throwable e) {
+            failures.add(e);
+          }
+        }
+      });
+    }
+    Thread swapper = new Thread() {
+      @Override public void run() {
+        for (int swap = 0; logging.get(); swap++) {
+          String name = swap % 3 == 0 ? null : swap % 3 == 1 ? "com.example" : "com.example.reload";
+          LoggerManager.configure(handlers(name, new CountingHandler(counts)));
+        }
+      }
+    };
+
+    for (Thread thread : loggers) {
+      thread.start();
+    }
+    swapper.start();
+    start.countDown();
+    for (Thread thread : loggers) {
+      thread.join();
+    }
+    logging.set(false);
+    swapper.join();
+
+    assertTrue(failures.toString(), failures.isEmpty());
+    for (int i = 0; i < counts.length(); i++) {
+      assertEquals("event " + i, 1, counts.get(i));
+    }
+  }
+
+  @Test public void reloadsCloseTheSinksTheyReplace() throws Exception {
+    File first = temp.newFile("first.log");
+    File second = temp.newFile("second.log");
+    LoggerManager.configure(fileSink(first));
+    Sink sink = rootSink();
+    int threads = threadCount("ChannelSink", Integer.MAX_VALUE);
+    long files = openFileCount();
+
+    // an unchanged definition keeps its sink
+    LoggerManager.configure(fileSink(first));
+    assertSame(sink, rootSink());
+
+    for (int reload = 0; reload < 5; reload++) {
+      LoggerManager.configure(fileSink(reload % 2 == 0 ? second : first));
+      assertNotSame(sink, rootSink());
+      sink = rootSink();
+    }
+    assertTrue(threadCount("ChannelSink", threads) <= threads);
+    assertEquals(files, openFileCount());
+  }
+}
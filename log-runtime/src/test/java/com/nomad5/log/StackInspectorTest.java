@@ -0,0 +1,69 @@
+package com.nomad5.log;
+
+import com.example.stack.Caller;
+import java.util.concurrent.Callable;
+import log.weaving.internal.Forwarder;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+public final class StackInspectorTest {
+  private static Callable<StackTraceElement> caller(final StackInspector inspector, final boolean skipIgnored) {
+    return new Callable<StackTraceElement>() {
+      @Override public StackTraceElement call() {
+        return inspector.getCaller(skipIgnored);
+      }
+    };
+  }
+
+  private static Callable<String> callerClassName(final StackInspector inspector, final boolean skipIgnored) {
+    return new Callable<String>() {
+      @Override public String call() {
+        return inspector.getCallerClassName(skipIgnored);
+      }
+    };
+  }
+
+  private static boolean hasStackWalker() {
+    try {
+      Class.forName("java.lang.StackWalker");
+      return true;
+    } catch (ClassNotFoundException e) {
+      return false;
+    }
+  }
+
+  /** The frames of this test are inside the library, those of Caller and Forwarder are not. */
+  private static void assertFindsCaller(StackInspector inspector) throws Exception {
+    StackTraceElement direct = Caller.direct(caller(inspector, false));
+    assertEquals(Caller.class.getName(), direct.getClassName());
+    assertEquals("direct", direct.getMethodName());
+    assertEquals(Caller.class.getName(), Caller.direct(callerClassName(inspector, false)));
+
+    StackTraceElement ignored = Caller.throughIgnored(caller(inspector, false));
+    assertEquals(Forwarder.class.getName(), ignored.getClassName());
+    assertEquals("forward", ignored.getMethodName());
+    assertEquals(Forwarder.class.getName(), Caller.throughIgnored(callerClassName(inspector, false)));
+
+    StackTraceElement skipped = Caller.throughIgnored(caller(inspector, true));
+    assertEquals(Caller.class.getName(), skipped.getClassName());
+    assertEquals("throughIgnored", skipped.getMethodName());
+    assertEquals(Caller.class.getName(), Caller.throughIgnored(callerClassName(inspector, true)));
+  }
+
+  @Test public void stackWalkerFindsTheFirstFrameOutsideTheLibrary() throws Exception {
+    assumeTrue(hasStackWalker());
+    assertFindsCaller(new StackInspector.StackWalkerInspector());
+  }
+
+  @Test public void stackTraceFindsTheFirstFrameOutsideTheLibrary() throws Exception {
+    assertFindsCaller(new StackInspector.StackTraceInspector());
+  }
+
+  @Test public void stackWalkerIsUsedWhereTheRuntimeHasIt() {
+    assumeTrue(hasStackWalker());
+    assertTrue(StackInspector.INSTANCE instanceof StackInspector.StackWalkerInspector);
+  }
+}
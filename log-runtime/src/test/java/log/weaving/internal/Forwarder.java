@@ -0,0 +1,13 @@
+package log.weaving.internal;
+
+import java.util.concurrent.Callable;
+
+/** A frame in one of the packages the caller search may skip. */
+public final class Forwarder {
+  public static <T> T forward(Callable<T> call) throws Exception {
+    return call.call();
+  }
+
+  private Forwarder() {
+  }
+}